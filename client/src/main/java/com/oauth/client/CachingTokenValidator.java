@@ -0,0 +1,193 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.client;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Validates access tokens through the authorization server's introspection endpoints, keeping the answers in a
+ * bounded in-process cache.
+ *
+ * <p>
+ * Active answers are kept for {@code activeTimeToLive}, but never beyond the token's own expiration. Inactive answers
+ * are kept for {@code inactiveTimeToLive}, so that repeated requests with an unknown or revoked token do not reach the
+ * server either. Concurrent validations of a token that is not cached share a single introspection request, and
+ * {@link #validateAll(Collection)} introspects all the tokens it misses in batch requests.
+ * </p>
+ *
+ * <p>
+ * The server is not told about cached answers, so the active time to live bounds how long a revoked token is still
+ * accepted. Failed introspection requests are not cached.
+ * </p>
+ */
+public class CachingTokenValidator {
+
+    private final IntrospectionClient introspectionClient;
+
+    private final long activeTimeToLiveMillis;
+
+    private final long inactiveTimeToLiveMillis;
+
+    private final LoadingCache<String, Entry> results;
+
+    public CachingTokenValidator(@NonNull IntrospectionClient introspectionClient, long maximumSize,
+                                 @NonNull Duration activeTimeToLive, @NonNull Duration inactiveTimeToLive) {
+        this.introspectionClient = introspectionClient;
+        this.activeTimeToLiveMillis = activeTimeToLive.toMillis();
+        this.inactiveTimeToLiveMillis = inactiveTimeToLive.toMillis();
+        this.results = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(Math.max(activeTimeToLiveMillis, inactiveTimeToLiveMillis), TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build(new CacheLoader<String, Entry>() {
+                @Override
+                public Entry load(String token) {
+                    return entry(introspectionClient.introspect(token));
+                }
+
+                @Override
+                public Map<String, Entry> loadAll(Iterable<? extends String> tokens) {
+                    List<String> misses = new ArrayList<>();
+                    tokens.forEach(misses::add);
+                    List<IntrospectionResult> introspected = introspectionClient.introspect(misses);
+
+                    Map<String, Entry> loaded = new LinkedHashMap<>();
+                    for (int i = 0; i < misses.size(); i++) {
+                        loaded.put(misses.get(i), entry(introspected.get(i)));
+                    }
+                    return loaded;
+                }
+            });
+    }
+
+    /**
+     * Validate an access token.
+     *
+     * @param token the access token.
+     * @return the introspection response; check {@link IntrospectionResult#isActive()}.
+     * @throws IntrospectionException if the token is not cached and the server does not answer.
+     */
+    public IntrospectionResult validate(@NonNull String token) {
+        Entry entry = get(token);
+        if (entry.isStale()) {
+            results.asMap().remove(token, entry);
+            entry = get(token);
+        }
+        return entry.getResult();
+    }
+
+    /**
+     * Validate several access tokens.
+     *
+     * @param tokens the access tokens.
+     * @return the introspection response of each token.
+     * @throws IntrospectionException if a token is not cached and the server does not answer.
+     */
+    public Map<String, IntrospectionResult> validateAll(@NonNull Collection<String> tokens) {
+        Map<String, Entry> entries = new LinkedHashMap<>(getAll(tokens));
+
+        List<String> stale = new ArrayList<>();
+        entries.forEach((token, entry) -> {
+            if (entry.isStale()) {
+                results.asMap().remove(token, entry);
+                stale.add(token);
+            }
+        });
+        if (!stale.isEmpty()) {
+            entries.putAll(getAll(stale));
+        }
+
+        Map<String, IntrospectionResult> validated = new LinkedHashMap<>();
+        entries.forEach((token, entry) -> validated.put(token, entry.getResult()));
+        return validated;
+    }
+
+    /**
+     * Forget the cached answer for a token, e.g. after the resource server learned it was revoked.
+     *
+     * @param token the access token.
+     */
+    public void invalidate(@NonNull String token) {
+        results.invalidate(token);
+    }
+
+    /**
+     * Cache statistics: hits, misses, loads and evictions.
+     *
+     * @return a snapshot of the cache statistics.
+     */
+    public CacheStats stats() {
+        return results.stats();
+    }
+
+    private Entry get(String token) {
+        try {
+            return results.getUnchecked(token);
+        } catch (UncheckedExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private Map<String, Entry> getAll(Collection<String> tokens) {
+        try {
+            return results.getAll(tokens);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Cache an answer until the end of its time to live. An active answer for a token that has already expired is
+     * cached as inactive.
+     */
+    private Entry entry(IntrospectionResult result) {
+        long now = System.currentTimeMillis();
+        if (!result.isActive() || result.isExpired()) {
+            IntrospectionResult inactive = result.isActive() ? IntrospectionResult.inactive() : result;
+            return new Entry(inactive, now + inactiveTimeToLiveMillis);
+        }
+
+        long validUntil = now + activeTimeToLiveMillis;
+        if (result.getExp() != null) {
+            validUntil = Math.min(validUntil, result.getExp() * 1000L);
+        }
+        return new Entry(result, validUntil);
+    }
+
+    private static RuntimeException unwrap(Exception e) {
+        if (e.getCause() instanceof RuntimeException) {
+            return (RuntimeException) e.getCause();
+        }
+        return new IntrospectionException("Introspection failed.", e.getCause());
+    }
+
+    /**
+     * A cached answer and the time until which it may be served.
+     */
+    @Value
+    private static class Entry {
+        IntrospectionResult result;
+        long validUntil;
+
+        boolean isStale() {
+            return validUntil <= System.currentTimeMillis();
+        }
+    }
+}
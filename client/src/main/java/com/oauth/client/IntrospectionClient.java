@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import lombok.NonNull;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Client for the introspection endpoints of the authorization server, authenticating with client credentials.
+ *
+ * <p>
+ * Requests go through a pooled keep-alive {@link CloseableHttpClient}. Lists of tokens are sent to the batch endpoint,
+ * split into batches of at most {@code maxBatchSize} tokens, which must not exceed the server's
+ * {@code oauth.introspection.max-batch-size}.
+ * </p>
+ */
+public class IntrospectionClient implements Closeable {
+
+    private static final TypeReference<List<IntrospectionResult>> RESULT_LIST =
+        new TypeReference<List<IntrospectionResult>>() {
+        };
+
+    private final URI introspectUri;
+
+    private final URI batchUri;
+
+    private final String authorization;
+
+    private final CloseableHttpClient httpClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private int maxBatchSize = 100;
+
+    /**
+     * @param serverUri base URI of the authorization server, e.g. {@code https://oauth.example.com}.
+     * @param clientId client id of the resource server.
+     * @param clientSecret client secret of the resource server.
+     * @param maxConnections connections kept open to the authorization server.
+     * @param timeoutMillis connect, connection pool and read timeout.
+     */
+    public IntrospectionClient(@NonNull URI serverUri, @NonNull String clientId, @NonNull String clientSecret,
+                               int maxConnections, int timeoutMillis) {
+        this.introspectUri = serverUri.resolve("/oauth/introspect");
+        this.batchUri = serverUri.resolve("/oauth/introspect/batch");
+        this.authorization = "Basic " + Base64.getEncoder()
+            .encodeToString((clientId + ":" + clientSecret).getBytes(StandardCharsets.UTF_8));
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectTimeout(timeoutMillis)
+                .setConnectionRequestTimeout(timeoutMillis)
+                .setSocketTimeout(timeoutMillis)
+                .build())
+            .build();
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Introspect a token.
+     *
+     * @param token the access token.
+     * @return the introspection response.
+     * @throws IntrospectionException if the server does not answer.
+     */
+    public IntrospectionResult introspect(@NonNull String token) {
+        HttpPost request = new HttpPost(introspectUri);
+        request.setEntity(new UrlEncodedFormEntity(Collections.singletonList(new BasicNameValuePair("token", token)),
+            StandardCharsets.UTF_8));
+
+        return execute(request, entity -> objectMapper.readValue(entity.getContent(), IntrospectionResult.class));
+    }
+
+    /**
+     * Introspect several tokens.
+     *
+     * @param tokens the access tokens.
+     * @return the introspection responses, in the order of the tokens.
+     * @throws IntrospectionException if the server does not answer.
+     */
+    public List<IntrospectionResult> introspect(@NonNull List<String> tokens) {
+        List<IntrospectionResult> results = new ArrayList<>(tokens.size());
+        for (int from = 0; from < tokens.size(); from += maxBatchSize) {
+            List<String> batch = tokens.subList(from, Math.min(from + maxBatchSize, tokens.size()));
+
+            HttpPost request = new HttpPost(batchUri);
+            try {
+                request.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(batch),
+                    ContentType.APPLICATION_JSON));
+            } catch (IOException e) {
+                throw new IntrospectionException("Unable to write introspection request.", e);
+            }
+
+            List<IntrospectionResult> batchResults =
+                execute(request, entity -> objectMapper.readValue(entity.getContent(), RESULT_LIST));
+            if (batchResults.size() != batch.size()) {
+                throw new IntrospectionException("Expected " + batch.size() + " introspection results, got "
+                    + batchResults.size());
+            }
+            results.addAll(batchResults);
+        }
+        return results;
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private <T> T execute(HttpPost request, EntityReader<T> reader) {
+        request.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+        request.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int status = response.getStatusLine().getStatusCode();
+            if (status != HttpStatus.SC_OK || response.getEntity() == null) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new IntrospectionException("Introspection failed with status " + status);
+            }
+            return reader.read(response.getEntity());
+        } catch (IOException e) {
+            throw new IntrospectionException("Introspection request failed.", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntityReader<T> {
+        T read(HttpEntity entity) throws IOException;
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.client;
+
+/**
+ * Thrown when the authorization server cannot be reached or does not answer an introspection request.
+ */
+public class IntrospectionException extends RuntimeException {
+
+    public IntrospectionException(String msg) {
+        super(msg);
+    }
+
+    public IntrospectionException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.client;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * An RFC 7662 introspection response. Only {@code active} is set for a token that is not active. Results are
+ * immutable, as the cached ones are shared by every caller.
+ */
+@Value
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class IntrospectionResult {
+
+    private static final IntrospectionResult INACTIVE = IntrospectionResult.builder().active(false).build();
+
+    boolean active;
+
+    String scope;
+
+    String clientId;
+
+    String username;
+
+    String tokenType;
+
+    /**
+     * Expiration in epoch seconds.
+     */
+    Long exp;
+
+    Set<String> aud;
+
+    @Builder
+    @JsonCreator
+    public IntrospectionResult(@JsonProperty("active") boolean active,
+                               @JsonProperty("scope") String scope,
+                               @JsonProperty("client_id") String clientId,
+                               @JsonProperty("username") String username,
+                               @JsonProperty("token_type") String tokenType,
+                               @JsonProperty("exp") Long exp,
+                               @JsonProperty("aud") Set<String> aud) {
+        this.active = active;
+        this.scope = scope;
+        this.clientId = clientId;
+        this.username = username;
+        this.tokenType = tokenType;
+        this.exp = exp;
+        this.aud = aud == null ? null : Collections.unmodifiableSet(new LinkedHashSet<>(aud));
+    }
+
+    /**
+     * A response for a token that is not active.
+     *
+     * @return an inactive result.
+     */
+    public static IntrospectionResult inactive() {
+        return INACTIVE;
+    }
+
+    /**
+     * Check if the token has expired since the response was given.
+     *
+     * @return true if expired.
+     */
+    @JsonIgnore
+    public boolean isExpired() {
+        return exp != null && exp * 1000L <= System.currentTimeMillis();
+    }
+
+    /**
+     * The scopes of the token.
+     *
+     * @return the scopes, empty if there are none.
+     */
+    @JsonIgnore
+    public Set<String> getScopes() {
+        if (scope == null || scope.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(scope.split(" "))));
+    }
+}
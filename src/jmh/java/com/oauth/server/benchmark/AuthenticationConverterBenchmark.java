@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.benchmark;
+
+import com.amazonaws.util.Base64;
+import com.oauth.server.dto.OAuth2AuthenticationConverter;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.SerializationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+/**
+ * Encode/decode benchmarks for the persisted form of {@link OAuth2Authentication}, against the Base64 wrapped Java
+ * serialization used before the binary codec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationConverterBenchmark {
+
+    private final OAuth2AuthenticationConverter converter = new OAuth2AuthenticationConverter();
+
+    private OAuth2Authentication authentication;
+
+    private String encoded;
+
+    private String legacyEncoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        authentication = BenchmarkFixtures.authentication("user");
+        encoded = converter.convert(authentication);
+        legacyEncoded = new String(Base64.encode(SerializationUtils.serialize(authentication)));
+    }
+
+    @Benchmark
+    public String convert() {
+        return converter.convert(authentication);
+    }
+
+    @Benchmark
+    public OAuth2Authentication unconvert() {
+        return converter.unconvert(encoded);
+    }
+
+    @Benchmark
+    public String legacyConvert() {
+        return new String(Base64.encode(SerializationUtils.serialize(authentication)));
+    }
+
+    /**
+     * Legacy rows are still decoded by the converter.
+     */
+    @Benchmark
+    public OAuth2Authentication legacyUnconvert() {
+        return converter.unconvert(legacyEncoded);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.code.RandomValueAuthorizationCodeServices;
+
+/**
+ * Create/consume benchmarks for the {@link org.springframework.security.oauth2.provider.code.AuthorizationCodeServices}
+ * implementations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizationCodeBenchmark {
+
+    @Param({"DYNAMODB", "MONGODB"})
+    public Backend backend;
+
+    private RandomValueAuthorizationCodeServices authorizationCodeServices;
+
+    private OAuth2Authentication authentication;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        authorizationCodeServices = backend.authorizationCodeServices();
+        authentication = BenchmarkFixtures.authentication("user");
+    }
+
+    /**
+     * A full code exchange: the code is issued on /oauth/authorize and consumed on /oauth/token. Codes are always
+     * consumed so the store does not grow over the run.
+     */
+    @Benchmark
+    public OAuth2Authentication createThenConsumeAuthorizationCode() {
+        String code = authorizationCodeServices.createAuthorizationCode(authentication);
+        return authorizationCodeServices.consumeAuthorizationCode(code);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.benchmark;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.oauth.server.dao.DynamoDBAuthorizationCodeDAO;
+import com.oauth.server.dao.DynamoDBPartnerTokenDAO;
+import com.oauth.server.dao.DynamoDBTokenDAO;
+import com.oauth.server.dao.MongoDBAuthorizationCodeDAO;
+import com.oauth.server.dao.MongoDBPartnerTokenDAO;
+import com.oauth.server.dao.MongoDBTokenDAO;
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.dto.OAuthCode;
+import com.oauth.server.dto.OAuthPartnerToken;
+import com.oauth.server.dto.OAuthRefreshToken;
+import com.oauth.server.repository.OAuthAccessTokenRepository;
+import com.oauth.server.repository.OAuthCodeRepository;
+import com.oauth.server.repository.OAuthPartnerTokenRepository;
+import com.oauth.server.repository.OAuthoRefreshTokenRepository;
+import com.oauth.server.token.AuthenticatedTokenStore;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.security.oauth2.client.token.ClientTokenServices;
+import org.springframework.security.oauth2.provider.code.RandomValueAuthorizationCodeServices;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * The storage backends benchmarked, each wired against its in-process stand-in.
+ */
+public enum Backend {
+    DYNAMODB {
+        @Override
+        public AuthenticatedTokenStore tokenStore() {
+            return new DynamoDBTokenDAO(BenchmarkFixtures.dynamoDBMapper());
+        }
+
+        @Override
+        public ClientTokenServices clientTokenServices() {
+            return new DynamoDBPartnerTokenDAO(BenchmarkFixtures.dynamoDBMapper());
+        }
+
+        @Override
+        public RandomValueAuthorizationCodeServices authorizationCodeServices() {
+            AmazonDynamoDB amazonDynamoDB = BenchmarkFixtures.amazonDynamoDB();
+            return new DynamoDBAuthorizationCodeDAO(new DynamoDBMapper(amazonDynamoDB), amazonDynamoDB);
+        }
+    },
+    MONGODB {
+        @Override
+        public AuthenticatedTokenStore tokenStore() {
+            MongoConverter converter = BenchmarkFixtures.mongoConverter();
+            MongoDBTokenDAO tokenStore = new MongoDBTokenDAO(BenchmarkFixtures.tokenKeyHasher());
+            ReflectionTestUtils.setField(tokenStore, "oauthAccessTokenRepository",
+                InMemoryMongoRepository.create(OAuthAccessTokenRepository.class, OAuthAccessToken.class, converter));
+            ReflectionTestUtils.setField(tokenStore, "oauthoRefreshTokenRepository",
+                InMemoryMongoRepository.create(OAuthoRefreshTokenRepository.class, OAuthRefreshToken.class, converter));
+            return tokenStore;
+        }
+
+        @Override
+        public ClientTokenServices clientTokenServices() {
+            MongoDBPartnerTokenDAO clientTokenServices = new MongoDBPartnerTokenDAO(BenchmarkFixtures.tokenKeyHasher());
+            ReflectionTestUtils.setField(clientTokenServices, "oauthPartnerTokenRepository",
+                InMemoryMongoRepository.create(OAuthPartnerTokenRepository.class, OAuthPartnerToken.class,
+                    BenchmarkFixtures.mongoConverter()));
+            return clientTokenServices;
+        }
+
+        @Override
+        public RandomValueAuthorizationCodeServices authorizationCodeServices() {
+            MongoDBAuthorizationCodeDAO authorizationCodeServices = new MongoDBAuthorizationCodeDAO();
+            ReflectionTestUtils.setField(authorizationCodeServices, "oauthCodeRepository",
+                InMemoryMongoRepository.create(OAuthCodeRepository.class, OAuthCode.class,
+                    BenchmarkFixtures.mongoConverter()));
+            return authorizationCodeServices;
+        }
+    };
+
+    public abstract AuthenticatedTokenStore tokenStore();
+
+    public abstract ClientTokenServices clientTokenServices();
+
+    public abstract RandomValueAuthorizationCodeServices authorizationCodeServices();
+}
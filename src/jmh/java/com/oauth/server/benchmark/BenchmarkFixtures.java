@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.benchmark;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.dto.OAuthClientDetails;
+import com.oauth.server.dto.OAuthCounter;
+import com.oauth.server.dto.OAuthCode;
+import com.oauth.server.dto.OAuthMongoConverters;
+import com.oauth.server.dto.OAuthPartner;
+import com.oauth.server.dto.OAuthPartnerToken;
+import com.oauth.server.dto.OAuthRefreshToken;
+import com.oauth.server.token.TokenKeyHasher;
+import java.util.Date;
+import java.util.UUID;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+import org.springframework.security.oauth2.common.DefaultExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+/**
+ * Shared sample data and in-process backends for the benchmarks.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String CLIENT_ID = "test_alexa_client";
+
+    private static final long ACCESS_TOKEN_VALIDITY_MILLIS = 3_600_000L;
+
+    private static final long REFRESH_TOKEN_VALIDITY_MILLIS = 30L * 24 * 3_600_000L;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Create an in-process DynamoDB with all the OAuth tables created.
+     *
+     * @return DynamoDB client.
+     */
+    public static AmazonDynamoDB amazonDynamoDB() {
+        InMemoryAmazonDynamoDB amazonDynamoDB = new InMemoryAmazonDynamoDB();
+        DynamoDBMapper dynamoDBMapper = new DynamoDBMapper(amazonDynamoDB);
+
+        for (Class<?> table : ImmutableList.of(OAuthAccessToken.class, OAuthRefreshToken.class, OAuthCode.class,
+            OAuthClientDetails.class, OAuthCounter.class, OAuthPartner.class, OAuthPartnerToken.class)) {
+            amazonDynamoDB.createTable(dynamoDBMapper.generateCreateTableRequest(table)
+                .withProvisionedThroughput(new ProvisionedThroughput(1L, 1L)));
+        }
+        return amazonDynamoDB;
+    }
+
+    /**
+     * Create a DynamoDBMapper backed by an in-process DynamoDB with all the OAuth tables created.
+     *
+     * @return mapper.
+     */
+    public static DynamoDBMapper dynamoDBMapper() {
+        return new DynamoDBMapper(amazonDynamoDB());
+    }
+
+    /**
+     * Create the MongoConverter used to map entities in the in-process Mongo repositories.
+     *
+     * @return converter.
+     */
+    public static MongoConverter mongoConverter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(OAuthMongoConverters.converters());
+
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    /**
+     * The token key hasher configured by default.
+     *
+     * @return MD5 token key hasher.
+     */
+    public static TokenKeyHasher tokenKeyHasher() {
+        return new TokenKeyHasher(TokenKeyHasher.Algorithm.MD5);
+    }
+
+    /**
+     * Create a user authentication resembling an Alexa account linking authorization code grant.
+     *
+     * @param userName user name.
+     * @return oauth2 authentication.
+     */
+    public static OAuth2Authentication authentication(String userName) {
+        OAuth2Request request = new OAuth2Request(
+            ImmutableMap.of(
+                "response_type", "code",
+                "client_id", CLIENT_ID,
+                "redirect_uri", "https://pitangui.amazon.com/api/skill/link/M3KVOEXUO4ALBL",
+                "state", UUID.randomUUID().toString(),
+                "scope", "profile"),
+            CLIENT_ID,
+            ImmutableList.of(),
+            true,
+            ImmutableSet.of("profile"),
+            ImmutableSet.of("oauth2-resource"),
+            "https://pitangui.amazon.com/api/skill/link/M3KVOEXUO4ALBL",
+            ImmutableSet.of("code"),
+            ImmutableMap.of());
+
+        User user = new User(userName, "", ImmutableList.of(new SimpleGrantedAuthority("ROLE_USER")));
+        UsernamePasswordAuthenticationToken userAuthentication =
+            new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+
+        return new OAuth2Authentication(request, userAuthentication);
+    }
+
+    /**
+     * Create a bearer access token with an expiring refresh token.
+     *
+     * @return access token.
+     */
+    public static OAuth2AccessToken accessToken() {
+        long now = System.currentTimeMillis();
+
+        DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(UUID.randomUUID().toString());
+        accessToken.setExpiration(new Date(now + ACCESS_TOKEN_VALIDITY_MILLIS));
+        accessToken.setScope(ImmutableSet.of("profile"));
+        accessToken.setRefreshToken(new DefaultExpiringOAuth2RefreshToken(UUID.randomUUID().toString(),
+            new Date(now + REFRESH_TOKEN_VALIDITY_MILLIS)));
+        return accessToken;
+    }
+
+    /**
+     * Resource details of the sample partner.
+     *
+     * @return protected resource details.
+     */
+    public static OAuth2ProtectedResourceDetails partnerResource() {
+        return OAuthPartner.builder()
+            .partnerId(CLIENT_ID)
+            .clientId("amzn1.application-oa2-client.0897266ee6fb480ead86d615e2653558")
+            .clientSecret("secret")
+            .scopes("alexa::health:profile:write")
+            .accessTokenUri("https://api.amazon.com/auth/o2/token")
+            .userAuthorizationUri("https://www.amazon.com/ap/oa")
+            .build()
+            .toProtectedResourceDetails();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.benchmark;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.CreateTableResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-process stand-in for {@link com.amazonaws.services.dynamodbv2.AmazonDynamoDB}.
+ *
+ * <p>
+ * Only the operations issued by {@link com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper} for the DAOs
+ * are supported. Items are kept as attribute maps, so the mapper still pays its full marshalling cost on every call.
+ * Conditions and expressions are ignored; query key conditions are evaluated as equality matches.
+ * </p>
+ */
+public class InMemoryAmazonDynamoDB extends AbstractAmazonDynamoDB {
+
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+
+    @Override
+    public CreateTableResult createTable(CreateTableRequest request) {
+        String hashKey = request.getKeySchema().stream()
+            .filter(element -> KeyType.HASH.toString().equals(element.getKeyType()))
+            .map(KeySchemaElement::getAttributeName)
+            .findAny()
+            .orElseThrow(() -> new IllegalArgumentException("No hash key for " + request.getTableName()));
+
+        tables.put(request.getTableName(), new Table(hashKey));
+        return new CreateTableResult();
+    }
+
+    @Override
+    public GetItemResult getItem(GetItemRequest request) {
+        Table table = table(request.getTableName());
+        Map<String, AttributeValue> item = table.items.get(table.keyOf(request.getKey()));
+        return new GetItemResult().withItem(item == null ? null : new HashMap<>(item));
+    }
+
+    @Override
+    public PutItemResult putItem(PutItemRequest request) {
+        Table table = table(request.getTableName());
+        table.items.put(table.keyOf(request.getItem()), new HashMap<>(request.getItem()));
+        return new PutItemResult();
+    }
+
+    @Override
+    public UpdateItemResult updateItem(UpdateItemRequest request) {
+        Table table = table(request.getTableName());
+        Map<String, AttributeValue> item = table.items.compute(table.keyOf(request.getKey()), (key, existing) -> {
+            Map<String, AttributeValue> updated = existing == null ? new HashMap<>(request.getKey())
+                : new HashMap<>(existing);
+            if (request.getAttributeUpdates() != null) {
+                for (Map.Entry<String, AttributeValueUpdate> update : request.getAttributeUpdates().entrySet()) {
+                    if (AttributeAction.DELETE.toString().equals(update.getValue().getAction())) {
+                        updated.remove(update.getKey());
+                    } else {
+                        updated.put(update.getKey(), update.getValue().getValue());
+                    }
+                }
+            }
+            return updated;
+        });
+        return new UpdateItemResult().withAttributes(new HashMap<>(item));
+    }
+
+    @Override
+    public DeleteItemResult deleteItem(DeleteItemRequest request) {
+        Table table = table(request.getTableName());
+        Map<String, AttributeValue> removed = table.items.remove(table.keyOf(request.getKey()));
+        DeleteItemResult result = new DeleteItemResult();
+        if (ReturnValue.ALL_OLD.toString().equals(request.getReturnValues())) {
+            result.setAttributes(removed);
+        }
+        return result;
+    }
+
+    @Override
+    public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+        request.getRequestItems().forEach((tableName, writeRequests) -> {
+            Table table = table(tableName);
+            for (WriteRequest writeRequest : writeRequests) {
+                if (writeRequest.getPutRequest() != null) {
+                    Map<String, AttributeValue> item = writeRequest.getPutRequest().getItem();
+                    table.items.put(table.keyOf(item), new HashMap<>(item));
+                } else {
+                    table.items.remove(table.keyOf(writeRequest.getDeleteRequest().getKey()));
+                }
+            }
+        });
+        return new BatchWriteItemResult().withUnprocessedItems(new HashMap<>());
+    }
+
+    @Override
+    public QueryResult query(QueryRequest request) {
+        Table table = table(request.getTableName());
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (Map<String, AttributeValue> item : table.items.values()) {
+            if (matches(item, request.getKeyConditions())) {
+                items.add(new HashMap<>(item));
+            }
+        }
+        return new QueryResult().withItems(items).withCount(items.size());
+    }
+
+    @Override
+    public ScanResult scan(ScanRequest request) {
+        Table table = table(request.getTableName());
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        table.items.values().forEach(item -> items.add(new HashMap<>(item)));
+        return new ScanResult().withItems(items).withCount(items.size());
+    }
+
+    private Table table(String tableName) {
+        Table table = tables.get(tableName);
+        if (table == null) {
+            throw new IllegalStateException("Table " + tableName + " has not been created.");
+        }
+        return table;
+    }
+
+    private static boolean matches(Map<String, AttributeValue> item, Map<String, Condition> keyConditions) {
+        if (keyConditions == null) {
+            return true;
+        }
+        for (Map.Entry<String, Condition> condition : keyConditions.entrySet()) {
+            AttributeValue expected = condition.getValue().getAttributeValueList().get(0);
+            if (!expected.equals(item.get(condition.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Table {
+        private final String hashKey;
+        private final Map<String, Map<String, AttributeValue>> items = new ConcurrentHashMap<>();
+
+        private Table(String hashKey) {
+            this.hashKey = hashKey;
+        }
+
+        private String keyOf(Map<String, AttributeValue> item) {
+            AttributeValue value = item.get(hashKey);
+            return value.getS() != null ? value.getS() : value.getN();
+        }
+    }
+}
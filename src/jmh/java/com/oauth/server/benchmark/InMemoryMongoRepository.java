@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+
+/**
+ * An in-process stand-in for the Spring Data {@code MongoRepository} interfaces used by the DAOs.
+ *
+ * <p>
+ * Entities are written to and read from BSON {@link Document}s through the same {@link MongoConverter} the
+ * application uses, so the reflective mapping cost is part of every call. Derived {@code findBy...}/{@code deleteBy...}
+ * finders are evaluated as equality matches on the mapped document fields.
+ * </p>
+ */
+public final class InMemoryMongoRepository implements InvocationHandler {
+
+    private static final String ID_FIELD = "_id";
+
+    private final Class<?> entityType;
+    private final MongoConverter converter;
+    private final MongoPersistentEntity<?> persistentEntity;
+    private final Map<Object, Document> documents = new ConcurrentHashMap<>();
+
+    private InMemoryMongoRepository(Class<?> entityType, MongoConverter converter) {
+        this.entityType = entityType;
+        this.converter = converter;
+        this.persistentEntity = converter.getMappingContext().getRequiredPersistentEntity(entityType);
+    }
+
+    /**
+     * Create an in-memory implementation of a repository interface.
+     *
+     * @param repositoryType repository interface, e.g. {@code OAuthAccessTokenRepository}.
+     * @param entityType the entity managed by the repository.
+     * @param converter converter used to map entities to documents.
+     * @return repository proxy.
+     */
+    public static <R> R create(Class<R> repositoryType, Class<?> entityType, MongoConverter converter) {
+        return repositoryType.cast(Proxy.newProxyInstance(repositoryType.getClassLoader(),
+            new Class<?>[] {repositoryType}, new InMemoryMongoRepository(entityType, converter)));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+
+        switch (name) {
+            case "save":
+                return save(args[0]);
+            case "saveAll":
+                List<Object> saved = new ArrayList<>();
+                ((Iterable<?>) args[0]).forEach(entity -> saved.add(save(entity)));
+                return saved;
+            case "findById":
+                return Optional.ofNullable(read(documents.get(args[0])));
+            case "existsById":
+                return documents.containsKey(args[0]);
+            case "findAll":
+                return find(document -> true);
+            case "count":
+                return (long) documents.size();
+            case "deleteById":
+                documents.remove(args[0]);
+                return null;
+            case "delete":
+                documents.remove(idOf(args[0]));
+                return null;
+            case "deleteAll":
+                if (args == null || args.length == 0) {
+                    documents.clear();
+                } else {
+                    ((Iterable<?>) args[0]).forEach(entity -> documents.remove(idOf(entity)));
+                }
+                return null;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "InMemoryMongoRepository<" + entityType.getSimpleName() + ">";
+            default:
+                break;
+        }
+
+        if (name.startsWith("findBy")) {
+            return find(criteria(name.substring("findBy".length()), args));
+        }
+        if (name.startsWith("deleteBy")) {
+            return delete(criteria(name.substring("deleteBy".length()), args), method.getReturnType());
+        }
+        throw new UnsupportedOperationException(method.toString());
+    }
+
+    private Object save(Object entity) {
+        Document document = new Document();
+        converter.write(entity, document);
+        documents.put(document.get(ID_FIELD), document);
+        return entity;
+    }
+
+    private Object read(Document document) {
+        return document == null ? null : converter.read(entityType, document);
+    }
+
+    private List<Object> find(Predicate<Document> predicate) {
+        List<Object> results = new ArrayList<>();
+        documents.values().stream().filter(predicate).forEach(document -> results.add(read(document)));
+        return results;
+    }
+
+    /**
+     * Remove the matching documents. Like a derived delete query, returns the removed entity when the method returns
+     * the entity type.
+     */
+    private Object delete(Predicate<Document> predicate, Class<?> returnType) {
+        Object removed = null;
+        Iterator<Document> iterator = documents.values().iterator();
+        while (iterator.hasNext()) {
+            Document document = iterator.next();
+            if (predicate.test(document)) {
+                iterator.remove();
+                if (removed == null && returnType == entityType) {
+                    removed = read(document);
+                }
+            }
+        }
+        return removed;
+    }
+
+    private Object idOf(Object entity) {
+        return persistentEntity.getIdentifierAccessor(entity).getIdentifier();
+    }
+
+    private Predicate<Document> criteria(String expression, Object[] args) {
+        String[] properties = expression.split("And");
+        return document -> {
+            for (int i = 0; i < properties.length; i++) {
+                String property = Character.toLowerCase(properties[i].charAt(0)) + properties[i].substring(1);
+                String field = persistentEntity.getRequiredPersistentProperty(property).getFieldName();
+                if (!Objects.equals(document.get(field), args[i])) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+}
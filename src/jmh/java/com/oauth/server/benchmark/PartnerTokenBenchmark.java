@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.benchmark;
+
+import com.oauth.server.authentication.UserIDAuthenticationToken;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+import org.springframework.security.oauth2.client.token.ClientTokenServices;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+
+/**
+ * Save/get/remove benchmarks for the partner token {@link ClientTokenServices} implementations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartnerTokenBenchmark {
+
+    private static final int USER_COUNT = 1024;
+
+    @Param({"DYNAMODB", "MONGODB"})
+    public Backend backend;
+
+    private ClientTokenServices clientTokenServices;
+
+    private OAuth2ProtectedResourceDetails resource;
+
+    private Authentication[] users;
+
+    private OAuth2AccessToken[] accessTokens;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        clientTokenServices = backend.clientTokenServices();
+        resource = BenchmarkFixtures.partnerResource();
+        users = new Authentication[USER_COUNT];
+        accessTokens = new OAuth2AccessToken[USER_COUNT];
+
+        for (int i = 0; i < USER_COUNT; i++) {
+            users[i] = new UserIDAuthenticationToken("user" + i);
+            accessTokens[i] = BenchmarkFixtures.accessToken();
+            clientTokenServices.saveAccessToken(resource, users[i], accessTokens[i]);
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (USER_COUNT - 1);
+        return next;
+    }
+
+    @Benchmark
+    public OAuth2AccessToken getAccessToken() {
+        return clientTokenServices.getAccessToken(resource, users[nextIndex()]);
+    }
+
+    @Benchmark
+    public void saveAccessToken() {
+        int i = nextIndex();
+        clientTokenServices.saveAccessToken(resource, users[i], accessTokens[i]);
+    }
+
+    /**
+     * The remove-then-save sequence issued by the partner token endpoint on every call.
+     */
+    @Benchmark
+    public void removeThenSaveAccessToken() {
+        int i = nextIndex();
+        clientTokenServices.removeAccessToken(resource, users[i]);
+        clientTokenServices.saveAccessToken(resource, users[i], accessTokens[i]);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.benchmark;
+
+import com.oauth.server.token.HashingAuthenticationKeyGenerator;
+import com.oauth.server.token.TokenKeyHasher;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.DefaultAuthenticationKeyGenerator;
+
+/**
+ * Benchmarks for the token key and authentication key hashing done on every token store call, comparing
+ * {@link TokenKeyHasher} against the per-call MessageDigest/BigInteger/String.format implementation it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenKeyBenchmark {
+
+    @Param({"MD5", "SHA_256"})
+    public TokenKeyHasher.Algorithm algorithm;
+
+    private TokenKeyHasher tokenKeyHasher;
+
+    private AuthenticationKeyGenerator authenticationKeyGenerator;
+
+    private AuthenticationKeyGenerator legacyAuthenticationKeyGenerator;
+
+    private String tokenValue;
+
+    private OAuth2Authentication authentication;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokenKeyHasher = new TokenKeyHasher(algorithm);
+        authenticationKeyGenerator = new HashingAuthenticationKeyGenerator(tokenKeyHasher);
+        legacyAuthenticationKeyGenerator = new DefaultAuthenticationKeyGenerator();
+        tokenValue = BenchmarkFixtures.accessToken().getValue();
+        authentication = BenchmarkFixtures.authentication("user");
+    }
+
+    @Benchmark
+    public String extractTokenKey() {
+        return tokenKeyHasher.hash(tokenValue);
+    }
+
+    @Benchmark
+    public String extractAuthenticationKey() {
+        return authenticationKeyGenerator.extractKey(authentication);
+    }
+
+    /**
+     * Baseline: the token DAOs' previous extractTokenKey (always MD5).
+     */
+    @Benchmark
+    public String legacyExtractTokenKey() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 algorithm not available.  Fatal (should be in the JDK).");
+        }
+
+        try {
+            byte[] bytes = digest.digest(tokenValue.getBytes("UTF-8"));
+            return String.format("%032x", new BigInteger(1, bytes));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 encoding not available.  Fatal (should be in the JDK).");
+        }
+    }
+
+    /**
+     * Baseline: Spring's DefaultAuthenticationKeyGenerator (always MD5).
+     */
+    @Benchmark
+    public String legacyExtractAuthenticationKey() {
+        return legacyAuthenticationKeyGenerator.extractKey(authentication);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.benchmark;
+
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.token.AuthenticatedTokenStore;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+/**
+ * Store/read/remove benchmarks for the {@link TokenStore} implementations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenStoreBenchmark {
+
+    private static final int TOKEN_COUNT = 1024;
+
+    @Param({"DYNAMODB", "MONGODB"})
+    public Backend backend;
+
+    private AuthenticatedTokenStore tokenStore;
+
+    private OAuth2AccessToken[] accessTokens;
+
+    private OAuth2Authentication[] authentications;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokenStore = backend.tokenStore();
+        accessTokens = new OAuth2AccessToken[TOKEN_COUNT];
+        authentications = new OAuth2Authentication[TOKEN_COUNT];
+
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            accessTokens[i] = BenchmarkFixtures.accessToken();
+            authentications[i] = BenchmarkFixtures.authentication("user" + i);
+            tokenStore.storeAccessToken(accessTokens[i], authentications[i]);
+            tokenStore.storeRefreshToken(accessTokens[i].getRefreshToken(), authentications[i]);
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (TOKEN_COUNT - 1);
+        return next;
+    }
+
+    @Benchmark
+    public void storeAccessToken() {
+        int i = nextIndex();
+        tokenStore.storeAccessToken(accessTokens[i], authentications[i]);
+    }
+
+    @Benchmark
+    public OAuth2AccessToken readAccessToken() {
+        return tokenStore.readAccessToken(accessTokens[nextIndex()].getValue());
+    }
+
+    @Benchmark
+    public OAuth2Authentication readAuthentication() {
+        return tokenStore.readAuthentication(accessTokens[nextIndex()].getValue());
+    }
+
+    /**
+     * The single read the resource server performs per bearer token, against {@link #readAccessToken()} followed by
+     * {@link #readAuthentication()}.
+     */
+    @Benchmark
+    public OAuthAccessToken readAccessTokenAndAuthentication() {
+        return tokenStore.readAccessTokenAndAuthentication(accessTokens[nextIndex()].getValue());
+    }
+
+    @Benchmark
+    public OAuth2AccessToken getAccessToken() {
+        return tokenStore.getAccessToken(authentications[nextIndex()]);
+    }
+
+    @Benchmark
+    public OAuth2RefreshToken readRefreshToken() {
+        return tokenStore.readRefreshToken(accessTokens[nextIndex()].getRefreshToken().getValue());
+    }
+
+    @Benchmark
+    public OAuth2Authentication readAuthenticationForRefreshToken() {
+        return tokenStore.readAuthenticationForRefreshToken(accessTokens[nextIndex()].getRefreshToken().getValue());
+    }
+
+    /**
+     * Removal is measured together with the store that restores the record, so every remove hits a live item.
+     */
+    @Benchmark
+    public void storeThenRemoveAccessToken() {
+        int i = nextIndex();
+        tokenStore.storeAccessToken(accessTokens[i], authentications[i]);
+        tokenStore.removeAccessToken(accessTokens[i]);
+    }
+
+    @Benchmark
+    public void storeThenRemoveRefreshToken() {
+        int i = nextIndex();
+        tokenStore.storeRefreshToken(accessTokens[i].getRefreshToken(), authentications[i]);
+        tokenStore.removeRefreshToken(accessTokens[i].getRefreshToken());
+    }
+
+    /**
+     * The store side of a refresh grant reusing the refresh token: one refresh record read, then the old access token
+     * replaced by a new one.
+     */
+    @Benchmark
+    public void refreshAccessToken() {
+        int i = nextIndex();
+        OAuth2RefreshToken refreshToken = tokenStore
+            .readRefreshTokenAndAuthentication(accessTokens[i].getRefreshToken().getValue())
+            .getToken();
+
+        DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(accessTokens[i]);
+        accessToken.setValue(UUID.randomUUID().toString());
+        tokenStore.refreshAccessToken(refreshToken, accessToken, authentications[i]);
+        accessTokens[i] = accessToken;
+    }
+}
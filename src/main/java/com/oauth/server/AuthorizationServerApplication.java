@@ -11,12 +11,14 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * This the entry point of the application.
  */
 @SpringBootApplication
 @Configuration
+@EnableScheduling
 public class AuthorizationServerApplication {
 
     @Autowired
@@ -10,20 +10,14 @@ import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
-import org.springframework.security.oauth2.client.token.AccessTokenRequest;
-import org.springframework.security.oauth2.client.token.DefaultAccessTokenRequest;
-import org.springframework.security.oauth2.client.token.grant.code.AuthorizationCodeAccessTokenProvider;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
 import org.springframework.security.oauth2.common.exceptions.InvalidClientException;
-import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.oauth.server.authentication.UserIDAuthenticationToken;
-import com.oauth.server.dao.MongoDBPartnerDetailsDAO;
-import com.oauth.server.dao.MongoDBPartnerTokenDAO;
-import com.oauth.server.dto.OAuthPartner;
+import com.oauth.server.partner.PartnerRegistry;
+import com.oauth.server.partner.PartnerTokenService;
 
 /**
  * Rest Controller for partner token endpoint.
@@ -38,10 +32,10 @@ import com.oauth.server.dto.OAuthPartner;
 public class PartnerTokenEndpoint {
 
     @Autowired
-    private MongoDBPartnerTokenDAO partnerTokenService;
+    private PartnerTokenService partnerTokenService;
 
     @Autowired
-    private MongoDBPartnerDetailsDAO partnerDetailsService;
+    private PartnerRegistry partnerRegistry;
 
     /**
      * Endpoint to retrieve a client token from ClientTokenService.
@@ -51,41 +45,12 @@ public class PartnerTokenEndpoint {
         final String userID = parameters.get("user_id");
         final String partnerId = parameters.get("partner_id");
 
-        OAuthPartner partner = partnerDetailsService.loadPartnerByPartnerId(partnerId);
+        OAuth2ProtectedResourceDetails resourceDetails = partnerRegistry.getResourceDetails(partnerId);
 
-        if (partner == null) {
+        if (resourceDetails == null) {
             throw new InvalidClientException("Invalid partner id: " + partnerId);
         }
 
-        OAuth2ProtectedResourceDetails resourceDetails = partner.toProtectedResourceDetails();
-
-        OAuth2AccessToken accessToken = partnerTokenService.getAccessToken(resourceDetails,
-            new UserIDAuthenticationToken(userID));
-
-        if (accessToken == null) {
-            throw new OAuth2Exception("No token found for user: " + userID);
-        } else {
-            accessToken = refreshClientToken(accessToken, resourceDetails);
-        }
-
-        partnerTokenService.removeAccessToken(resourceDetails, new UserIDAuthenticationToken(userID));
-        partnerTokenService.saveAccessToken(resourceDetails, new UserIDAuthenticationToken(userID), accessToken);
-
-        return accessToken;
-    }
-
-    /**
-     * Refresh a client access token.
-     */
-    private OAuth2AccessToken refreshClientToken(final OAuth2AccessToken accessToken,
-                                                 final OAuth2ProtectedResourceDetails resourceDetails) {
-        final AccessTokenRequest AccessTokenRequest = new DefaultAccessTokenRequest();
-
-        final AuthorizationCodeAccessTokenProvider tokenProvider = new AuthorizationCodeAccessTokenProvider();
-        tokenProvider.setStateMandatory(false);
-
-        return tokenProvider.refreshAccessToken(resourceDetails,
-            accessToken.getRefreshToken(), AccessTokenRequest);
+        return partnerTokenService.getAccessToken(partnerId, resourceDetails, userID);
     }
-
 }
@@ -12,9 +12,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
-import org.springframework.security.oauth2.client.token.AccessTokenRequest;
-import org.springframework.security.oauth2.client.token.DefaultAccessTokenRequest;
-import org.springframework.security.oauth2.client.token.grant.code.AuthorizationCodeAccessTokenProvider;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
 import org.springframework.security.oauth2.common.exceptions.UnsupportedGrantTypeException;
 import org.springframework.security.oauth2.provider.NoSuchClientException;
@@ -24,9 +21,9 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.oauth.server.dao.MongoDBPartnerDetailsDAO;
 import com.oauth.server.dao.MongoDBPartnerTokenDAO;
-import com.oauth.server.dto.OAuthPartner;
+import com.oauth.server.partner.PartnerRegistry;
+import com.oauth.server.partner.PartnerTokenClient;
 
 /**
  * Rest Controller for reciprocal authorization endpoint.
@@ -49,7 +46,10 @@ public class ReciprocalAuthorizationEndpoint {
     private MongoDBPartnerTokenDAO partnerTokenRepository;
 
     @Autowired
-    private MongoDBPartnerDetailsDAO partnerDetailsRepository;
+    private PartnerRegistry partnerRegistry;
+
+    @Autowired
+    private PartnerTokenClient partnerTokenClient;
 
     @RequestMapping(value = "/api/reciprocal/authorize", method = RequestMethod.POST)
     public void postReciprocalCode(final @RequestBody @RequestParam Map<String, String> parameters) {
@@ -64,33 +64,17 @@ public class ReciprocalAuthorizationEndpoint {
             throw new UnsupportedGrantTypeException("Only reciprocal_authorization_code is supported in this endpoint");
         }
 
-        OAuthPartner partner = partnerDetailsRepository.loadPartnerByPartnerId(partnerId);
+        OAuth2ProtectedResourceDetails resourceDetails = partnerRegistry.getResourceDetails(partnerId);
 
-        if (partner == null) {
+        if (resourceDetails == null) {
             throw new NoSuchClientException("Invalid partner id: " + partnerId);
         }
 
-        OAuth2ProtectedResourceDetails resourceDetails = partner.toProtectedResourceDetails();
-
-        AuthorizationCodeAccessTokenProvider tokenProvider = new AuthorizationCodeAccessTokenProvider();
-        tokenProvider.setStateMandatory(false);
-
-        OAuth2AccessToken accessToken = tokenProvider.obtainAccessToken(resourceDetails,
-            createAccessTokenRequest(authorizationCode));
-
-        partnerTokenRepository.saveAccessToken(resourceDetails, auth, accessToken);
-    }
+        OAuth2AccessToken accessToken = partnerTokenClient.obtainAccessToken(partnerId, resourceDetails,
+            authorizationCode);
+        long issuedAt = System.currentTimeMillis();
 
-    /**
-     * Method to construct AccessTokenRequest.
-     *
-     * @param authorizationCode authorization code.
-     * @return AccessTokenRequest.
-     */
-    private AccessTokenRequest createAccessTokenRequest(String authorizationCode) {
-        AccessTokenRequest accessTokenRequest = new DefaultAccessTokenRequest();
-        accessTokenRequest.setAuthorizationCode(authorizationCode);
-        return accessTokenRequest;
+        partnerTokenRepository.replaceAccessToken(resourceDetails, auth, accessToken, issuedAt);
     }
 
 }
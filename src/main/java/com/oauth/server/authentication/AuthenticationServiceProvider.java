@@ -5,27 +5,25 @@
  */
 package com.oauth.server.authentication;
 
-import com.google.common.collect.ImmutableList;
-import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
- * An customized AuthenticationProvider.
+ * An customized AuthenticationProvider, looking users up in a {@link UserDirectory}.
  *
  * <p>
- *     TODO: Replace the sample users in this class with the actual authentication server or user DB.
+ * Password checks go through the {@link PasswordEncoder} provided, which runs BCrypt off the request thread and skips
+ * it for recently verified passwords (see {@link CachingPasswordEncoder}).
  * </p>
  *
  * @author Lucun Cai
@@ -34,13 +32,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class AuthenticationServiceProvider implements AuthenticationProvider, AuthenticationManager,
     UserDetailsService {
 
-    private static final List<User> mockUsers = ImmutableList.of(
-        new User("user", "$2a$10$tNrknh3ZtTQ4IWq.P1KSaOwIar7ToOM1TjQTmuxGIIjYCJvy.55uS",
-            ImmutableList.of()),
-        new User("user2", "$2a$10$tNrknh3ZtTQ4IWq.P1KSaOwIar7ToOM1TjQTmuxGIIjYCJvy.55uS",
-            ImmutableList.of()),
-        new User("admin", "$2a$10$tNrknh3ZtTQ4IWq.P1KSaOwIar7ToOM1TjQTmuxGIIjYCJvy.55uS",
-            ImmutableList.of(new SimpleGrantedAuthority(RoleEnum.ROLE_USER_ADMIN.name()))));
+    private final UserDirectory userDirectory;
 
     private final PasswordEncoder passwordEncoder;
 
@@ -50,6 +42,9 @@ public class AuthenticationServiceProvider implements AuthenticationProvider, Au
         String password = authentication.getCredentials().toString();
 
         UserDetails user = loadUserByUsername(username);
+        if (!user.isEnabled()) {
+            throw new DisabledException("User " + username + " is disabled");
+        }
         if (passwordEncoder.matches(password, user.getPassword())) {
             return new UsernamePasswordAuthenticationToken(user, user.getPassword(), user.getAuthorities());
         } else {
@@ -59,13 +54,11 @@ public class AuthenticationServiceProvider implements AuthenticationProvider, Au
 
     @Override
     public UserDetails loadUserByUsername(final String username) throws UsernameNotFoundException {
-
-        //TODO: Integrate with your authentication system in replace the mock users.
-        return mockUsers.stream()
-            .filter(u -> u.getUsername().equals(username))
-            .findAny()
-            .map(u -> new User(u.getUsername(), u.getPassword(), u.getAuthorities()))
-            .orElseThrow(() -> new UsernameNotFoundException("User " + username + " cannot be found"));
+        UserDetails user = userDirectory.findByUsername(username);
+        if (user == null) {
+            throw new UsernameNotFoundException("User " + username + " cannot be found");
+        }
+        return user;
     }
 
     @Override
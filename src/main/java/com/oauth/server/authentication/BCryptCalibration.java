@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.authentication;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Picks a BCrypt cost for the current hardware.
+ */
+@Log4j2
+public final class BCryptCalibration {
+
+    /**
+     * Highest cost accepted by {@link BCrypt}.
+     */
+    private static final int MAXIMUM_STRENGTH = 31;
+
+    private static final String SAMPLE_PASSWORD = "bcrypt-calibration";
+
+    private BCryptCalibration() {
+    }
+
+    /**
+     * Find the highest BCrypt cost whose verification takes at most the target time on this machine, but never lower
+     * than the minimum strength. Each cost doubles the time of the previous one, so costs are tried upwards until the
+     * target is exceeded.
+     *
+     * @param minimumStrength lowest cost returned.
+     * @param targetTime target verification time.
+     * @return BCrypt cost.
+     */
+    public static int calibrate(int minimumStrength, Duration targetTime) {
+        long targetNanos = targetTime.toNanos();
+
+        // Warm up so the measurements are not slowed down by class loading and compilation.
+        verificationNanos(minimumStrength);
+
+        int strength = minimumStrength;
+        long nanos = verificationNanos(strength);
+        while (strength < MAXIMUM_STRENGTH) {
+            long nextNanos = verificationNanos(strength + 1);
+            if (nextNanos > targetNanos) {
+                break;
+            }
+            strength++;
+            nanos = nextNanos;
+        }
+
+        log.info("Calibrated BCrypt cost {}: verification takes {} ms for a target of {} ms.", strength,
+            TimeUnit.NANOSECONDS.toMillis(nanos), targetTime.toMillis());
+        return strength;
+    }
+
+    private static long verificationNanos(int strength) {
+        String hash = BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(strength));
+        long start = System.nanoTime();
+        BCrypt.checkpw(SAMPLE_PASSWORD, hash);
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.authentication;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.NonNull;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * A {@link PasswordEncoder} decorator remembering recently verified passwords, so a client presenting the same secret
+ * again skips the slow hash comparison (e.g. BCrypt).
+ *
+ * <p>
+ * Only successful matches are remembered, keyed by an HMAC of the stored hash and the presented password under a key
+ * generated at startup; neither the password nor a reusable hash of it is kept in memory. As the stored hash is salted
+ * per client, the key also identifies the client, and a changed secret never matches an entry of the old one. Entries
+ * expire after their time to live.
+ * </p>
+ *
+ * <p>
+ * Comparisons that miss the cache run on a bounded pool of verification threads, so a burst of authentications cannot
+ * take all request threads' CPU; when the pool and its queue are full, authentication fails fast. Hit, miss and
+ * eviction counts are published as {@code cache.*} meters under the {@code passwordEncoder} cache name.
+ * </p>
+ */
+public class CachingPasswordEncoder implements PasswordEncoder, MeterBinder, AutoCloseable {
+
+    private static final String CACHE_NAME = "passwordEncoder";
+
+    private static final int KEY_LENGTH = 32;
+
+    private final PasswordEncoder delegate;
+
+    private final HashFunction keyedHash;
+
+    private final Cache<String, Boolean> verifiedPasswords;
+
+    private final ThreadPoolExecutor verificationExecutor;
+
+    public CachingPasswordEncoder(@NonNull PasswordEncoder delegate, long maximumSize, @NonNull Duration timeToLive,
+                                  int verificationThreads, int verificationQueueSize) {
+        byte[] key = new byte[KEY_LENGTH];
+        new SecureRandom().nextBytes(key);
+
+        this.delegate = delegate;
+        this.keyedHash = Hashing.hmacSha256(key);
+        this.verifiedPasswords = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive.toMillis(), TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+        this.verificationExecutor = new ThreadPoolExecutor(verificationThreads, verificationThreads,
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(verificationQueueSize),
+            new ThreadFactoryBuilder().setNameFormat("password-verification-%d").setDaemon(true).build());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null || encodedPassword.isEmpty()) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+
+        String key = keyOf(rawPassword, encodedPassword);
+        if (verifiedPasswords.getIfPresent(key) != null) {
+            return true;
+        }
+
+        boolean matches = verify(rawPassword, encodedPassword);
+        if (matches) {
+            verifiedPasswords.put(key, Boolean.TRUE);
+        }
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Cache statistics: hits, misses and evictions.
+     *
+     * @return a snapshot of the cache statistics.
+     */
+    public CacheStats stats() {
+        return verifiedPasswords.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        GuavaCacheMetrics.monitor(registry, verifiedPasswords, CACHE_NAME);
+    }
+
+    @Override
+    public void close() {
+        verificationExecutor.shutdownNow();
+    }
+
+    private boolean verify(CharSequence rawPassword, String encodedPassword) {
+        Future<Boolean> verification;
+        try {
+            verification = verificationExecutor.submit(() -> delegate.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            throw new AuthenticationServiceException("Too many password verifications in progress.", e);
+        }
+
+        try {
+            return verification.get();
+        } catch (InterruptedException e) {
+            verification.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted while verifying a password.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new AuthenticationServiceException("Unable to verify a password.", e.getCause());
+        }
+    }
+
+    private String keyOf(CharSequence rawPassword, String encodedPassword) {
+        return keyedHash.newHasher()
+            .putString(encodedPassword, StandardCharsets.UTF_8)
+            .putByte((byte) 0)
+            .putString(rawPassword, StandardCharsets.UTF_8)
+            .hash()
+            .toString();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.authentication;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import lombok.NonNull;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * A {@link UserDirectory} decorator keeping recently found users in a bounded in-process cache.
+ *
+ * <p>
+ * Changes made to a user in the underlying directory are picked up once the entry reaches its time to live, so the
+ * time to live bounds how long a changed password or disabled account can still be used. Users not found are not
+ * cached. Hit, miss and eviction counts are published as {@code cache.*} meters under the {@code userDirectory} cache
+ * name.
+ * </p>
+ */
+public class CachingUserDirectory implements UserDirectory, MeterBinder {
+
+    private static final String CACHE_NAME = "userDirectory";
+
+    private final UserDirectory delegate;
+
+    private final Cache<String, UserDetails> users;
+
+    public CachingUserDirectory(@NonNull UserDirectory delegate, long maximumSize, @NonNull Duration timeToLive) {
+        this.delegate = delegate;
+        this.users = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive.toMillis(), TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+    }
+
+    @Override
+    public UserDetails findByUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+
+        UserDetails user = users.getIfPresent(username);
+        if (user == null) {
+            user = delegate.findByUsername(username);
+            if (user != null) {
+                users.put(username, user);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Evict a user on this node, e.g. after changing it.
+     *
+     * @param username username.
+     */
+    public void invalidate(@NonNull String username) {
+        users.invalidate(username);
+    }
+
+    /**
+     * Cache statistics: hits, misses and evictions.
+     *
+     * @return a snapshot of the cache statistics.
+     */
+    public CacheStats stats() {
+        return users.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        GuavaCacheMetrics.monitor(registry, users, CACHE_NAME);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.authentication;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Collection;
+import lombok.NonNull;
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * {@link UserDetails} that can be cached and shared: unlike {@link org.springframework.security.core.userdetails.User},
+ * its password is not erased after authentication.
+ */
+@Value
+public class ImmutableUserDetails implements UserDetails {
+
+    private static final long serialVersionUID = 1L;
+
+    String username;
+
+    String password;
+
+    ImmutableList<GrantedAuthority> authorities;
+
+    boolean enabled;
+
+    public ImmutableUserDetails(@NonNull String username, String password,
+                                Collection<? extends GrantedAuthority> authorities, boolean enabled) {
+        this.username = username;
+        this.password = password;
+        this.authorities = authorities != null ? ImmutableList.copyOf(authorities) : ImmutableList.of();
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+}
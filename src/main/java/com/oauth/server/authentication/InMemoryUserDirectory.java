@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.authentication;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * {@link UserDirectory} of the sample users, kept in memory.
+ *
+ * <p>
+ *     TODO: Replace the sample users with the actual authentication server or user DB.
+ * </p>
+ */
+public class InMemoryUserDirectory implements UserDirectory {
+
+    private static final Map<String, UserDetails> SAMPLE_USERS = ImmutableList.<UserDetails>of(
+        new ImmutableUserDetails("user", "$2a$10$tNrknh3ZtTQ4IWq.P1KSaOwIar7ToOM1TjQTmuxGIIjYCJvy.55uS",
+            ImmutableList.of(), true),
+        new ImmutableUserDetails("user2", "$2a$10$tNrknh3ZtTQ4IWq.P1KSaOwIar7ToOM1TjQTmuxGIIjYCJvy.55uS",
+            ImmutableList.of(), true),
+        new ImmutableUserDetails("admin", "$2a$10$tNrknh3ZtTQ4IWq.P1KSaOwIar7ToOM1TjQTmuxGIIjYCJvy.55uS",
+            ImmutableList.of(new SimpleGrantedAuthority(RoleEnum.ROLE_USER_ADMIN.name())), true))
+        .stream()
+        .collect(ImmutableMap.toImmutableMap(UserDetails::getUsername, Function.identity()));
+
+    @Override
+    public UserDetails findByUsername(String username) {
+        return username != null ? SAMPLE_USERS.get(username) : null;
+    }
+}
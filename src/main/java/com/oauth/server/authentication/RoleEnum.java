@@ -12,5 +12,6 @@ package com.oauth.server.authentication;
  */
 public enum RoleEnum {
     ROLE_USER_ADMIN, //A role for administrators to manage clients and partners.
-    ROLE_CLIENT_ADMIN //A role for an internal administration OAuth client.
+    ROLE_CLIENT_ADMIN, //A role for an internal administration OAuth client.
+    ROLE_RESOURCE_SERVER //A role for OAuth clients of resource servers allowed to introspect tokens.
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.authentication;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Directory of the users signing in, looked up by {@link AuthenticationServiceProvider}.
+ *
+ * <p>
+ * Implementations return immutable {@link UserDetails}: they may be cached and shared, so they must not implement
+ * {@link org.springframework.security.core.CredentialsContainer}, whose credentials are erased after authentication.
+ * </p>
+ */
+public interface UserDirectory {
+
+    /**
+     * Available directories.
+     */
+    enum Type {
+        IN_MEMORY, MONGODB
+    }
+
+    /**
+     * Find a user by username.
+     *
+     * @param username username.
+     * @return the user, or null if not found.
+     */
+    UserDetails findByUsername(String username);
+}
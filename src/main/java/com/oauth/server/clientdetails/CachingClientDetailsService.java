@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.clientdetails;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.oauth.server.dto.OAuthClientDetails;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.provider.ClientAlreadyExistsException;
+import org.springframework.security.oauth2.provider.ClientDetails;
+import org.springframework.security.oauth2.provider.ClientDetailsService;
+import org.springframework.security.oauth2.provider.ClientRegistrationException;
+import org.springframework.security.oauth2.provider.ClientRegistrationService;
+import org.springframework.security.oauth2.provider.NoSuchClientException;
+
+/**
+ * A near cache of {@link ImmutableClientDetails} in front of a {@link VersionedClientDetailsService}, so the several
+ * client lookups of a token request neither reach the database nor parse the client record again.
+ *
+ * <p>
+ * Writes through this service evict the client on this node right away. Every
+ * {@code oauth.client-details.cache.refresh-seconds}, the versions of the clients written since the previous poll are
+ * read and cached clients whose version changed are evicted, which picks up writes made on other nodes. Clients
+ * written just before the previous poll are read again, in case their write was still in flight then. When those
+ * clients do not account for every version handed out since the previous poll, as after a removal, the versions of
+ * all clients are read and cached clients no longer stored are evicted as well. Entries also expire after their time
+ * to live, bounding staleness should polling fail.
+ * </p>
+ *
+ * <p>
+ * Hit, miss and eviction counts are published as {@code cache.*} meters under the {@code clientDetails} cache name.
+ * </p>
+ */
+@Log4j2
+public class CachingClientDetailsService implements ClientDetailsService, ClientRegistrationService, MeterBinder {
+
+    private static final String CACHE_NAME = "clientDetails";
+
+    private final VersionedClientDetailsService delegate;
+
+    private final Cache<String, ImmutableClientDetails> clients;
+
+    /**
+     * Latest version read by the last poll.
+     */
+    private long lastVersion;
+
+    /**
+     * Latest version read by the poll before, after which client versions are read again.
+     */
+    private long previousVersion;
+
+    public CachingClientDetailsService(@NonNull VersionedClientDetailsService delegate, long maximumSize,
+                                       @NonNull Duration timeToLive) {
+        this.delegate = delegate;
+        this.clients = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive.toMillis(), TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Cache statistics: hits, misses and evictions.
+     *
+     * @return a snapshot of the cache statistics.
+     */
+    public CacheStats stats() {
+        return clients.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        GuavaCacheMetrics.monitor(registry, clients, CACHE_NAME);
+    }
+
+    @Override
+    public ClientDetails loadClientByClientId(String clientId) throws ClientRegistrationException {
+        try {
+            return clients.get(clientId, () -> {
+                OAuthClientDetails oauthClientDetails = delegate.loadOAuthClientDetails(clientId);
+                if (oauthClientDetails == null) {
+                    throw new NoSuchClientException("Client: " + clientId + " not found.");
+                }
+                return ImmutableClientDetails.of(oauthClientDetails);
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ClientRegistrationException("Unable to load client: " + clientId, e.getCause());
+        }
+    }
+
+    @Override
+    public void addClientDetails(ClientDetails clientDetails) throws ClientAlreadyExistsException {
+        try {
+            delegate.addClientDetails(clientDetails);
+        } finally {
+            clients.invalidate(clientDetails.getClientId());
+        }
+    }
+
+    @Override
+    public void updateClientDetails(ClientDetails clientDetails) throws NoSuchClientException {
+        try {
+            delegate.updateClientDetails(clientDetails);
+        } finally {
+            clients.invalidate(clientDetails.getClientId());
+        }
+    }
+
+    /**
+     * Add or update a client details.
+     *
+     * @param clientDetails client details.
+     */
+    public void addOrUpdateClientDetails(ClientDetails clientDetails) {
+        try {
+            delegate.addOrUpdateClientDetails(clientDetails);
+        } finally {
+            clients.invalidate(clientDetails.getClientId());
+        }
+    }
+
+    @Override
+    public void updateClientSecret(String clientId, String secret) throws NoSuchClientException {
+        try {
+            delegate.updateClientSecret(clientId, secret);
+        } finally {
+            clients.invalidate(clientId);
+        }
+    }
+
+    @Override
+    public void removeClientDetails(String clientId) throws NoSuchClientException {
+        try {
+            delegate.removeClientDetails(clientId);
+        } finally {
+            clients.invalidate(clientId);
+        }
+    }
+
+    @Override
+    public List<ClientDetails> listClientDetails() {
+        return delegate.listClientDetails();
+    }
+
+    /**
+     * Evict the cached clients changed or removed since they were cached, on any node. Failures only log; entries then
+     * live until their time to live.
+     */
+    @Scheduled(fixedDelayString = "PT${oauth.client-details.cache.refresh-seconds:10}S")
+    public synchronized void evictChangedClients() {
+        try {
+            long latestVersion = delegate.loadLatestVersion();
+            if (clients.size() > 0) {
+                Map<String, Long> versions = delegate.loadClientVersionsSince(previousVersion);
+                evictChangedClients(versions, false);
+
+                long newVersions = versions.values().stream()
+                    .filter(version -> version > lastVersion && version <= latestVersion)
+                    .count();
+                if (newVersions < latestVersion - lastVersion) {
+                    evictChangedClients(delegate.loadClientVersions(), true);
+                }
+            }
+            previousVersion = lastVersion;
+            lastVersion = latestVersion;
+        } catch (RuntimeException e) {
+            log.warn("Unable to check client versions.", e);
+        }
+    }
+
+    private void evictChangedClients(Map<String, Long> versions, boolean allClients) {
+        clients.asMap().forEach((clientId, clientDetails) -> {
+            boolean changed = versions.containsKey(clientId)
+                ? !Objects.equals(versions.get(clientId), clientDetails.getVersion())
+                : allClients;
+            if (changed) {
+                clients.asMap().remove(clientId, clientDetails);
+            }
+        });
+    }
+}
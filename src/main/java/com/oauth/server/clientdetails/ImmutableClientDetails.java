@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.clientdetails;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.oauth.server.dto.OAuthClientDetails;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import lombok.Getter;
+import lombok.NonNull;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.provider.ClientDetails;
+import org.springframework.security.oauth2.provider.client.BaseClientDetails;
+
+/**
+ * {@link ClientDetails} parsed once from a client record and shared by all requests, along with the version of the
+ * record it was parsed from.
+ */
+@Getter
+public final class ImmutableClientDetails implements ClientDetails {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String clientId;
+
+    private final Set<String> resourceIds;
+
+    private final String clientSecret;
+
+    private final Set<String> scope;
+
+    private final Set<String> authorizedGrantTypes;
+
+    private final Set<String> registeredRedirectUri;
+
+    private final Collection<GrantedAuthority> authorities;
+
+    private final Integer accessTokenValiditySeconds;
+
+    private final Integer refreshTokenValiditySeconds;
+
+    private final Set<String> autoApproveScopes;
+
+    private final Map<String, Object> additionalInformation;
+
+    private final Long version;
+
+    private ImmutableClientDetails(BaseClientDetails clientDetails, Long version) {
+        this.clientId = clientDetails.getClientId();
+        this.resourceIds = ImmutableSet.copyOf(clientDetails.getResourceIds());
+        this.clientSecret = clientDetails.getClientSecret();
+        this.scope = ImmutableSet.copyOf(clientDetails.getScope());
+        this.authorizedGrantTypes = ImmutableSet.copyOf(clientDetails.getAuthorizedGrantTypes());
+        this.registeredRedirectUri = copyOf(clientDetails.getRegisteredRedirectUri());
+        this.authorities = ImmutableList.copyOf(clientDetails.getAuthorities());
+        this.accessTokenValiditySeconds = clientDetails.getAccessTokenValiditySeconds();
+        this.refreshTokenValiditySeconds = clientDetails.getRefreshTokenValiditySeconds();
+        this.autoApproveScopes = copyOf(clientDetails.getAutoApproveScopes());
+        this.additionalInformation = clientDetails.getAdditionalInformation().entrySet().stream()
+            .filter(entry -> entry.getKey() != null && entry.getValue() != null)
+            .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue));
+        this.version = version;
+    }
+
+    /**
+     * Parse a client record.
+     *
+     * @param oauthClientDetails client record.
+     * @return client details.
+     */
+    public static ImmutableClientDetails of(@NonNull OAuthClientDetails oauthClientDetails) {
+        return new ImmutableClientDetails((BaseClientDetails) oauthClientDetails.toClientDetails(),
+            oauthClientDetails.getVersion());
+    }
+
+    @Override
+    public boolean isSecretRequired() {
+        return clientSecret != null;
+    }
+
+    @Override
+    public boolean isScoped() {
+        return !scope.isEmpty();
+    }
+
+    /**
+     * Same rule as {@link BaseClientDetails#isAutoApprove(String)}: "true" approves every scope, other entries are
+     * patterns.
+     */
+    @Override
+    public boolean isAutoApprove(String scope) {
+        for (String autoApproveScope : autoApproveScopes) {
+            if ("true".equals(autoApproveScope) || scope.matches(autoApproveScope)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> copyOf(Set<String> values) {
+        return values != null ? ImmutableSet.copyOf(values) : ImmutableSet.of();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.clientdetails;
+
+import com.oauth.server.dto.CursorPage;
+import com.oauth.server.dto.OAuthClientDetails;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.springframework.security.oauth2.provider.ClientDetails;
+import org.springframework.security.oauth2.provider.ClientDetailsService;
+import org.springframework.security.oauth2.provider.ClientRegistrationService;
+
+/**
+ * Client details storage stamping a new version on every client it writes, so caches can tell which clients changed.
+ * Versions come from a counter, also advanced after every removal, so they are unique and increasing.
+ */
+public interface VersionedClientDetailsService extends ClientDetailsService, ClientRegistrationService {
+
+    /**
+     * Load the stored record of a client.
+     *
+     * @param clientId client id.
+     * @return the client record, or null if not found.
+     */
+    OAuthClientDetails loadOAuthClientDetails(String clientId);
+
+    /**
+     * Add or update a client details.
+     *
+     * @param clientDetails client details.
+     */
+    void addOrUpdateClientDetails(ClientDetails clientDetails);
+
+    /**
+     * Current version of every client, reading only the client ids and versions.
+     *
+     * @return versions keyed by client id; the version is null for clients not written since versions exist.
+     */
+    Map<String, Long> loadClientVersions();
+
+    /**
+     * Latest version handed out by the counter.
+     *
+     * @return the latest version, or 0 if none was handed out yet.
+     */
+    long loadLatestVersion();
+
+    /**
+     * Current version of the clients written after a version, reading only the client ids and versions. Removed
+     * clients are not listed; their removal only advances the counter.
+     *
+     * @param version version the clients were written after.
+     * @return versions keyed by client id.
+     */
+    Map<String, Long> loadClientVersionsSince(long version);
+
+    /**
+     * List one page of clients.
+     *
+     * @param cursor cursor returned with the previous page, or null for the first page.
+     * @param pageSize maximum number of clients in the page.
+     * @return a page of client details.
+     */
+    CursorPage<ClientDetails> listClientDetails(String cursor, int pageSize);
+
+    /**
+     * Visit every client, reading them a page at a time rather than holding them all in memory.
+     *
+     * @param action action run for each client.
+     */
+    void forEachClientDetails(Consumer<ClientDetails> action);
+}
@@ -5,30 +5,61 @@
  */
 package com.oauth.server.configuration;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.oauth.server.clientdetails.CachingClientDetailsService;
 import com.oauth.server.dao.DynamoDBClientDetailsDAO;
 import com.oauth.server.dao.DynamoDBPartnerTokenDAO;
+import com.oauth.server.dao.DynamoDBRevocationLogDAO;
+import com.oauth.server.dao.DynamoDBRevokedTokenDAO;
 import com.oauth.server.dao.DynamoDBTokenDAO;
+import com.oauth.server.dao.DynamoDBTokenEnumerationDAO;
+import com.oauth.server.dao.DynamoDBTokenRevocationDAO;
 import com.oauth.server.authentication.AuthenticationServiceProvider;
+import com.oauth.server.authentication.BCryptCalibration;
+import com.oauth.server.authentication.CachingPasswordEncoder;
+import com.oauth.server.authentication.CachingUserDirectory;
+import com.oauth.server.authentication.InMemoryUserDirectory;
+import com.oauth.server.authentication.UserDirectory;
+import com.oauth.server.dao.DynamoDBApprovalDAO;
 import com.oauth.server.dao.DynamoDBAuthorizationCodeDAO;
 import com.oauth.server.dao.DynamoDBPartnerDetailsDAO;
+import com.oauth.server.dao.MongoDBUserDAO;
+import com.oauth.server.token.AccessTokenFormat;
+import com.oauth.server.token.AuthenticatedTokenServices;
+import com.oauth.server.token.AuthenticatedTokenStore;
+import com.oauth.server.token.CachingTokenStore;
+import com.oauth.server.token.JwtAccessTokenStore;
+import com.oauth.server.token.PartnerTokenStore;
+import com.oauth.server.token.RevocationLog;
+import com.oauth.server.token.RevocationLoggingTokenStore;
+import com.oauth.server.token.RevokedTokenDenylist;
+import com.oauth.server.token.SignedTokenConverter;
+import com.oauth.server.token.TokenEnumerationStore;
+import com.oauth.server.token.TokenIntrospectionService;
+import com.oauth.server.token.TokenKeyHasher;
+import com.oauth.server.token.TokenRevocationStore;
+import com.oauth.server.token.UserApprovalStore;
+import java.time.Duration;
+import java.util.Collections;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
 import org.springframework.context.annotation.ScopedProxyMode;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.core.userdetails.UserDetailsByNameServiceWrapper;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.oauth2.client.token.ClientTokenServices;
 import org.springframework.security.oauth2.config.annotation.configurers.ClientDetailsServiceConfigurer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.AuthorizationServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableAuthorizationServer;
 import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerEndpointsConfigurer;
 import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerSecurityConfigurer;
-import org.springframework.security.oauth2.provider.approval.ApprovalStore;
-import org.springframework.security.oauth2.provider.approval.TokenApprovalStore;
 import org.springframework.security.oauth2.provider.code.AuthorizationCodeServices;
 import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationProvider;
 
 /**
  * Configuration for authorization server.
@@ -39,63 +70,259 @@ import org.springframework.security.oauth2.provider.token.TokenStore;
 @EnableAuthorizationServer
 public class AuthorizationServerConfiguration extends AuthorizationServerConfigurerAdapter {
 
+    @Autowired
+    private DynamoDBMapper dynamoDBMapper;
+
+    @Autowired
+    private AmazonDynamoDB amazonDynamoDB;
+
+    @Autowired
+    private MongoDBUserDAO mongoDBUserDAO;
+
+    @Value("${oauth.token-key.algorithm:MD5}")
+    private TokenKeyHasher.Algorithm tokenKeyAlgorithm;
+
+    @Value("${oauth.token-store.cache.maximum-size:100000}")
+    private long tokenCacheMaximumSize;
+
+    @Value("${oauth.token-store.cache.time-to-live-seconds:60}")
+    private long tokenCacheTimeToLiveSeconds;
+
+    @Value("${oauth.authorization-code.validity-seconds:600}")
+    private int authorizationCodeValiditySeconds;
+
+    @Value("${oauth.password-encoder.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${oauth.password-encoder.bcrypt.calibrate:false}")
+    private boolean bcryptCalibrate;
+
+    @Value("${oauth.password-encoder.bcrypt.target-millis:50}")
+    private long bcryptTargetMillis;
+
+    @Value("${oauth.password-encoder.cache.maximum-size:10000}")
+    private long passwordCacheMaximumSize;
+
+    @Value("${oauth.password-encoder.cache.time-to-live-seconds:300}")
+    private long passwordCacheTimeToLiveSeconds;
+
+    @Value("${oauth.password-encoder.verification-threads:4}")
+    private int passwordVerificationThreads;
+
+    @Value("${oauth.password-encoder.verification-queue-size:64}")
+    private int passwordVerificationQueueSize;
+
+    @Value("${oauth.user-directory.type:IN_MEMORY}")
+    private UserDirectory.Type userDirectoryType;
+
+    @Value("${oauth.user-directory.cache.maximum-size:100000}")
+    private long userCacheMaximumSize;
+
+    @Value("${oauth.user-directory.cache.time-to-live-seconds:60}")
+    private long userCacheTimeToLiveSeconds;
+
+    @Value("${oauth.client-details.cache.maximum-size:10000}")
+    private long clientDetailsCacheMaximumSize;
+
+    @Value("${oauth.client-details.cache.time-to-live-seconds:300}")
+    private long clientDetailsCacheTimeToLiveSeconds;
+
+    @Value("${oauth.dynamodb.scan-segments:4}")
+    private int dynamoDBScanSegments;
+
+    @Value("${oauth.partner-token.legacy-lookup.enabled:true}")
+    private boolean partnerTokenLegacyLookupEnabled;
+
+    @Value("${oauth.access-token.format:OPAQUE}")
+    private AccessTokenFormat accessTokenFormat;
+
+    @Value("${oauth.access-token.jwt.signing-key:}")
+    private String accessTokenSigningKey;
+
+    @Value("${oauth.access-token.jwt.verifier-key:}")
+    private String accessTokenVerifierKey;
+
+    @Value("${oauth.revocation-log.retention-seconds:86400}")
+    private long revocationLogRetentionSeconds;
+
+    @Value("${oauth.revocation-log.gap-timeout-seconds:5}")
+    private long revocationLogGapTimeoutSeconds;
+
+    @Value("${oauth.revocation-log.buffer-size:10000}")
+    private int revocationLogBufferSize;
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public TokenKeyHasher tokenKeyHasher() {
+        return new TokenKeyHasher(tokenKeyAlgorithm);
     }
 
-    @Autowired
-    private DynamoDBMapper dynamoDBMapper;
+    /**
+     * BCrypt password encoder remembering recently verified secrets. With calibration on, new hashes use the highest
+     * cost meeting the target verification time on this machine, but no less than the configured strength; existing
+     * hashes keep their own cost.
+     */
+    @Bean
+    public CachingPasswordEncoder passwordEncoder() {
+        int strength = bcryptCalibrate
+            ? BCryptCalibration.calibrate(bcryptStrength, Duration.ofMillis(bcryptTargetMillis))
+            : bcryptStrength;
+        return new CachingPasswordEncoder(new BCryptPasswordEncoder(strength), passwordCacheMaximumSize,
+            Duration.ofSeconds(passwordCacheTimeToLiveSeconds), passwordVerificationThreads,
+            passwordVerificationQueueSize);
+    }
+
+    @Bean
+    public CachingUserDirectory userDirectory() {
+        UserDirectory userDirectory = userDirectoryType == UserDirectory.Type.MONGODB
+            ? mongoDBUserDAO
+            : new InMemoryUserDirectory();
+        return new CachingUserDirectory(userDirectory, userCacheMaximumSize,
+            Duration.ofSeconds(userCacheTimeToLiveSeconds));
+    }
 
     @Bean
     public AuthenticationServiceProvider authenticationServiceProvider() {
-        return new AuthenticationServiceProvider(passwordEncoder());
+        return new AuthenticationServiceProvider(userDirectory(), passwordEncoder());
     }
 
     @Bean
     @Scope(proxyMode = ScopedProxyMode.INTERFACES)
-    public ClientTokenServices clientTokenServices() {
-        return new DynamoDBPartnerTokenDAO(dynamoDBMapper);
+    public PartnerTokenStore clientTokenServices() {
+        DynamoDBPartnerTokenDAO clientTokenServices = new DynamoDBPartnerTokenDAO(dynamoDBMapper, tokenKeyHasher());
+        clientTokenServices.setLegacyLookupEnabled(partnerTokenLegacyLookupEnabled);
+        return clientTokenServices;
+    }
+
+    @Bean
+    public CachingTokenStore cachingTokenStore() {
+        return new CachingTokenStore(new DynamoDBTokenDAO(dynamoDBMapper, tokenKeyHasher()), tokenKeyHasher(),
+            tokenCacheMaximumSize, Duration.ofSeconds(tokenCacheTimeToLiveSeconds));
+    }
+
+    /**
+     * Signs access tokens with an HMAC secret, or with an RSA private key when a PEM verifier key is also set.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "oauth.access-token.format", havingValue = "JWT")
+    public SignedTokenConverter accessTokenConverter() {
+        if (accessTokenSigningKey.isEmpty()) {
+            throw new IllegalStateException("oauth.access-token.jwt.signing-key is required for JWT access tokens.");
+        }
+
+        SignedTokenConverter accessTokenConverter = new SignedTokenConverter();
+        accessTokenConverter.setSigningKey(accessTokenSigningKey);
+        if (!accessTokenVerifierKey.isEmpty()) {
+            accessTokenConverter.setVerifierKey(accessTokenVerifierKey);
+        }
+        return accessTokenConverter;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "oauth.access-token.format", havingValue = "JWT")
+    public RevokedTokenDenylist revokedTokenDenylist() {
+        return new RevokedTokenDenylist(new DynamoDBRevokedTokenDAO(dynamoDBMapper));
+    }
+
+    @Bean
+    public RevocationLog revocationLog() {
+        return new RevocationLog(new DynamoDBRevocationLogDAO(dynamoDBMapper, amazonDynamoDB),
+            Duration.ofSeconds(revocationLogRetentionSeconds), Duration.ofSeconds(revocationLogGapTimeoutSeconds),
+            revocationLogBufferSize);
+    }
+
+    /**
+     * Store behind the token services: stored opaque access tokens, or signed access tokens next to stored refresh
+     * tokens. Tokens removed before their expiration are written to the revocation log.
+     */
+    @Bean
+    public AuthenticatedTokenStore authenticatedTokenStore() {
+        AuthenticatedTokenStore tokenStore = accessTokenFormat == AccessTokenFormat.JWT
+            ? new JwtAccessTokenStore(cachingTokenStore(), accessTokenConverter(), revokedTokenDenylist())
+            : cachingTokenStore();
+        return new RevocationLoggingTokenStore(tokenStore, revocationLog(), tokenKeyHasher());
     }
 
     @Bean
     @Scope(proxyMode = ScopedProxyMode.INTERFACES)
     public TokenStore tokenStore() {
-        return new DynamoDBTokenDAO(dynamoDBMapper);
+        return authenticatedTokenStore();
+    }
+
+    /**
+     * Token services for both the token endpoint and the resource server, set up as the endpoints configurer would set
+     * up its default token services.
+     */
+    @Bean
+    public AuthenticatedTokenServices tokenServices() {
+        PreAuthenticatedAuthenticationProvider provider = new PreAuthenticatedAuthenticationProvider();
+        provider.setPreAuthenticatedUserDetailsService(
+            new UserDetailsByNameServiceWrapper<>(authenticationServiceProvider()));
+
+        AuthenticatedTokenServices tokenServices = new AuthenticatedTokenServices(authenticatedTokenStore());
+        if (accessTokenFormat == AccessTokenFormat.JWT) {
+            tokenServices.setTokenEnhancer(accessTokenConverter());
+        }
+        tokenServices.setSupportRefreshToken(true);
+        tokenServices.setReuseRefreshToken(true);
+        tokenServices.setClientDetailsService(clientDetailsService());
+        tokenServices.setAuthenticationManager(new ProviderManager(Collections.singletonList(provider)));
+        return tokenServices;
+    }
+
+    @Bean
+    public TokenIntrospectionService tokenIntrospectionService() {
+        return new TokenIntrospectionService(authenticatedTokenStore(), clientDetailsService());
     }
 
     @Bean
     @Scope(proxyMode = ScopedProxyMode.INTERFACES)
-    public ApprovalStore approvalStore() {
-        TokenApprovalStore approvalStore = new TokenApprovalStore();
-        approvalStore.setTokenStore(tokenStore());
-        return approvalStore;
+    public UserApprovalStore approvalStore() {
+        return new DynamoDBApprovalDAO(dynamoDBMapper);
+    }
+
+    @Bean
+    public TokenRevocationStore tokenRevocationStore() {
+        return new DynamoDBTokenRevocationDAO(dynamoDBMapper);
+    }
+
+    @Bean
+    public TokenEnumerationStore tokenEnumerationStore() {
+        return new DynamoDBTokenEnumerationDAO(dynamoDBMapper);
     }
 
     @Bean
     @Scope(proxyMode = ScopedProxyMode.INTERFACES)
     public AuthorizationCodeServices authorizationCodeServices() {
-        return new DynamoDBAuthorizationCodeDAO(dynamoDBMapper);
+        DynamoDBAuthorizationCodeDAO authorizationCodeServices =
+            new DynamoDBAuthorizationCodeDAO(dynamoDBMapper, amazonDynamoDB);
+        authorizationCodeServices.setCodeValiditySeconds(authorizationCodeValiditySeconds);
+        return authorizationCodeServices;
     }
 
     @Bean
     public DynamoDBClientDetailsDAO dynamoDBClientDetailsService() {
-        return new DynamoDBClientDetailsDAO(dynamoDBMapper, passwordEncoder());
+        DynamoDBClientDetailsDAO clientDetailsService =
+            new DynamoDBClientDetailsDAO(dynamoDBMapper, amazonDynamoDB, passwordEncoder());
+        clientDetailsService.setScanSegments(dynamoDBScanSegments);
+        return clientDetailsService;
     }
 
     @Bean
-    public DynamoDBPartnerDetailsDAO dynamoDBPartnerDetailsService() {
-        return new DynamoDBPartnerDetailsDAO(dynamoDBMapper);
+    public CachingClientDetailsService clientDetailsService() {
+        return new CachingClientDetailsService(dynamoDBClientDetailsService(), clientDetailsCacheMaximumSize,
+            Duration.ofSeconds(clientDetailsCacheTimeToLiveSeconds));
     }
 
     @Bean
-    public DynamoDBPartnerTokenDAO dynamoDBPartnerTokenService() {
-        return new DynamoDBPartnerTokenDAO(dynamoDBMapper);
+    public DynamoDBPartnerDetailsDAO dynamoDBPartnerDetailsService() {
+        DynamoDBPartnerDetailsDAO partnerDetailsService = new DynamoDBPartnerDetailsDAO(dynamoDBMapper);
+        partnerDetailsService.setScanSegments(dynamoDBScanSegments);
+        return partnerDetailsService;
     }
 
     @Override
     public void configure(ClientDetailsServiceConfigurer clients) throws Exception {
-        clients.withClientDetails(dynamoDBClientDetailsService());
+        clients.withClientDetails(clientDetailsService());
     }
 
     @Override
@@ -109,6 +336,7 @@ public class AuthorizationServerConfiguration extends AuthorizationServerConfigu
             .approvalStore(approvalStore())
             .authorizationCodeServices(authorizationCodeServices())
             .tokenStore(tokenStore())
+            .tokenServices(tokenServices())
             .authenticationManager(authenticationServiceProvider())
             .userDetailsService(authenticationServiceProvider());
     }
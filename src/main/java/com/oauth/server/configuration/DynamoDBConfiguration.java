@@ -9,17 +9,45 @@ import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.TimeToLiveSpecification;
+import com.amazonaws.services.dynamodbv2.model.TimeToLiveStatus;
+import com.amazonaws.services.dynamodbv2.model.UpdateTimeToLiveRequest;
+import com.google.common.collect.ImmutableList;
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.dto.OAuthApproval;
+import com.oauth.server.dto.OAuthCode;
+import com.oauth.server.dto.OAuthRefreshToken;
+import com.oauth.server.dto.OAuthRevocationEvent;
+import com.oauth.server.dto.OAuthRevokedToken;
+import java.util.List;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 
 /**
  * Configuration for AWS DynamoDB Client.
  *
  * @author Lucun Cai
  */
+@Log4j2
 @Configuration
 public class DynamoDBConfiguration {
 
+    /**
+     * Attribute holding the epoch-second expiration of the expiring records.
+     */
+    private static final String TIME_TO_LIVE_ATTRIBUTE = "expiration";
+
+    private static final List<Class<?>> EXPIRING_TABLES =
+        ImmutableList.of(OAuthAccessToken.class, OAuthRefreshToken.class, OAuthCode.class, OAuthApproval.class,
+            OAuthRevokedToken.class, OAuthRevocationEvent.class);
+
+    @Value("${oauth.dynamodb.time-to-live.enabled:true}")
+    private boolean timeToLiveEnabled;
+
     @Bean
     public AmazonDynamoDB amazonDynamoDB() {
         return AmazonDynamoDBClientBuilder.standard()
@@ -32,4 +60,40 @@ public class DynamoDBConfiguration {
         AmazonDynamoDB amazonDynamoDB = amazonDynamoDB();
         return new DynamoDBMapper(amazonDynamoDB);
     }
+
+    /**
+     * Turn on DynamoDB time to live for the token and authorization code tables, so expired records are purged by
+     * DynamoDB. Tables that already have it enabled are left alone; failures only log, as the tables may be managed
+     * outside of the application.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void enableTimeToLive() {
+        if (!timeToLiveEnabled) {
+            return;
+        }
+
+        AmazonDynamoDB amazonDynamoDB = amazonDynamoDB();
+        DynamoDBMapper dynamoDBMapper = getDynamoDBMapper();
+        for (Class<?> table : EXPIRING_TABLES) {
+            String tableName = dynamoDBMapper.generateDeleteTableRequest(table).getTableName();
+            try {
+                String status = amazonDynamoDB.describeTimeToLive(tableName)
+                    .getTimeToLiveDescription()
+                    .getTimeToLiveStatus();
+                if (TimeToLiveStatus.ENABLED.toString().equals(status)
+                    || TimeToLiveStatus.ENABLING.toString().equals(status)) {
+                    continue;
+                }
+
+                amazonDynamoDB.updateTimeToLive(new UpdateTimeToLiveRequest()
+                    .withTableName(tableName)
+                    .withTimeToLiveSpecification(new TimeToLiveSpecification()
+                        .withAttributeName(TIME_TO_LIVE_ATTRIBUTE)
+                        .withEnabled(true)));
+                log.info("Enabled time to live on {} for attribute {}.", tableName, TIME_TO_LIVE_ATTRIBUTE);
+            } catch (RuntimeException e) {
+                log.warn("Unable to enable time to live on {}.", tableName, e);
+            }
+        }
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.configuration;
+
+import com.oauth.server.authentication.CachingPasswordEncoder;
+import com.oauth.server.authentication.RoleEnum;
+import com.oauth.server.clientdetails.CachingClientDetailsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.provider.client.ClientDetailsUserDetailsService;
+
+/**
+ * Configuration for the token introspection and revocation feed endpoints, authenticating clients with HTTP Basic
+ * client credentials. As introspection answers tell the user and scopes of any token, and the revocation feed covers
+ * every client, only clients granted the {@link RoleEnum#ROLE_RESOURCE_SERVER} authority may use them.
+ *
+ * <p>
+ * Client secrets are checked through the caching password encoder and client details, so repeated requests from the
+ * same client do not pay for a BCrypt check or a client read each time.
+ * </p>
+ */
+@Order(1)
+@Configuration
+public class IntrospectionSecurityConfiguration extends WebSecurityConfigurerAdapter {
+
+    @Autowired
+    private CachingClientDetailsService clientDetailsService;
+
+    @Autowired
+    private CachingPasswordEncoder passwordEncoder;
+
+    @Override
+    protected void configure(HttpSecurity http) throws Exception {
+        http.requestMatchers()
+            .antMatchers("/oauth/introspect/**", "/oauth/revocations/**")
+            .and()
+            .csrf().disable()
+            .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            .and()
+            .authorizeRequests()
+            .anyRequest().hasAuthority(RoleEnum.ROLE_RESOURCE_SERVER.name())
+            .and()
+            .httpBasic();
+    }
+
+    @Override
+    protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+        auth.userDetailsService(new ClientDetailsUserDetailsService(clientDetailsService))
+            .passwordEncoder(passwordEncoder);
+    }
+}
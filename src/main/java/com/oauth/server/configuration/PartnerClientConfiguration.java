@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.configuration;
+
+import com.oauth.server.partner.CachingDnsResolver;
+import com.oauth.server.partner.PartnerCircuitBreakerEndpoint;
+import com.oauth.server.partner.PartnerCircuitBreakers;
+import com.oauth.server.partner.PartnerTokenClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the outbound HTTP client used to call partner OAuth providers.
+ */
+@Configuration
+public class PartnerClientConfiguration {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${oauth.partner-client.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${oauth.partner-client.max-connections-per-host:20}")
+    private int maxConnectionsPerHost;
+
+    @Value("${oauth.partner-client.connect-timeout-millis:2000}")
+    private int connectTimeoutMillis;
+
+    @Value("${oauth.partner-client.read-timeout-millis:5000}")
+    private int readTimeoutMillis;
+
+    @Value("${oauth.partner-client.pool-timeout-millis:1000}")
+    private int poolTimeoutMillis;
+
+    @Value("${oauth.partner-client.keep-alive-seconds:60}")
+    private long keepAliveSeconds;
+
+    @Value("${oauth.partner-client.dns-cache-seconds:60}")
+    private long dnsCacheSeconds;
+
+    @Value("${oauth.partner-client.circuit-breaker.window-size:20}")
+    private int circuitBreakerWindowSize;
+
+    @Value("${oauth.partner-client.circuit-breaker.minimum-calls:10}")
+    private int circuitBreakerMinimumCalls;
+
+    @Value("${oauth.partner-client.circuit-breaker.failure-rate-threshold:50}")
+    private int circuitBreakerFailureRateThreshold;
+
+    @Value("${oauth.partner-client.circuit-breaker.open-seconds:30}")
+    private long circuitBreakerOpenSeconds;
+
+    @Value("${oauth.partner-client.bulkhead.max-concurrent-calls:10}")
+    private int bulkheadMaxConcurrentCalls;
+
+    @Value("${oauth.partner-client.bulkhead.max-wait-millis:0}")
+    private long bulkheadMaxWaitMillis;
+
+    @Bean
+    public PoolingHttpClientConnectionManager partnerConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+            RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                .build(),
+            null, null, new CachingDnsResolver(Duration.ofSeconds(dnsCacheSeconds)), -1, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        connectionManager.setValidateAfterInactivity(2000);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient partnerHttpClient() {
+        long keepAliveMillis = TimeUnit.SECONDS.toMillis(keepAliveSeconds);
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? Math.min(duration, keepAliveMillis) : keepAliveMillis;
+        };
+
+        return HttpClients.custom()
+            .setConnectionManager(partnerConnectionManager())
+            .setKeepAliveStrategy(keepAliveStrategy)
+            .evictExpiredConnections()
+            .evictIdleConnections(keepAliveSeconds, TimeUnit.SECONDS)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(readTimeoutMillis)
+                .setConnectionRequestTimeout(poolTimeoutMillis)
+                .build())
+            .build();
+    }
+
+    @Bean
+    public PartnerCircuitBreakers partnerCircuitBreakers() {
+        return new PartnerCircuitBreakers(circuitBreakerWindowSize, circuitBreakerMinimumCalls,
+            circuitBreakerFailureRateThreshold, TimeUnit.SECONDS.toMillis(circuitBreakerOpenSeconds),
+            bulkheadMaxConcurrentCalls, bulkheadMaxWaitMillis);
+    }
+
+    @Bean
+    public PartnerCircuitBreakerEndpoint partnerCircuitBreakerEndpoint() {
+        return new PartnerCircuitBreakerEndpoint(partnerCircuitBreakers());
+    }
+
+    @Bean
+    public PartnerTokenClient partnerTokenClient() {
+        return new PartnerTokenClient(partnerHttpClient(), partnerConnectionManager(), partnerCircuitBreakers(),
+            meterRegistry);
+    }
+}
@@ -6,10 +6,13 @@
 package com.oauth.server.configuration;
 
 import com.oauth.server.authentication.RoleEnum;
+import com.oauth.server.token.AuthenticatedTokenServices;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableResourceServer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
+import org.springframework.security.oauth2.config.annotation.web.configurers.ResourceServerSecurityConfigurer;
 
 /**
  * Configuration for Resource APIs.
@@ -20,6 +23,18 @@ import org.springframework.security.oauth2.config.annotation.web.configuration.R
 @Configuration
 public class ResourceServerConfiguration extends ResourceServerConfigurerAdapter {
 
+    @Autowired
+    private AuthenticatedTokenServices tokenServices;
+
+    /**
+     * Validate bearer tokens against the token store the authorization server issues into, reading each access token
+     * record once. Signed access tokens are validated locally, without a store read.
+     */
+    @Override
+    public void configure(ResourceServerSecurityConfigurer resources) {
+        resources.tokenServices(tokenServices);
+    }
+
     @Override
     public void configure(HttpSecurity http) throws Exception {
         http.antMatcher("/api/**")
@@ -7,7 +7,9 @@ package com.oauth.server.configuration;
 
 import com.oauth.server.authentication.AuthenticationServiceProvider;
 import com.oauth.server.authentication.RoleEnum;
+import com.oauth.server.partner.PartnerCircuitBreakerEndpoint;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -40,8 +42,10 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
     protected void configure(HttpSecurity http) throws Exception {
         http
             .authorizeRequests()
+            .requestMatchers(EndpointRequest.to(PartnerCircuitBreakerEndpoint.class))
+            .hasAuthority(RoleEnum.ROLE_USER_ADMIN.name())
             .mvcMatchers("/login", "/logout.do", "/css/**", "/js/**", "/actuator/**").permitAll()
-            .mvcMatchers("/clients/**", "/partners/**").hasAuthority(RoleEnum.ROLE_USER_ADMIN.name())
+            .mvcMatchers("/clients/**", "/partners/**", "/revocations/**").hasAuthority(RoleEnum.ROLE_USER_ADMIN.name())
             .anyRequest().authenticated()
             .and()
             .formLogin()
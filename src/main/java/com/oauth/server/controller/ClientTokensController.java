@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.controller;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oauth.server.dto.CursorPage;
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.token.TokenEnumerationStore;
+import com.oauth.server.token.TokenEnumerationStore.Field;
+
+/**
+ * REST Controller listing the access tokens of a client, a page at a time or streamed.
+ *
+ * <p>
+ * Only the requested fields are read. Token values and authentications are never returned; tokens are identified by
+ * their token id, the hashed key they are stored under.
+ * </p>
+ */
+@RestController
+@RequestMapping("clients/{clientId}/tokens")
+public class ClientTokensController {
+
+    private static final Set<Field> LISTABLE_FIELDS = EnumSet.of(Field.AUTHENTICATION_ID, Field.CLIENT_ID,
+        Field.USER_NAME, Field.REFRESH_TOKEN, Field.EXPIRATION);
+
+    private static final Set<Field> DEFAULT_FIELDS = EnumSet.of(Field.USER_NAME, Field.EXPIRATION);
+
+    @Autowired
+    private TokenEnumerationStore tokenEnumerationStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${oauth.admin.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${oauth.admin.max-page-size:1000}")
+    private int maxPageSize;
+
+    @RequestMapping(method = RequestMethod.GET)
+    public ResponseEntity<CursorPage<Map<String, Object>>> listTokens(
+        @PathVariable("clientId") String clientId,
+        @RequestParam(value = "userName", required = false) String userName,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "limit", required = false) Integer limit,
+        @RequestParam(value = "fields", required = false) Set<Field> fields) {
+
+        Set<Field> requestedFields = fields == null ? DEFAULT_FIELDS : fields;
+        int pageSize = limit == null ? defaultPageSize : limit;
+        if (!LISTABLE_FIELDS.containsAll(requestedFields) || pageSize < 1 || pageSize > maxPageSize) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        CursorPage<OAuthAccessToken> page;
+        try {
+            page = tokenEnumerationStore.findTokens(clientId, userName, cursor, pageSize, requestedFields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(new CursorPage<>(
+            page.getItems().stream().map(accessToken -> toView(accessToken, requestedFields))
+                .collect(Collectors.toList()),
+            page.getNextCursor()));
+    }
+
+    /**
+     * Export all the tokens of a client as a JSON array, streamed as they are read from the database.
+     */
+    @RequestMapping(value = "/export", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTokens(
+        @PathVariable("clientId") String clientId,
+        @RequestParam(value = "userName", required = false) String userName,
+        @RequestParam(value = "fields", required = false) Set<Field> fields) {
+
+        Set<Field> requestedFields = fields == null ? DEFAULT_FIELDS : fields;
+        if (!LISTABLE_FIELDS.containsAll(requestedFields)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(JsonArrayResponse.<Map<String, Object>>of(objectMapper,
+            action -> tokenEnumerationStore.forEachToken(clientId, userName, requestedFields,
+                accessToken -> action.accept(toView(accessToken, requestedFields)))));
+    }
+
+    private static Map<String, Object> toView(OAuthAccessToken accessToken, Set<Field> fields) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("tokenId", accessToken.getTokenId());
+        for (Field field : fields) {
+            switch (field) {
+                case AUTHENTICATION_ID:
+                    view.put(field.getAttributeName(), accessToken.getAuthenticationId());
+                    break;
+                case CLIENT_ID:
+                    view.put(field.getAttributeName(), accessToken.getClientId());
+                    break;
+                case USER_NAME:
+                    view.put(field.getAttributeName(), accessToken.getUserName());
+                    break;
+                case REFRESH_TOKEN:
+                    view.put(field.getAttributeName(), accessToken.getRefreshToken());
+                    break;
+                case EXPIRATION:
+                    view.put(field.getAttributeName(), accessToken.getExpiration());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return view;
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Collection;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.provider.ClientDetails;
@@ -22,10 +23,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.oauth.server.controller.editor.AuthorityPropertyEditor;
 import com.oauth.server.controller.editor.SplitCollectionEditor;
 import com.oauth.server.dao.MongoDBClientDetailsDAO;
+import com.oauth.server.token.TokenRevocationService;
 
 /**
  * MVC Controller for OAuth {@link ClientDetails} add/edit/delete.
@@ -39,6 +44,12 @@ public class ClientsController {
     @Autowired
     private MongoDBClientDetailsDAO clientsDetailsService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @InitBinder
     public void initBinder(WebDataBinder binder) {
         binder.registerCustomEditor(Collection.class, new SplitCollectionEditor(Set.class, ","));
@@ -73,9 +84,22 @@ public class ClientsController {
         return "redirect:/";
     }
 
+    /**
+     * Delete a client, then revoke all of its tokens in the background.
+     */
     @RequestMapping(value = "{client.clientId}/delete")
     public String deleteClient(@PathVariable("client.clientId") String id) {
-        clientsDetailsService.removeClientDetails(clientsDetailsService.loadClientByClientId(id).toString());
+        clientsDetailsService.removeClientDetails(clientsDetailsService.loadClientByClientId(id).getClientId());
+        tokenRevocationService.submit(id, null);
         return "redirect:/";
     }
-}
\ No newline at end of file
+
+    /**
+     * Export all clients as a JSON array, streamed as they are read from the database.
+     */
+    @RequestMapping(value = "/export", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public StreamingResponseBody exportClients() {
+        return JsonArrayResponse.of(objectMapper, clientsDetailsService::forEachClientDetails);
+    }
+}
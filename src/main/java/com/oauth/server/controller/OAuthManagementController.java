@@ -8,30 +8,33 @@ package com.oauth.server.controller;
 import static java.util.Arrays.asList;
 
 import java.security.Principal;
-import java.util.Collection;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.oauth2.provider.ClientRegistrationService;
+import org.springframework.security.oauth2.provider.ClientDetails;
 import org.springframework.security.oauth2.provider.approval.Approval;
-import org.springframework.security.oauth2.provider.approval.ApprovalStore;
-import org.springframework.security.oauth2.provider.token.TokenStore;
 import org.springframework.security.web.authentication.logout.SecurityContextLogoutHandler;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
 import com.oauth.server.authentication.RoleEnum;
+import com.oauth.server.clientdetails.VersionedClientDetailsService;
 import com.oauth.server.dao.MongoDBPartnerDetailsDAO;
+import com.oauth.server.dto.CursorPage;
+import com.oauth.server.dto.OAuthPartner;
+import com.oauth.server.token.TokenRevocationService;
+import com.oauth.server.token.UserApprovalStore;
 
 /**
  * Controller for login, logout, and approval management.
@@ -42,43 +45,58 @@ import com.oauth.server.dao.MongoDBPartnerDetailsDAO;
 public class OAuthManagementController {
 
     @Autowired
-    private ClientRegistrationService clientRegistrationService;
+    private VersionedClientDetailsService clientRegistrationService;
 
     @Autowired
     private MongoDBPartnerDetailsDAO partnerDetailsService;
 
     @Autowired
-    private ApprovalStore approvalStore;
+    private UserApprovalStore approvalStore;
 
     @Autowired
-    private TokenStore tokenStore;
+    private TokenRevocationService tokenRevocationService;
 
+    @Value("${oauth.admin.page-size:50}")
+    private int pageSize;
+
+    /**
+     * Dashboard. Administrators see one page of clients and one page of partners, starting after the given cursors.
+     * The current cursors are kept in the model, so paging through one listing keeps the page of the other.
+     */
     @RequestMapping("/")
-    public ModelAndView root(HttpServletRequest request, Map<String, Object> model, Principal principal) {
+    public ModelAndView root(HttpServletRequest request, Map<String, Object> model, Principal principal,
+                             @RequestParam(value = "clients", required = false) String clientsCursor,
+                             @RequestParam(value = "partners", required = false) String partnersCursor) {
 
         if (request.isUserInRole(RoleEnum.ROLE_USER_ADMIN.name())) {
-            model.put("clientDetails", clientRegistrationService.listClientDetails());
-            model.put("partners", partnerDetailsService.listPartners());
+            clientsCursor = StringUtils.trimToNull(clientsCursor);
+            partnersCursor = StringUtils.trimToNull(partnersCursor);
+            model.put("clientsCursor", clientsCursor);
+            model.put("partnersCursor", partnersCursor);
+
+            CursorPage<ClientDetails> clients = clientRegistrationService.listClientDetails(clientsCursor, pageSize);
+            model.put("clientDetails", clients.getItems());
+            model.put("nextClientsCursor", clients.getNextCursor());
+
+            CursorPage<OAuthPartner> partners = partnerDetailsService.listPartners(partnersCursor, pageSize);
+            model.put("partners", partners.getItems());
+            model.put("nextPartnersCursor", partners.getNextCursor());
         } else {
-            List<Approval> approvals = clientRegistrationService.listClientDetails().stream()
-                .map(clientDetails -> approvalStore.getApprovals(principal.getName(), clientDetails.getClientId()))
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList());
-            model.put("approvals", approvals);
+            model.put("approvals", approvalStore.getApprovalsForUser(principal.getName()));
         }
 
         return new ModelAndView("index", model);
     }
 
     /**
-     * Method to revoke the OAuth approval.
+     * Method to revoke the OAuth approval. The approval record is removed first, so the client is prompted again even
+     * if removing its tokens fails part way. The user's tokens for the client are then revoked before responding.
      */
     @RequestMapping(value = "/approval/revoke", method = RequestMethod.POST)
     public String revokeApproval(@ModelAttribute Approval approval) {
 
         approvalStore.revokeApprovals(asList(approval));
-        tokenStore.findTokensByClientIdAndUserName(approval.getClientId(), approval.getUserId())
-            .forEach(tokenStore::removeAccessToken);
+        tokenRevocationService.revoke(approval.getClientId(), approval.getUserId());
         return "redirect:/";
     }
 
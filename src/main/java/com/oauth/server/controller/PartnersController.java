@@ -9,6 +9,7 @@ import java.util.Collection;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -19,10 +20,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.oauth.server.controller.editor.SplitCollectionEditor;
 import com.oauth.server.dao.MongoDBPartnerDetailsDAO;
 import com.oauth.server.dto.OAuthPartner;
+import com.oauth.server.partner.PartnerRegistry;
 
 /**
  * MVC Controller for {@link OAuthPartner} add/edit/delete.
@@ -36,6 +41,12 @@ public class PartnersController {
     @Autowired
     private MongoDBPartnerDetailsDAO partnerDetailsRepository;
 
+    @Autowired
+    private PartnerRegistry partnerRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @InitBinder
     public void initBinder(WebDataBinder binder) {
         binder.registerCustomEditor(Collection.class, new SplitCollectionEditor(Set.class, ","));
@@ -59,13 +70,22 @@ public class PartnersController {
     @RequestMapping(value = "/edit", method = RequestMethod.POST)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     public String editPartner(@ModelAttribute OAuthPartner partner) {
-        partnerDetailsRepository.savePartner(partner);
+        partnerRegistry.savePartner(partner);
         return "redirect:/";
     }
 
     @RequestMapping(value = "{partner.partnerId}/delete")
     public String deletePartner(@PathVariable("partner.partnerId") String partnerId) {
-        partnerDetailsRepository.deletePartnerByPartnerId(partnerId);
+        partnerRegistry.deletePartnerByPartnerId(partnerId);
         return "redirect:/";
     }
-}
\ No newline at end of file
+
+    /**
+     * Export all partners as a JSON array, streamed as they are read from the database.
+     */
+    @RequestMapping(value = "/export", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public StreamingResponseBody exportPartners() {
+        return JsonArrayResponse.of(objectMapper, partnerDetailsRepository::forEachPartner);
+    }
+}
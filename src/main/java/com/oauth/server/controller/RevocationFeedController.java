@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.controller;
+
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.oauth.server.dto.RevocationFeedPage;
+import com.oauth.server.token.RevocationLog;
+
+/**
+ * REST Controller serving the revocation log to caches outside this server, for clients authenticated with their
+ * client credentials.
+ *
+ * <p>
+ * Consumers read from the cursor of their previous read. A read without a cursor returns the current cursor, to start
+ * following the log from now on. When no event follows the cursor, the request is held until one is appended or the
+ * long poll times out, so consumers see a revocation within seconds without polling the token tables.
+ * </p>
+ */
+@RestController
+@RequestMapping(value = "oauth/revocations", produces = MediaType.APPLICATION_JSON_VALUE)
+public class RevocationFeedController {
+
+    @Autowired
+    private RevocationLog revocationLog;
+
+    @Value("${oauth.revocation-log.page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${oauth.revocation-log.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${oauth.revocation-log.long-poll-seconds:30}")
+    private long longPollSeconds;
+
+    /**
+     * Reads held until events are appended.
+     */
+    private final Queue<PendingRead> pendingReads = new ConcurrentLinkedQueue<>();
+
+    @PostConstruct
+    public void listen() {
+        revocationLog.addListener(this::onAppended);
+    }
+
+    @RequestMapping(method = RequestMethod.GET)
+    public DeferredResult<ResponseEntity<RevocationFeedPage>> read(
+        @RequestParam(value = "after", required = false) Long after,
+        @RequestParam(value = "limit", required = false) Integer limit,
+        @RequestParam(value = "wait", defaultValue = "true") boolean wait) {
+
+        DeferredResult<ResponseEntity<RevocationFeedPage>> result = new DeferredResult<>(longPollSeconds * 1000L,
+            () -> ResponseEntity.ok(new RevocationFeedPage(Collections.emptyList(), after, false)));
+
+        int pageSize = limit == null ? defaultPageSize : limit;
+        if ((after != null && after < 0) || pageSize < 1 || pageSize > maxPageSize) {
+            result.setResult(ResponseEntity.badRequest().build());
+            return result;
+        }
+        long head = revocationLog.head();
+        if (head < 0) {
+            result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+            return result;
+        }
+        if (after == null) {
+            result.setResult(ResponseEntity.ok(new RevocationFeedPage(Collections.emptyList(), head, false)));
+            return result;
+        }
+
+        RevocationFeedPage page = revocationLog.read(after, pageSize);
+        if (!wait || !page.getEvents().isEmpty() || page.getCursor() != after) {
+            result.setResult(ResponseEntity.ok(page));
+            return result;
+        }
+
+        PendingRead pendingRead = new PendingRead(after, pageSize, result);
+        pendingReads.add(pendingRead);
+        result.onCompletion(() -> pendingReads.remove(pendingRead));
+        // Events appended between the read and the registration would not wake this read up.
+        if (revocationLog.head() > after) {
+            complete(pendingRead);
+        }
+        return result;
+    }
+
+    private void onAppended(long head) {
+        for (PendingRead pendingRead : pendingReads) {
+            if (pendingRead.after < head) {
+                complete(pendingRead);
+            }
+        }
+    }
+
+    private void complete(PendingRead pendingRead) {
+        if (pendingReads.remove(pendingRead)) {
+            pendingRead.result.setResult(ResponseEntity.ok(revocationLog.read(pendingRead.after, pendingRead.limit)));
+        }
+    }
+
+    private static final class PendingRead {
+
+        private final long after;
+
+        private final int limit;
+
+        private final DeferredResult<ResponseEntity<RevocationFeedPage>> result;
+
+        private PendingRead(long after, int limit, DeferredResult<ResponseEntity<RevocationFeedPage>> result) {
+            this.after = after;
+            this.limit = limit;
+            this.result = result;
+        }
+    }
+}
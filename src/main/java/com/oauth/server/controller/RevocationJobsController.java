@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.oauth.server.dto.OAuthRevocationJob;
+import com.oauth.server.token.TokenRevocationService;
+
+/**
+ * REST Controller to start bulk token revocations and follow their progress.
+ */
+@RestController
+@RequestMapping("revocations")
+public class RevocationJobsController {
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    /**
+     * Revoke all the tokens of a client, a user, or a user for a client.
+     */
+    @RequestMapping(method = RequestMethod.POST)
+    public ResponseEntity<OAuthRevocationJob> revoke(
+        @RequestParam(value = "clientId", required = false) String clientId,
+        @RequestParam(value = "userName", required = false) String userName) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(tokenRevocationService.submit(clientId, userName));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @RequestMapping(value = "/{jobId}", method = RequestMethod.GET)
+    public ResponseEntity<OAuthRevocationJob> getJob(@PathVariable("jobId") String jobId) {
+        OAuthRevocationJob job = tokenRevocationService.getJob(jobId);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+}
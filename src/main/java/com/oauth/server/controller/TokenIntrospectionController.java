@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.oauth.server.token.TokenIntrospectionService;
+
+/**
+ * REST Controller for RFC 7662 token introspection, for resource server clients authenticated with their client
+ * credentials.
+ */
+@RestController
+@RequestMapping(value = "oauth/introspect", produces = MediaType.APPLICATION_JSON_VALUE)
+public class TokenIntrospectionController {
+
+    @Autowired
+    private TokenIntrospectionService tokenIntrospectionService;
+
+    @Value("${oauth.introspection.max-batch-size:100}")
+    private int maxBatchSize;
+
+    /**
+     * Introspect a token. The {@code token_type_hint} parameter is accepted and ignored, as only access tokens can be
+     * active.
+     */
+    @RequestMapping(method = RequestMethod.POST, consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public Map<String, Object> introspect(@RequestParam("token") String token) {
+        return tokenIntrospectionService.introspect(token);
+    }
+
+    /**
+     * Introspect a JSON array of tokens, answering with an array of introspection responses in the same order.
+     */
+    @RequestMapping(value = "/batch", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<Map<String, Object>>> introspectBatch(@RequestBody List<String> tokens) {
+        if (tokens.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(tokenIntrospectionService.introspect(tokens));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dao;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.TransactionWriteRequest;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.google.common.collect.Iterables;
+import com.oauth.server.dto.OAuthApproval;
+import com.oauth.server.token.UserApprovalStore;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.security.oauth2.provider.approval.Approval;
+
+/**
+ * A DAO to access {@link Approval} in DynamoDB, keyed by user id.
+ */
+public class DynamoDBApprovalDAO implements UserApprovalStore {
+
+    /**
+     * Maximum number of items in a DynamoDB transaction.
+     */
+    private static final int TRANSACTION_SIZE = 25;
+
+    private DynamoDBMapper dynamoDBMapper;
+
+    public DynamoDBApprovalDAO(DynamoDBMapper dynamoDBMapper) {
+        this.dynamoDBMapper = dynamoDBMapper;
+    }
+
+    @Override
+    public boolean addApprovals(Collection<Approval> approvals) {
+        dynamoDBMapper.batchSave(approvals.stream().map(OAuthApproval::of).collect(Collectors.toList()));
+        return true;
+    }
+
+    /**
+     * Revoke approvals. The records of up to 25 approvals are deleted in one transaction, so a revocation of a client
+     * is applied in full or not at all.
+     *
+     * @param approvals approvals to revoke.
+     * @return true.
+     */
+    @Override
+    public boolean revokeApprovals(Collection<Approval> approvals) {
+        for (List<Approval> chunk : Iterables.partition(approvals, TRANSACTION_SIZE)) {
+            TransactionWriteRequest transaction = new TransactionWriteRequest();
+            chunk.stream().map(OAuthApproval::of).forEach(transaction::addDelete);
+            dynamoDBMapper.transactionWrite(transaction);
+        }
+        return true;
+    }
+
+    @Override
+    public Collection<Approval> getApprovals(String userId, String clientId) {
+        DynamoDBQueryExpression<OAuthApproval> queryExpression = queryByUserId(userId)
+            .withQueryFilterEntry("clientId", new Condition()
+                .withComparisonOperator(ComparisonOperator.EQ)
+                .withAttributeValueList(new AttributeValue(clientId)));
+
+        return toApprovals(dynamoDBMapper.query(OAuthApproval.class, queryExpression));
+    }
+
+    @Override
+    public Collection<Approval> getApprovalsForUser(String userId) {
+        return toApprovals(dynamoDBMapper.query(OAuthApproval.class, queryByUserId(userId)));
+    }
+
+    private static DynamoDBQueryExpression<OAuthApproval> queryByUserId(String userId) {
+        return new DynamoDBQueryExpression<OAuthApproval>()
+            .withHashKeyValues(OAuthApproval.builder().userId(userId).build());
+    }
+
+    private static Collection<Approval> toApprovals(List<OAuthApproval> approvals) {
+        return approvals.stream()
+            .filter(approval -> !approval.hasExpired())
+            .map(OAuthApproval::toApproval)
+            .collect(Collectors.toList());
+    }
+}
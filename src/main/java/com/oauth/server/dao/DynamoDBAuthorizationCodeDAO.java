@@ -5,8 +5,16 @@
  */
 package com.oauth.server.dao;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperTableModel;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
 import com.oauth.server.dto.OAuthCode;
+import java.util.Date;
+import java.util.Map;
+import lombok.Setter;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.code.RandomValueAuthorizationCodeServices;
 
@@ -17,40 +25,62 @@ import org.springframework.security.oauth2.provider.code.RandomValueAuthorizatio
  */
 public class DynamoDBAuthorizationCodeDAO extends RandomValueAuthorizationCodeServices {
 
+    /**
+     * Default lifetime of an authorization code, the maximum recommended by RFC 6749.
+     */
+    public static final int DEFAULT_CODE_VALIDITY_SECONDS = 600;
+
     private DynamoDBMapper dynamoDBMapper;
 
-    public DynamoDBAuthorizationCodeDAO(DynamoDBMapper dynamoDBMapper) {
+    private AmazonDynamoDB amazonDynamoDB;
+
+    private DynamoDBMapperTableModel<OAuthCode> tableModel;
+
+    private String tableName;
+
+    @Setter
+    private int codeValiditySeconds = DEFAULT_CODE_VALIDITY_SECONDS;
+
+    public DynamoDBAuthorizationCodeDAO(DynamoDBMapper dynamoDBMapper, AmazonDynamoDB amazonDynamoDB) {
         this.dynamoDBMapper = dynamoDBMapper;
+        this.amazonDynamoDB = amazonDynamoDB;
+        this.tableModel = dynamoDBMapper.getTableModel(OAuthCode.class);
+        this.tableName = dynamoDBMapper.generateDeleteTableRequest(OAuthCode.class).getTableName();
     }
 
     /**
-     * Store the authorization code for a authenticated user.
+     * Store the authorization code for a authenticated user, expiring after the code validity.
      *
      * @param code authorization code.
      * @param authentication authentication for the user.
      */
     @Override
     protected void store(String code, OAuth2Authentication authentication) {
-        OAuthCode oAuthCode = new OAuthCode(code, authentication);
+        OAuthCode oAuthCode = new OAuthCode(code, authentication,
+            new Date(System.currentTimeMillis() + codeValiditySeconds * 1000L));
         dynamoDBMapper.save(oAuthCode);
     }
 
     /**
-     * Remove/Invalidate the authorization code.
+     * Remove/Invalidate the authorization code. The item is deleted and returned by a single request, so a code can
+     * only be consumed once.
      *
      * @param code authorization code.
      * @return user authentication.
      */
     @Override
     public OAuth2Authentication remove(String code) {
-        OAuthCode oAuthCode = dynamoDBMapper.load(new OAuthCode(code));
+        Map<String, AttributeValue> oldItem = amazonDynamoDB.deleteItem(new DeleteItemRequest()
+            .withTableName(tableName)
+            .withKey(tableModel.convertKey(new OAuthCode(code)))
+            .withReturnValues(ReturnValue.ALL_OLD))
+            .getAttributes();
 
-        if (oAuthCode == null) {
+        if (oldItem == null || oldItem.isEmpty()) {
             return null;
         }
 
-        dynamoDBMapper.delete(oAuthCode);
-
-        return oAuthCode.getAuthentication();
+        OAuthCode oAuthCode = tableModel.unconvert(oldItem);
+        return oAuthCode.hasExpired() ? null : oAuthCode.getAuthentication();
     }
 }
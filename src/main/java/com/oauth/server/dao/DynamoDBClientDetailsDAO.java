@@ -6,38 +6,70 @@
 
 package com.oauth.server.dao;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.ConsistentReads;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.SaveBehavior;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.ScanResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.google.common.collect.ImmutableMap;
+import com.oauth.server.clientdetails.VersionedClientDetailsService;
+import com.oauth.server.dto.CursorPage;
 import com.oauth.server.dto.OAuthClientDetails;
+import com.oauth.server.dto.OAuthCounter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.provider.ClientAlreadyExistsException;
 import org.springframework.security.oauth2.provider.ClientDetails;
-import org.springframework.security.oauth2.provider.ClientDetailsService;
 import org.springframework.security.oauth2.provider.ClientRegistrationException;
-import org.springframework.security.oauth2.provider.ClientRegistrationService;
 import org.springframework.security.oauth2.provider.NoSuchClientException;
 import org.springframework.util.StringUtils;
 
 /**
  * A DAO to access {@link ClientDetails} in DynamoDB.
  *
+ * <p>
+ * Client versions are handed out by the {@link OAuthCounter#CLIENT_VERSION} counter, incremented atomically, and
+ * clients are ordered by version in the {@code versionLog-version-index} global secondary index.
+ * </p>
+ *
  * @author Lucun Cai
  */
 @RequiredArgsConstructor
 @Log4j2
-public class DynamoDBClientDetailsDAO implements ClientDetailsService, ClientRegistrationService {
+public class DynamoDBClientDetailsDAO implements VersionedClientDetailsService {
+
+    private static final String HASH_KEY = "clientId";
+
+    private static final String VERSION_INDEX = "versionLog-version-index";
+
+    private static final String COUNTER_ATTRIBUTE = "lastValue";
 
     private final DynamoDBMapper dynamoDBMapper;
+    private final AmazonDynamoDB amazonDynamoDB;
     private final PasswordEncoder passwordEncoder;
 
+    /**
+     * Segments of the parallel scan visiting every client.
+     */
+    @Setter
+    private int scanSegments = 1;
+
     /**
      * Load {@link ClientDetails} by clientId provided.
      *
@@ -52,6 +84,17 @@ public class DynamoDBClientDetailsDAO implements ClientDetailsService, ClientReg
             .orElseThrow(() -> new NoSuchClientException("Client: " + clientId + " not found."));
     }
 
+    /**
+     * Load the stored record of a client.
+     *
+     * @param clientId client id.
+     * @return the client record, or null if not found.
+     */
+    @Override
+    public OAuthClientDetails loadOAuthClientDetails(String clientId) {
+        return dynamoDBMapper.load(OAuthClientDetails.class, clientId);
+    }
+
     /**
      * Add a new {@link ClientDetails} into Database.
      *
@@ -94,6 +137,7 @@ public class DynamoDBClientDetailsDAO implements ClientDetailsService, ClientReg
      *
      * @param clientDetails client details.
      */
+    @Override
     public void addOrUpdateClientDetails(@NonNull ClientDetails clientDetails) {
         List<String> autoApproveList = clientDetails.getScope().stream()
             .filter(scope -> clientDetails.isAutoApprove(scope))
@@ -111,6 +155,8 @@ public class DynamoDBClientDetailsDAO implements ClientDetailsService, ClientReg
             .accessTokenValidity(clientDetails.getAccessTokenValiditySeconds())
             .refreshTokenValidity(clientDetails.getRefreshTokenValiditySeconds())
             .autoapprove(StringUtils.collectionToCommaDelimitedString(autoApproveList))
+            .version(nextVersion())
+            .versionLog(OAuthClientDetails.VERSION_LOG)
             .build();
 
         DynamoDBMapperConfig dynamoDBMapperConfig = DynamoDBMapperConfig
@@ -138,12 +184,14 @@ public class DynamoDBClientDetailsDAO implements ClientDetailsService, ClientReg
         }
 
         OAuthClientDetails updatedItem = oAuthClientDetails.toBuilder().clientSecret(passwordEncoder.encode(secret))
+            .version(nextVersion())
+            .versionLog(OAuthClientDetails.VERSION_LOG)
             .build();
         dynamoDBMapper.save(updatedItem);
     }
 
     /**
-     * Remove a specific client details by clientId.
+     * Remove a specific client details by clientId, then advance the version counter so caches see a change.
      *
      * @param clientId client id.
      */
@@ -155,6 +203,7 @@ public class DynamoDBClientDetailsDAO implements ClientDetailsService, ClientReg
             log.error("clientId {} already deleted.", clientId);
         } else {
             dynamoDBMapper.delete(oAuthClientDetails);
+            nextVersion();
         }
     }
 
@@ -170,4 +219,110 @@ public class DynamoDBClientDetailsDAO implements ClientDetailsService, ClientReg
             .map(OAuthClientDetails::toClientDetails)
             .collect(Collectors.toList());
     }
+
+    /**
+     * Current version of every client, scanning only the client ids and versions.
+     *
+     * @return versions keyed by client id.
+     */
+    @Override
+    public Map<String, Long> loadClientVersions() {
+        DynamoDBScanExpression scanExpression = new DynamoDBScanExpression()
+            .withProjectionExpression("clientId, #version")
+            .withExpressionAttributeNames(ImmutableMap.of("#version", "version"));
+
+        Map<String, Long> versions = new HashMap<>();
+        dynamoDBMapper.scan(OAuthClientDetails.class, scanExpression)
+            .forEach(client -> versions.put(client.getClientId(), client.getVersion()));
+        return versions;
+    }
+
+    /**
+     * Latest version handed out, read consistently from the counter item.
+     *
+     * @return the latest version, or 0 if none was handed out yet.
+     */
+    @Override
+    public long loadLatestVersion() {
+        OAuthCounter counter = dynamoDBMapper.load(OAuthCounter.class, OAuthCounter.CLIENT_VERSION,
+            ConsistentReads.CONSISTENT.config());
+        return counter == null || counter.getLastValue() == null ? 0L : counter.getLastValue();
+    }
+
+    /**
+     * Current version of the clients written after a version, querying the version index. The index is eventually
+     * consistent, so clients written just before may be missing.
+     *
+     * @param version version the clients were written after.
+     * @return versions keyed by client id.
+     */
+    @Override
+    public Map<String, Long> loadClientVersionsSince(long version) {
+        DynamoDBQueryExpression<OAuthClientDetails> queryExpression = new DynamoDBQueryExpression<OAuthClientDetails>()
+            .withIndexName(VERSION_INDEX)
+            .withConsistentRead(false)
+            .withKeyConditionExpression("versionLog = :log AND #version > :after")
+            .withExpressionAttributeNames(ImmutableMap.of("#version", "version"))
+            .withExpressionAttributeValues(ImmutableMap.of(
+                ":log", new AttributeValue(OAuthClientDetails.VERSION_LOG),
+                ":after", new AttributeValue().withN(Long.toString(version))));
+
+        Map<String, Long> versions = new HashMap<>();
+        dynamoDBMapper.query(OAuthClientDetails.class, queryExpression)
+            .forEach(client -> versions.put(client.getClientId(), client.getVersion()));
+        return versions;
+    }
+
+    /**
+     * List one page of clients with a single scan request. The cursor is the key the previous page ended at.
+     *
+     * @param cursor cursor returned with the previous page, or null for the first page.
+     * @param pageSize maximum number of clients in the page.
+     * @return a page of client details.
+     */
+    @Override
+    public CursorPage<ClientDetails> listClientDetails(String cursor, int pageSize) {
+        DynamoDBScanExpression scanExpression = new DynamoDBScanExpression()
+            .withLimit(pageSize);
+        if (cursor != null) {
+            scanExpression.setExclusiveStartKey(ImmutableMap.of(HASH_KEY, new AttributeValue(cursor)));
+        }
+
+        ScanResultPage<OAuthClientDetails> page = dynamoDBMapper.scanPage(OAuthClientDetails.class, scanExpression);
+        Map<String, AttributeValue> lastEvaluatedKey = page.getLastEvaluatedKey();
+
+        return new CursorPage<>(
+            page.getResults().stream().map(OAuthClientDetails::toClientDetails).collect(Collectors.toList()),
+            lastEvaluatedKey == null ? null : lastEvaluatedKey.get(HASH_KEY).getS());
+    }
+
+    /**
+     * Visit every client with a parallel scan over {@code scanSegments} segments. Only the pages being read are held
+     * in memory.
+     *
+     * @param action action run for each client, from the calling thread.
+     */
+    @Override
+    public void forEachClientDetails(Consumer<ClientDetails> action) {
+        DynamoDBMapperConfig iterationOnly = DynamoDBMapperConfig.builder()
+            .withPaginationLoadingStrategy(PaginationLoadingStrategy.ITERATION_ONLY)
+            .build();
+
+        dynamoDBMapper.parallelScan(OAuthClientDetails.class, new DynamoDBScanExpression(), scanSegments,
+            iterationOnly)
+            .forEach(client -> action.accept(client.toClientDetails()));
+    }
+
+    private long nextVersion() {
+        String version = amazonDynamoDB.updateItem(new UpdateItemRequest()
+            .withTableName(dynamoDBMapper.generateDeleteTableRequest(OAuthCounter.class).getTableName())
+            .withKey(ImmutableMap.of("name", new AttributeValue(OAuthCounter.CLIENT_VERSION)))
+            .withUpdateExpression("ADD " + COUNTER_ATTRIBUTE + " :one")
+            .withExpressionAttributeValues(ImmutableMap.of(":one", new AttributeValue().withN("1")))
+            .withReturnValues(ReturnValue.UPDATED_NEW))
+            .getAttributes()
+            .get(COUNTER_ATTRIBUTE)
+            .getN();
+        return Long.parseLong(version);
+    }
 }
@@ -6,10 +6,19 @@
 package com.oauth.server.dao;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.ScanResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableMap;
+import com.oauth.server.dto.CursorPage;
 import com.oauth.server.dto.OAuthPartner;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
 
 /**
@@ -20,8 +29,16 @@ import lombok.extern.log4j.Log4j2;
 @Log4j2
 public class DynamoDBPartnerDetailsDAO {
 
+    private static final String HASH_KEY = "partnerId";
+
     private DynamoDBMapper dynamoDBMapper;
 
+    /**
+     * Segments of the parallel scan visiting every partner.
+     */
+    @Setter
+    private int scanSegments = 1;
+
     public DynamoDBPartnerDetailsDAO(DynamoDBMapper dynamoDBMapper) {
         this.dynamoDBMapper = dynamoDBMapper;
     }
@@ -45,6 +62,42 @@ public class DynamoDBPartnerDetailsDAO {
         return dynamoDBMapper.scan(OAuthPartner.class, new DynamoDBScanExpression());
     }
 
+    /**
+     * List one page of partners with a single scan request. The cursor is the key the previous page ended at.
+     *
+     * @param cursor cursor returned with the previous page, or null for the first page.
+     * @param pageSize maximum number of partners in the page.
+     * @return a page of {@link OAuthPartner}.
+     */
+    public CursorPage<OAuthPartner> listPartners(String cursor, int pageSize) {
+        DynamoDBScanExpression scanExpression = new DynamoDBScanExpression()
+            .withLimit(pageSize);
+        if (cursor != null) {
+            scanExpression.setExclusiveStartKey(ImmutableMap.of(HASH_KEY, new AttributeValue(cursor)));
+        }
+
+        ScanResultPage<OAuthPartner> page = dynamoDBMapper.scanPage(OAuthPartner.class, scanExpression);
+        Map<String, AttributeValue> lastEvaluatedKey = page.getLastEvaluatedKey();
+
+        return new CursorPage<>(page.getResults(),
+            lastEvaluatedKey == null ? null : lastEvaluatedKey.get(HASH_KEY).getS());
+    }
+
+    /**
+     * Visit every partner with a parallel scan over {@code scanSegments} segments. Only the pages being read are held
+     * in memory.
+     *
+     * @param action action run for each partner, from the calling thread.
+     */
+    public void forEachPartner(Consumer<OAuthPartner> action) {
+        DynamoDBMapperConfig iterationOnly = DynamoDBMapperConfig.builder()
+            .withPaginationLoadingStrategy(PaginationLoadingStrategy.ITERATION_ONLY)
+            .build();
+
+        dynamoDBMapper.parallelScan(OAuthPartner.class, new DynamoDBScanExpression(), scanSegments, iterationOnly)
+            .forEach(action);
+    }
+
     /**
      * Save the {@link OAuthPartner} provided.
      *
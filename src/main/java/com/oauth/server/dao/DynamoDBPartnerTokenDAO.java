@@ -6,14 +6,24 @@
 package com.oauth.server.dao;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.google.common.collect.ImmutableMap;
 import com.oauth.server.dto.OAuthPartnerToken;
+import com.oauth.server.token.HashingClientKeyGenerator;
+import com.oauth.server.token.PartnerTokenStore;
+import com.oauth.server.token.TokenKeyHasher;
 import java.util.List;
+import lombok.Setter;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
 import org.springframework.security.oauth2.client.token.ClientKeyGenerator;
-import org.springframework.security.oauth2.client.token.ClientTokenServices;
-import org.springframework.security.oauth2.client.token.DefaultClientKeyGenerator;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
 
 /**
@@ -21,19 +31,39 @@ import org.springframework.security.oauth2.common.OAuth2AccessToken;
  *
  * @author Lucun Cai
  */
-public class DynamoDBPartnerTokenDAO implements ClientTokenServices {
+public class DynamoDBPartnerTokenDAO implements PartnerTokenStore {
+
+    private static final DynamoDBMapperConfig CONSISTENT_READ = DynamoDBMapperConfig.builder()
+        .withConsistentReads(DynamoDBMapperConfig.ConsistentReads.CONSISTENT)
+        .build();
+
+    private static final DynamoDBMapperConfig ITERATION_ONLY = DynamoDBMapperConfig.builder()
+        .withPaginationLoadingStrategy(DynamoDBMapperConfig.PaginationLoadingStrategy.ITERATION_ONLY)
+        .build();
 
     private DynamoDBMapper dynamoDBMapper;
 
     private ClientKeyGenerator keyGenerator;
 
+    /**
+     * Whether tokens saved under their token value, before tokens were keyed by authentication id, are still looked up
+     * through the authenticationId-index and migrated on read.
+     */
+    @Setter
+    private boolean legacyLookupEnabled = true;
+
     public DynamoDBPartnerTokenDAO(DynamoDBMapper dynamoDBMapper) {
+        this(dynamoDBMapper, new TokenKeyHasher(TokenKeyHasher.Algorithm.MD5));
+    }
+
+    public DynamoDBPartnerTokenDAO(DynamoDBMapper dynamoDBMapper, TokenKeyHasher tokenKeyHasher) {
         this.dynamoDBMapper = dynamoDBMapper;
-        this.keyGenerator = new DefaultClientKeyGenerator();
+        this.keyGenerator = new HashingClientKeyGenerator(tokenKeyHasher);
     }
 
     /**
-     * Get the {@link OAuth2AccessToken} of a protected resource for the {@link Authentication} provided.
+     * Get the {@link OAuth2AccessToken} of a protected resource for the {@link Authentication} provided, with a
+     * strongly consistent read of the item keyed by the authentication id.
      *
      * @param resource partner protected resource.
      * @param authentication user authentication.
@@ -42,9 +72,16 @@ public class DynamoDBPartnerTokenDAO implements ClientTokenServices {
     @Override
     public OAuth2AccessToken getAccessToken(OAuth2ProtectedResourceDetails resource, Authentication authentication) {
         String authenticationId = keyGenerator.extractKey(resource, authentication);
-        List<OAuthPartnerToken> accessTokens = getOAuthPartnerTokensByAuthenticationId(authenticationId);
+        OAuthPartnerToken partnerToken = dynamoDBMapper.load(OAuthPartnerToken.class, authenticationId,
+            CONSISTENT_READ);
 
-        return accessTokens.stream().findAny().map(OAuthPartnerToken::getToken).orElse(null);
+        if (partnerToken == null && legacyLookupEnabled) {
+            partnerToken = getLegacyOAuthPartnerTokens(authenticationId).stream()
+                .findAny()
+                .map(this::migrate)
+                .orElse(null);
+        }
+        return partnerToken != null ? partnerToken.getToken() : null;
     }
 
     /**
@@ -58,18 +95,42 @@ public class DynamoDBPartnerTokenDAO implements ClientTokenServices {
     public void saveAccessToken(OAuth2ProtectedResourceDetails resource,
                                 Authentication authentication,
                                 OAuth2AccessToken accessToken) {
+        String authenticationId = keyGenerator.extractKey(resource, authentication);
+        dynamoDBMapper.save(toPartnerToken(resource, authentication, authenticationId, accessToken,
+            System.currentTimeMillis()));
+    }
 
-        String userName = authentication != null ? authentication.getName() : null;
+    /**
+     * Replace the {@link OAuth2AccessToken} of a partner protected resource for the {@link Authentication} provided,
+     * with one conditional put of the item keyed by the authentication id. The put only succeeds if no item exists yet
+     * or the stored token was issued earlier.
+     *
+     * @param resource partner protected resource.
+     * @param authentication user authentication.
+     * @param accessToken oauth access token.
+     * @param issuedAt when the partner issued the token, in epoch milliseconds.
+     * @return true if the token was stored, false if a newer token was kept.
+     */
+    @Override
+    public boolean replaceAccessToken(OAuth2ProtectedResourceDetails resource,
+                                      Authentication authentication,
+                                      OAuth2AccessToken accessToken,
+                                      long issuedAt) {
+        String authenticationId = keyGenerator.extractKey(resource, authentication);
 
-        OAuthPartnerToken oauthPartnerToken = OAuthPartnerToken.builder()
-            .tokenId(accessToken.getValue())
-            .token(accessToken)
-            .authenticationId(keyGenerator.extractKey(resource, authentication))
-            .userName(userName)
-            .clientId(resource.getClientId())
-            .build();
+        DynamoDBSaveExpression saveExpression = new DynamoDBSaveExpression()
+            .withConditionExpression(
+                "attribute_not_exists(tokenId) OR attribute_not_exists(issuedAt) OR issuedAt < :issuedAt")
+            .withExpressionAttributeValues(
+                ImmutableMap.of(":issuedAt", new AttributeValue().withN(String.valueOf(issuedAt))));
 
-        dynamoDBMapper.save(oauthPartnerToken);
+        try {
+            dynamoDBMapper.save(toPartnerToken(resource, authentication, authenticationId, accessToken, issuedAt),
+                saveExpression);
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
     }
 
     /**
@@ -81,18 +142,83 @@ public class DynamoDBPartnerTokenDAO implements ClientTokenServices {
     @Override
     public void removeAccessToken(OAuth2ProtectedResourceDetails resource, Authentication authentication) {
         String authenticationId = keyGenerator.extractKey(resource, authentication);
-        List<OAuthPartnerToken> accessTokens = getOAuthPartnerTokensByAuthenticationId(authenticationId);
+        dynamoDBMapper.delete(OAuthPartnerToken.builder().tokenId(authenticationId).build());
+
+        if (legacyLookupEnabled) {
+            dynamoDBMapper.batchDelete(getLegacyOAuthPartnerTokens(authenticationId));
+        }
+    }
+
+    /**
+     * Move every token saved under its token value to the item keyed by its authentication id, scanning the table.
+     *
+     * @return number of tokens migrated.
+     */
+    @Override
+    public int migrateLegacyTokens() {
+        DynamoDBScanExpression scanExpression = new DynamoDBScanExpression()
+            .withFilterExpression("attribute_not_exists(issuedAt)");
 
-        dynamoDBMapper.batchDelete(accessTokens);
+        int migrated = 0;
+        for (OAuthPartnerToken legacyToken : dynamoDBMapper.scan(OAuthPartnerToken.class, scanExpression,
+            ITERATION_ONLY)) {
+            migrate(legacyToken);
+            migrated++;
+        }
+        return migrated;
     }
 
-    private List<OAuthPartnerToken> getOAuthPartnerTokensByAuthenticationId(String authenticationId) {
-        DynamoDBQueryExpression query = new DynamoDBQueryExpression<OAuthPartnerToken>()
+    /**
+     * Copy a token saved under its token value to the item keyed by its authentication id, unless that item exists,
+     * then delete the legacy item. Migrated tokens get an issue time of 0 so any replacement wins over them.
+     *
+     * @return the token now stored under the authentication id.
+     */
+    private OAuthPartnerToken migrate(OAuthPartnerToken legacyToken) {
+        OAuthPartnerToken partnerToken = legacyToken.toBuilder()
+            .tokenId(legacyToken.getAuthenticationId())
+            .issuedAt(0L)
+            .build();
+
+        DynamoDBSaveExpression saveExpression = new DynamoDBSaveExpression()
+            .withConditionExpression("attribute_not_exists(tokenId)");
+        try {
+            dynamoDBMapper.save(partnerToken, saveExpression);
+        } catch (ConditionalCheckFailedException e) {
+            partnerToken = dynamoDBMapper.load(OAuthPartnerToken.class, legacyToken.getAuthenticationId(),
+                CONSISTENT_READ);
+        }
+
+        dynamoDBMapper.delete(legacyToken);
+        return partnerToken;
+    }
+
+    private static OAuthPartnerToken toPartnerToken(OAuth2ProtectedResourceDetails resource,
+                                                    Authentication authentication,
+                                                    String authenticationId,
+                                                    OAuth2AccessToken accessToken,
+                                                    long issuedAt) {
+        return OAuthPartnerToken.builder()
+            .tokenId(authenticationId)
+            .token(accessToken)
+            .authenticationId(authenticationId)
+            .userName(authentication != null ? authentication.getName() : null)
+            .clientId(resource.getClientId())
+            .issuedAt(issuedAt)
+            .build();
+    }
+
+    /**
+     * Tokens saved under their token value, only reachable through the eventually consistent authenticationId-index.
+     */
+    private List<OAuthPartnerToken> getLegacyOAuthPartnerTokens(String authenticationId) {
+        DynamoDBQueryExpression<OAuthPartnerToken> query = new DynamoDBQueryExpression<OAuthPartnerToken>()
             .withIndexName("authenticationId-index")
             .withConsistentRead(Boolean.FALSE)
             .withHashKeyValues(OAuthPartnerToken.builder()
                 .authenticationId(authenticationId)
-                .build());
+                .build())
+            .withQueryFilterEntry("issuedAt", new Condition().withComparisonOperator(ComparisonOperator.NULL));
         return dynamoDBMapper.query(OAuthPartnerToken.class, query);
     }
 
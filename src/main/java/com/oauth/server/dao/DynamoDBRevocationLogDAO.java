@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dao;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.google.common.collect.ImmutableMap;
+import com.oauth.server.dto.OAuthRevocationEvent;
+import com.oauth.server.token.RevocationLogStore;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A DAO to access the revocation log in DynamoDB.
+ *
+ * <p>
+ * The log is a single partition ordered by sequence. The last sequence handed out is kept in a counter item at
+ * sequence 0 of the same partition, incremented atomically for each append.
+ * </p>
+ */
+public class DynamoDBRevocationLogDAO implements RevocationLogStore {
+
+    private static final String COUNTER_ATTRIBUTE = "lastSequence";
+
+    private DynamoDBMapper dynamoDBMapper;
+
+    private AmazonDynamoDB amazonDynamoDB;
+
+    private String tableName;
+
+    public DynamoDBRevocationLogDAO(DynamoDBMapper dynamoDBMapper, AmazonDynamoDB amazonDynamoDB) {
+        this.dynamoDBMapper = dynamoDBMapper;
+        this.amazonDynamoDB = amazonDynamoDB;
+        this.tableName = dynamoDBMapper.generateDeleteTableRequest(OAuthRevocationEvent.class).getTableName();
+    }
+
+    @Override
+    public OAuthRevocationEvent appendEvent(OAuthRevocationEvent event) {
+        String sequence = amazonDynamoDB.updateItem(new UpdateItemRequest()
+            .withTableName(tableName)
+            .withKey(ImmutableMap.of(
+                "log", new AttributeValue(OAuthRevocationEvent.LOG),
+                "sequence", new AttributeValue().withN("0")))
+            .withUpdateExpression("ADD " + COUNTER_ATTRIBUTE + " :one")
+            .withExpressionAttributeValues(ImmutableMap.of(":one", new AttributeValue().withN("1")))
+            .withReturnValues(ReturnValue.UPDATED_NEW))
+            .getAttributes()
+            .get(COUNTER_ATTRIBUTE)
+            .getN();
+
+        OAuthRevocationEvent appended = event.toBuilder()
+            .sequence(Long.parseLong(sequence))
+            .createdAt(new Date())
+            .build();
+        dynamoDBMapper.save(appended);
+        return appended;
+    }
+
+    @Override
+    public List<OAuthRevocationEvent> findEvents(long afterSequence, int limit) {
+        return dynamoDBMapper.queryPage(OAuthRevocationEvent.class, query(afterSequence)
+            .withScanIndexForward(true)
+            .withLimit(limit))
+            .getResults();
+    }
+
+    @Override
+    public long findLastSequence() {
+        List<OAuthRevocationEvent> last = dynamoDBMapper.queryPage(OAuthRevocationEvent.class, query(0L)
+            .withScanIndexForward(false)
+            .withLimit(1))
+            .getResults();
+        return last.isEmpty() ? 0L : last.get(0).getSequence();
+    }
+
+    private static DynamoDBQueryExpression<OAuthRevocationEvent> query(long afterSequence) {
+        return new DynamoDBQueryExpression<OAuthRevocationEvent>()
+            .withKeyConditionExpression("#log = :log AND #sequence > :after")
+            .withExpressionAttributeNames(ImmutableMap.of("#log", "log", "#sequence", "sequence"))
+            .withExpressionAttributeValues(ImmutableMap.of(
+                ":log", new AttributeValue(OAuthRevocationEvent.LOG),
+                ":after", new AttributeValue().withN(Long.toString(afterSequence))))
+            .withConsistentRead(true);
+    }
+}
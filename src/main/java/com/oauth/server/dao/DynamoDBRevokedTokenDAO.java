@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dao;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.oauth.server.dto.OAuthRevokedToken;
+import com.oauth.server.token.RevokedTokenStore;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DAO to access {@link OAuthRevokedToken} in DynamoDB.
+ */
+public class DynamoDBRevokedTokenDAO implements RevokedTokenStore {
+
+    private DynamoDBMapper dynamoDBMapper;
+
+    public DynamoDBRevokedTokenDAO(DynamoDBMapper dynamoDBMapper) {
+        this.dynamoDBMapper = dynamoDBMapper;
+    }
+
+    @Override
+    public void saveRevokedToken(OAuthRevokedToken revokedToken) {
+        dynamoDBMapper.save(revokedToken);
+    }
+
+    @Override
+    public List<OAuthRevokedToken> findRevokedTokens() {
+        return new ArrayList<>(dynamoDBMapper.scan(OAuthRevokedToken.class, new DynamoDBScanExpression()));
+    }
+}
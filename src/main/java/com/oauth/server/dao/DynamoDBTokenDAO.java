@@ -5,25 +5,25 @@
  */
 package com.oauth.server.dao;
 
+import com.amazonaws.SdkClientException;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.oauth.server.dto.OAuthAccessToken;
 import com.oauth.server.dto.OAuthRefreshToken;
-import java.io.UnsupportedEncodingException;
-import java.math.BigInteger;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import com.oauth.server.token.AuthenticatedTokenStore;
+import com.oauth.server.token.HashingAuthenticationKeyGenerator;
+import com.oauth.server.token.TokenKeyHasher;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
 import org.springframework.security.oauth2.common.OAuth2RefreshToken;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.token.AuthenticationKeyGenerator;
-import org.springframework.security.oauth2.provider.token.DefaultAuthenticationKeyGenerator;
-import org.springframework.security.oauth2.provider.token.TokenStore;
 import org.springframework.security.oauth2.provider.token.store.JdbcTokenStore;
 
 /**
@@ -32,15 +32,22 @@ import org.springframework.security.oauth2.provider.token.store.JdbcTokenStore;
  *
  * @author Lucun Cai
  */
-public class DynamoDBTokenDAO implements TokenStore {
+public class DynamoDBTokenDAO implements AuthenticatedTokenStore {
 
     private final AuthenticationKeyGenerator authenticationKeyGenerator;
 
+    private final TokenKeyHasher tokenKeyHasher;
+
     private final DynamoDBMapper dynamoDBMapper;
 
     public DynamoDBTokenDAO(DynamoDBMapper dynamoDBMapper) {
+        this(dynamoDBMapper, new TokenKeyHasher(TokenKeyHasher.Algorithm.MD5));
+    }
+
+    public DynamoDBTokenDAO(DynamoDBMapper dynamoDBMapper, TokenKeyHasher tokenKeyHasher) {
         this.dynamoDBMapper = dynamoDBMapper;
-        this.authenticationKeyGenerator = new DefaultAuthenticationKeyGenerator();
+        this.tokenKeyHasher = tokenKeyHasher;
+        this.authenticationKeyGenerator = new HashingAuthenticationKeyGenerator(tokenKeyHasher);
     }
 
     public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
@@ -55,38 +62,34 @@ public class DynamoDBTokenDAO implements TokenStore {
 
         List<OAuthAccessToken> accessTokens = dynamoDBMapper.query(OAuthAccessToken.class, query);
 
-        return accessTokens.stream().findAny().map(OAuthAccessToken::getToken).orElse(null);
+        return accessTokens.stream()
+            .filter(accessToken -> !accessToken.hasExpired())
+            .findAny()
+            .map(OAuthAccessToken::getToken)
+            .orElse(null);
 
 
     }
 
     public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
-        String refreshToken = null;
-        if (token.getRefreshToken() != null) {
-            refreshToken = token.getRefreshToken().getValue();
-        }
-
-        OAuthAccessToken accessToken = OAuthAccessToken.builder()
-            .tokenId(extractTokenKey(token.getValue()))
-            .token(token)
-            .authenticationId(authenticationKeyGenerator.extractKey(authentication))
-            .authentication(authentication)
-            .clientId(authentication.getOAuth2Request().getClientId())
-            .refreshToken(extractTokenKey(refreshToken))
-            .userName(StringUtils.isNotBlank(authentication.getName()) ? authentication.getName() : "#")
-            .build();
-
-        dynamoDBMapper.save(accessToken);
+        dynamoDBMapper.save(toAccessToken(token, authentication));
     }
 
     public OAuth2AccessToken readAccessToken(String tokenValue) {
         String tokenId = extractTokenKey(tokenValue);
 
         return Optional.ofNullable(dynamoDBMapper.load(OAuthAccessToken.class, tokenId))
+            .filter(accessToken -> !accessToken.hasExpired())
             .map(OAuthAccessToken::getToken)
             .orElse(null);
     }
 
+    public OAuthAccessToken readAccessTokenAndAuthentication(String tokenValue) {
+        return Optional.ofNullable(dynamoDBMapper.load(OAuthAccessToken.class, extractTokenKey(tokenValue)))
+            .filter(accessToken -> !accessToken.hasExpired())
+            .orElse(null);
+    }
+
     public void removeAccessToken(OAuth2AccessToken token) {
         removeAccessToken(token.getValue());
     }
@@ -105,29 +108,30 @@ public class DynamoDBTokenDAO implements TokenStore {
     public OAuth2Authentication readAuthentication(String token) {
         String tokenId = extractTokenKey(token);
         return Optional.ofNullable(dynamoDBMapper.load(OAuthAccessToken.class, tokenId))
+            .filter(accessToken -> !accessToken.hasExpired())
             .map(OAuthAccessToken::getAuthentication)
             .orElse(null);
     }
 
     public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
-
-        OAuthRefreshToken itemToSave = OAuthRefreshToken.builder()
-            .tokenId(extractTokenKey(refreshToken.getValue()))
-            .token(refreshToken)
-            .authentication(authentication)
-            .build();
-
-        dynamoDBMapper.save(itemToSave);
+        dynamoDBMapper.save(toRefreshToken(refreshToken, authentication));
     }
 
     public OAuth2RefreshToken readRefreshToken(String token) {
         String tokenId = extractTokenKey(token);
 
         return Optional.ofNullable(dynamoDBMapper.load(OAuthRefreshToken.class, tokenId))
+            .filter(refreshToken -> !refreshToken.hasExpired())
             .map(OAuthRefreshToken::getToken)
             .orElse(null);
     }
 
+    public OAuthRefreshToken readRefreshTokenAndAuthentication(String refreshTokenValue) {
+        return Optional.ofNullable(dynamoDBMapper.load(OAuthRefreshToken.class, extractTokenKey(refreshTokenValue)))
+            .filter(refreshToken -> !refreshToken.hasExpired())
+            .orElse(null);
+    }
+
     public void removeRefreshToken(OAuth2RefreshToken token) {
         removeRefreshToken(token.getValue());
     }
@@ -147,6 +151,7 @@ public class DynamoDBTokenDAO implements TokenStore {
         String tokenId = extractTokenKey(value);
 
         return Optional.ofNullable(dynamoDBMapper.load(OAuthRefreshToken.class, tokenId))
+            .filter(refreshToken -> !refreshToken.hasExpired())
             .map(OAuthRefreshToken::getAuthentication)
             .orElse(null);
     }
@@ -156,18 +161,47 @@ public class DynamoDBTokenDAO implements TokenStore {
     }
 
     public void removeAccessTokenUsingRefreshToken(String refreshToken) {
-        String refreshTokenId = extractTokenKey(refreshToken);
+        dynamoDBMapper.batchDelete(findAccessTokenKeysByRefreshToken(refreshToken));
+    }
 
-        DynamoDBQueryExpression query = new DynamoDBQueryExpression<OAuthAccessToken>()
+    /**
+     * Remove the access tokens of the refresh token, store the new access token and replace the refresh token in one
+     * batch write.
+     */
+    public void refreshAccessToken(OAuth2RefreshToken refreshToken, OAuth2AccessToken accessToken,
+                                   OAuth2Authentication authentication) {
+        List<Object> itemsToDelete = new ArrayList<>(findAccessTokenKeysByRefreshToken(refreshToken.getValue()));
+        List<Object> itemsToSave = new ArrayList<>();
+        itemsToSave.add(toAccessToken(accessToken, authentication));
+
+        OAuth2RefreshToken newRefreshToken = accessToken.getRefreshToken();
+        if (newRefreshToken == null || !newRefreshToken.getValue().equals(refreshToken.getValue())) {
+            itemsToDelete.add(OAuthRefreshToken.builder().tokenId(extractTokenKey(refreshToken.getValue())).build());
+            if (newRefreshToken != null) {
+                itemsToSave.add(toRefreshToken(newRefreshToken, authentication));
+            }
+        }
+
+        List<DynamoDBMapper.FailedBatch> failedBatches = dynamoDBMapper.batchWrite(itemsToSave, itemsToDelete);
+        if (!failedBatches.isEmpty()) {
+            throw new SdkClientException("Failed to write refreshed tokens.", failedBatches.get(0).getException());
+        }
+    }
+
+    /**
+     * Keys of the access tokens issued for a refresh token. Only the table key is projected, which is all a delete
+     * needs.
+     */
+    private List<OAuthAccessToken> findAccessTokenKeysByRefreshToken(String refreshToken) {
+        DynamoDBQueryExpression<OAuthAccessToken> query = new DynamoDBQueryExpression<OAuthAccessToken>()
             .withIndexName("refreshToken-index")
             .withConsistentRead(Boolean.FALSE)
+            .withProjectionExpression("tokenId")
             .withHashKeyValues(OAuthAccessToken.builder()
-                .refreshToken(refreshTokenId)
+                .refreshToken(extractTokenKey(refreshToken))
                 .build());
 
-        List<OAuthAccessToken> accessTokens = dynamoDBMapper.query(OAuthAccessToken.class, query);
-
-        dynamoDBMapper.batchDelete(accessTokens);
+        return dynamoDBMapper.query(OAuthAccessToken.class, query);
     }
 
     public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
@@ -179,7 +213,10 @@ public class DynamoDBTokenDAO implements TokenStore {
                 .build());
 
         List<OAuthAccessToken> accessTokens = dynamoDBMapper.query(OAuthAccessToken.class, query);
-        return accessTokens.stream().map(OAuthAccessToken::getToken).collect(Collectors.toList());
+        return accessTokens.stream()
+            .filter(accessToken -> !accessToken.hasExpired())
+            .map(OAuthAccessToken::getToken)
+            .collect(Collectors.toList());
     }
 
     public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
@@ -192,26 +229,44 @@ public class DynamoDBTokenDAO implements TokenStore {
                 .build());
 
         List<OAuthAccessToken> accessTokens = dynamoDBMapper.query(OAuthAccessToken.class, query);
-        return accessTokens.stream().map(OAuthAccessToken::getToken).collect(Collectors.toList());
+        return accessTokens.stream()
+            .filter(accessToken -> !accessToken.hasExpired())
+            .map(OAuthAccessToken::getToken)
+            .collect(Collectors.toList());
     }
 
-    protected String extractTokenKey(String value) {
-        if (value == null) {
-            return null;
-        }
-        MessageDigest digest;
-        try {
-            digest = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("MD5 algorithm not available.  Fatal (should be in the JDK).");
+    private OAuthAccessToken toAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        String refreshToken = null;
+        if (token.getRefreshToken() != null) {
+            refreshToken = token.getRefreshToken().getValue();
         }
 
-        try {
-            byte[] bytes = digest.digest(value.getBytes("UTF-8"));
-            return String.format("%032x", new BigInteger(1, bytes));
-        } catch (UnsupportedEncodingException e) {
-            throw new IllegalStateException("UTF-8 encoding not available.  Fatal (should be in the JDK).");
-        }
+        return OAuthAccessToken.builder()
+            .tokenId(extractTokenKey(token.getValue()))
+            .token(token)
+            .authenticationId(authenticationKeyGenerator.extractKey(authentication))
+            .authentication(authentication)
+            .clientId(authentication.getOAuth2Request().getClientId())
+            .refreshToken(extractTokenKey(refreshToken))
+            .userName(StringUtils.isNotBlank(authentication.getName()) ? authentication.getName() : "#")
+            .expiration(token.getExpiration())
+            .build();
+    }
+
+    private OAuthRefreshToken toRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+        return OAuthRefreshToken.builder()
+            .tokenId(extractTokenKey(refreshToken.getValue()))
+            .token(refreshToken)
+            .authentication(authentication)
+            .clientId(authentication.getOAuth2Request().getClientId())
+            .userName(StringUtils.isNotBlank(authentication.getName()) ? authentication.getName() : "#")
+            .expiration(refreshToken instanceof ExpiringOAuth2RefreshToken
+                ? ((ExpiringOAuth2RefreshToken) refreshToken).getExpiration() : null)
+            .build();
+    }
+
+    protected String extractTokenKey(String value) {
+        return tokenKeyHasher.hash(value);
     }
 
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dao;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableMap;
+import com.oauth.server.dto.CursorPage;
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.token.TokenCursor;
+import com.oauth.server.token.TokenEnumerationStore;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * A DAO enumerating the access tokens of a client in DynamoDB through the clientId-userName-index.
+ */
+public class DynamoDBTokenEnumerationDAO implements TokenEnumerationStore {
+
+    private static final String INDEX_NAME = "clientId-userName-index";
+
+    private DynamoDBMapper dynamoDBMapper;
+
+    public DynamoDBTokenEnumerationDAO(DynamoDBMapper dynamoDBMapper) {
+        this.dynamoDBMapper = dynamoDBMapper;
+    }
+
+    /**
+     * Read one page of the index with a single query request. The cursor is the index key the previous page ended
+     * at.
+     */
+    @Override
+    public CursorPage<OAuthAccessToken> findTokens(String clientId, String userName, String cursor, int pageSize,
+                                                   Set<Field> fields) {
+        DynamoDBQueryExpression<OAuthAccessToken> query = query(clientId, userName, fields)
+            .withLimit(pageSize);
+        if (cursor != null) {
+            TokenCursor position = TokenCursor.decode(cursor);
+            query.setExclusiveStartKey(ImmutableMap.of(
+                "tokenId", new AttributeValue(position.getTokenId()),
+                "clientId", new AttributeValue(clientId),
+                "userName", new AttributeValue(position.getUserName())));
+        }
+
+        QueryResultPage<OAuthAccessToken> page = dynamoDBMapper.queryPage(OAuthAccessToken.class, query);
+        Map<String, AttributeValue> lastEvaluatedKey = page.getLastEvaluatedKey();
+
+        return new CursorPage<>(
+            page.getResults().stream().filter(accessToken -> !accessToken.hasExpired()).collect(Collectors.toList()),
+            lastEvaluatedKey == null ? null : new TokenCursor(lastEvaluatedKey.get("userName").getS(),
+                lastEvaluatedKey.get("tokenId").getS()).encode());
+    }
+
+    /**
+     * Iterate over the index, holding only the page being read in memory.
+     */
+    @Override
+    public void forEachToken(String clientId, String userName, Set<Field> fields, Consumer<OAuthAccessToken> action) {
+        DynamoDBMapperConfig iterationOnly = DynamoDBMapperConfig.builder()
+            .withPaginationLoadingStrategy(PaginationLoadingStrategy.ITERATION_ONLY)
+            .build();
+
+        for (OAuthAccessToken accessToken : dynamoDBMapper.query(OAuthAccessToken.class,
+            query(clientId, userName, fields), iterationOnly)) {
+            if (!accessToken.hasExpired()) {
+                action.accept(accessToken);
+            }
+        }
+    }
+
+    /**
+     * Query of the index projecting the requested fields. Key conditions are given as an expression, as a projection
+     * expression cannot be combined with the legacy key conditions.
+     */
+    private static DynamoDBQueryExpression<OAuthAccessToken> query(String clientId, String userName,
+                                                                   Set<Field> fields) {
+        Map<String, String> attributeNames = new HashMap<>();
+        attributeNames.put("#tokenId", "tokenId");
+        attributeNames.put("#expiration", "expiration");
+        fields.forEach(field -> attributeNames.put("#" + field.getAttributeName(), field.getAttributeName()));
+        String projection = String.join(", ", attributeNames.keySet());
+
+        Map<String, AttributeValue> attributeValues = new HashMap<>();
+        attributeNames.put("#clientId", "clientId");
+        attributeValues.put(":clientId", new AttributeValue(clientId));
+        String keyCondition = "#clientId = :clientId";
+        if (userName != null) {
+            attributeNames.put("#userName", "userName");
+            attributeValues.put(":userName", new AttributeValue(userName));
+            keyCondition += " AND #userName = :userName";
+        }
+
+        return new DynamoDBQueryExpression<OAuthAccessToken>()
+            .withIndexName(INDEX_NAME)
+            .withConsistentRead(Boolean.FALSE)
+            .withKeyConditionExpression(keyCondition)
+            .withProjectionExpression(projection)
+            .withExpressionAttributeNames(attributeNames)
+            .withExpressionAttributeValues(attributeValues);
+    }
+}
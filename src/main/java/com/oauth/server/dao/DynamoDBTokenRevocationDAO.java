@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dao;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ConditionalOperator;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.google.common.collect.ImmutableMap;
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.dto.OAuthRefreshToken;
+import com.oauth.server.dto.OAuthRevocationJob;
+import com.oauth.server.token.TokenRevocationStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DAO for bulk revocation of tokens in DynamoDB. Access and refresh tokens are found through the
+ * clientId-userName-index of their table, or its userName-index for all the tokens of a user.
+ */
+public class DynamoDBTokenRevocationDAO implements TokenRevocationStore {
+
+    private DynamoDBMapper dynamoDBMapper;
+
+    public DynamoDBTokenRevocationDAO(DynamoDBMapper dynamoDBMapper) {
+        this.dynamoDBMapper = dynamoDBMapper;
+    }
+
+    @Override
+    public List<OAuthAccessToken> findTokenKeys(String clientId, String userName, int limit) {
+        return dynamoDBMapper.queryPage(OAuthAccessToken.class,
+            keyQuery(clientId, userName, limit, "tokenId", "refreshToken")).getResults();
+    }
+
+    @Override
+    public List<OAuthRefreshToken> findRefreshTokenKeys(String clientId, String userName, int limit) {
+        return dynamoDBMapper.queryPage(OAuthRefreshToken.class,
+            keyQuery(clientId, userName, limit, "tokenId")).getResults();
+    }
+
+    /**
+     * Query one page of token keys from the matching index. Key conditions are given as an expression, as a projection
+     * expression cannot be combined with the legacy key conditions.
+     */
+    private static <T> DynamoDBQueryExpression<T> keyQuery(String clientId, String userName, int limit,
+                                                           String... projectedAttributes) {
+        Map<String, String> attributeNames = new HashMap<>();
+        List<String> projection = new ArrayList<>();
+        for (String attribute : projectedAttributes) {
+            attributeNames.put("#" + attribute, attribute);
+            projection.add("#" + attribute);
+        }
+        Map<String, AttributeValue> attributeValues = new HashMap<>();
+
+        List<String> keyConditions = new ArrayList<>();
+        if (clientId != null) {
+            attributeNames.put("#clientId", "clientId");
+            attributeValues.put(":clientId", new AttributeValue(clientId));
+            keyConditions.add("#clientId = :clientId");
+        }
+        if (userName != null) {
+            attributeNames.put("#userName", "userName");
+            attributeValues.put(":userName", new AttributeValue(userName));
+            keyConditions.add("#userName = :userName");
+        }
+
+        return new DynamoDBQueryExpression<T>()
+            .withIndexName(clientId == null ? "userName-index" : "clientId-userName-index")
+            .withConsistentRead(Boolean.FALSE)
+            .withKeyConditionExpression(String.join(" AND ", keyConditions))
+            .withProjectionExpression(String.join(", ", projection))
+            .withExpressionAttributeNames(attributeNames)
+            .withExpressionAttributeValues(attributeValues)
+            .withLimit(limit);
+    }
+
+    /**
+     * Delete the access tokens and their refresh tokens with batch writes of up to 25 items.
+     */
+    @Override
+    public void deleteTokens(List<OAuthAccessToken> accessTokens) {
+        List<Object> itemsToDelete = new ArrayList<>();
+        for (OAuthAccessToken accessToken : accessTokens) {
+            itemsToDelete.add(OAuthAccessToken.builder().tokenId(accessToken.getTokenId()).build());
+            if (accessToken.getRefreshToken() != null) {
+                itemsToDelete.add(OAuthRefreshToken.builder().tokenId(accessToken.getRefreshToken()).build());
+            }
+        }
+
+        List<DynamoDBMapper.FailedBatch> failedBatches = dynamoDBMapper.batchDelete(itemsToDelete);
+        if (!failedBatches.isEmpty()) {
+            throw new SdkClientException("Failed to delete revoked tokens.", failedBatches.get(0).getException());
+        }
+    }
+
+    /**
+     * Delete the refresh tokens with batch writes of up to 25 items.
+     */
+    @Override
+    public void deleteRefreshTokens(List<OAuthRefreshToken> refreshTokens) {
+        List<DynamoDBMapper.FailedBatch> failedBatches = dynamoDBMapper.batchDelete(refreshTokens);
+        if (!failedBatches.isEmpty()) {
+            throw new SdkClientException("Failed to delete revoked refresh tokens.",
+                failedBatches.get(0).getException());
+        }
+    }
+
+    @Override
+    public void saveJob(OAuthRevocationJob job) {
+        dynamoDBMapper.save(job);
+    }
+
+    @Override
+    public boolean acquireJob(OAuthRevocationJob job, long now) {
+        return saveJob(job, new DynamoDBSaveExpression()
+            .withExpected(ImmutableMap.of(
+                "owner", new ExpectedAttributeValue()
+                    .withComparisonOperator(ComparisonOperator.NULL),
+                "leaseExpiresAt", new ExpectedAttributeValue()
+                    .withComparisonOperator(ComparisonOperator.LT)
+                    .withAttributeValueList(new AttributeValue().withN(Long.toString(now)))))
+            .withConditionalOperator(ConditionalOperator.OR));
+    }
+
+    @Override
+    public boolean renewJob(OAuthRevocationJob job) {
+        return saveJob(job, new DynamoDBSaveExpression()
+            .withExpected(ImmutableMap.of(
+                "owner", new ExpectedAttributeValue()
+                    .withComparisonOperator(ComparisonOperator.EQ)
+                    .withAttributeValueList(new AttributeValue(job.getOwner())))));
+    }
+
+    private boolean saveJob(OAuthRevocationJob job, DynamoDBSaveExpression condition) {
+        try {
+            dynamoDBMapper.save(job, condition);
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public OAuthRevocationJob loadJob(String jobId) {
+        return dynamoDBMapper.load(OAuthRevocationJob.class, jobId);
+    }
+
+    @Override
+    public List<OAuthRevocationJob> findUnfinishedJobs() {
+        DynamoDBScanExpression scanExpression = new DynamoDBScanExpression()
+            .withScanFilter(Collections.singletonMap("status", new Condition()
+                .withComparisonOperator(ComparisonOperator.IN)
+                .withAttributeValueList(new AttributeValue(OAuthRevocationJob.Status.PENDING.name()),
+                    new AttributeValue(OAuthRevocationJob.Status.RUNNING.name()))));
+
+        return new ArrayList<>(dynamoDBMapper.scan(OAuthRevocationJob.class, scanExpression));
+    }
+}
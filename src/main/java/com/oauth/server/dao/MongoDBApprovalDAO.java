@@ -0,0 +1,62 @@
+package com.oauth.server.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.oauth2.provider.approval.Approval;
+import org.springframework.stereotype.Service;
+
+import com.oauth.server.dto.OAuthApproval;
+import com.oauth.server.repository.OAuthApprovalRepository;
+import com.oauth.server.token.UserApprovalStore;
+
+/**
+ * A DAO to access {@link Approval} in MongoDB, indexed by user id.
+ */
+@Service
+public class MongoDBApprovalDAO implements UserApprovalStore {
+
+	@Autowired
+	private OAuthApprovalRepository oauthApprovalRepository;
+
+    @Override
+    public boolean addApprovals(Collection<Approval> approvals) {
+        oauthApprovalRepository.saveAll(approvals.stream().map(OAuthApproval::of).collect(Collectors.toList()));
+        return true;
+    }
+
+    /**
+     * Revoke approvals, removing their documents with a single command.
+     *
+     * @param approvals approvals to revoke.
+     * @return true.
+     */
+    @Override
+    public boolean revokeApprovals(Collection<Approval> approvals) {
+        List<String> approvalIds = approvals.stream()
+            .map(approval -> OAuthApproval.approvalIdOf(approval.getUserId(), approval.getClientId(),
+                approval.getScope()))
+            .collect(Collectors.toList());
+        oauthApprovalRepository.deleteByApprovalIdIn(approvalIds);
+        return true;
+    }
+
+    @Override
+    public Collection<Approval> getApprovals(String userId, String clientId) {
+        return toApprovals(oauthApprovalRepository.findByUserIdAndClientId(userId, clientId));
+    }
+
+    @Override
+    public Collection<Approval> getApprovalsForUser(String userId) {
+        return toApprovals(oauthApprovalRepository.findByUserId(userId));
+    }
+
+    private static Collection<Approval> toApprovals(List<OAuthApproval> approvals) {
+        return approvals.stream()
+            .filter(approval -> !approval.hasExpired())
+            .map(OAuthApproval::toApproval)
+            .collect(Collectors.toList());
+    }
+}
@@ -1,6 +1,9 @@
 package com.oauth.server.dao;
 
+import java.util.Date;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.code.RandomValueAuthorizationCodeServices;
@@ -16,31 +19,32 @@ public class MongoDBAuthorizationCodeDAO extends RandomValueAuthorizationCodeSer
 	@Autowired
 	private OAuthCodeRepository oauthCodeRepository;
 
+    @Value("${oauth.authorization-code.validity-seconds:600}")
+    private int codeValiditySeconds = DynamoDBAuthorizationCodeDAO.DEFAULT_CODE_VALIDITY_SECONDS;
+
     /**
-     * Store the authorization code for a authenticated user.
+     * Store the authorization code for a authenticated user, expiring after the code validity.
      *
      * @param code authorization code.
      * @param authentication authentication for the user.
      */
     @Override
     protected void store(String code, OAuth2Authentication authentication) {
-        OAuthCode oAuthCode = new OAuthCode(code, authentication);
+        OAuthCode oAuthCode = new OAuthCode(code, authentication,
+            new Date(System.currentTimeMillis() + codeValiditySeconds * 1000L));
         oauthCodeRepository.save(oAuthCode);
     }
 
     /**
-     * Remove/Invalidate the authorization code.
+     * Remove/Invalidate the authorization code. The document is found and removed by a single command, so a code can
+     * only be consumed once.
      *
      * @param code authorization code.
      * @return user authentication.
      */
     @Override
     public OAuth2Authentication remove(String code) {
-    	OAuthCode oauthCode = oauthCodeRepository.findById(code).orElse(null);
-    	if (null != oauthCode) {
-    		oauthCodeRepository.deleteById(code);
-    		return oauthCode.getAuthentication();
-    	}
-        return null;
+        OAuthCode oauthCode = oauthCodeRepository.deleteByCode(code);
+        return oauthCode == null || oauthCode.hasExpired() ? null : oauthCode.getAuthentication();
     }
 }
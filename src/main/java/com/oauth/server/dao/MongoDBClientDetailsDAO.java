@@ -1,34 +1,55 @@
 package com.oauth.server.dao;
 
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.provider.ClientAlreadyExistsException;
 import org.springframework.security.oauth2.provider.ClientDetails;
-import org.springframework.security.oauth2.provider.ClientDetailsService;
-import org.springframework.security.oauth2.provider.ClientRegistrationService;
 import org.springframework.security.oauth2.provider.NoSuchClientException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import com.oauth.server.clientdetails.VersionedClientDetailsService;
+import com.oauth.server.dto.CursorPage;
 import com.oauth.server.dto.OAuthClientDetails;
 import com.oauth.server.repository.OAuthClientDetailsRepository;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
+/**
+ * A DAO to access {@link ClientDetails} in MongoDB. Client versions are handed out by a counter document, incremented
+ * atomically.
+ */
 @RequiredArgsConstructor
 @Service
 @Primary
-public class MongoDBClientDetailsDAO  implements ClientDetailsService, ClientRegistrationService {
-	
+public class MongoDBClientDetailsDAO  implements VersionedClientDetailsService {
+
+    private static final String COUNTER_COLLECTION = "OAuthClientVersion";
+
+    private static final String COUNTER_ID = "clients";
+
 	@Autowired
 	private OAuthClientDetailsRepository oauthClientDetailsRepository;
 
+	@Autowired
+	private MongoOperations mongoOperations;
+
     private final PasswordEncoder passwordEncoder;
 
     /**
@@ -40,11 +61,22 @@ public class MongoDBClientDetailsDAO  implements ClientDetailsService, ClientReg
      */
     @Override
     public ClientDetails loadClientByClientId(String clientId) throws NoSuchClientException {
-        return Optional.ofNullable(oauthClientDetailsRepository.findById(clientId).get())
+        return oauthClientDetailsRepository.findById(clientId)
             .map(OAuthClientDetails::toClientDetails)
             .orElseThrow(() -> new NoSuchClientException("Client: " + clientId + " not found."));
     }
 
+    /**
+     * Load the stored record of a client.
+     *
+     * @param clientId client id.
+     * @return the client record, or null if not found.
+     */
+    @Override
+    public OAuthClientDetails loadOAuthClientDetails(String clientId) {
+        return oauthClientDetailsRepository.findById(clientId).orElse(null);
+    }
+
     /**
      * Add a new {@link ClientDetails} into Database.
      *
@@ -54,7 +86,8 @@ public class MongoDBClientDetailsDAO  implements ClientDetailsService, ClientReg
     @Override
     public void addClientDetails(ClientDetails clientDetails) throws ClientAlreadyExistsException {
 
-        OAuthClientDetails oAuthClientDetails = oauthClientDetailsRepository.findById(clientDetails.getClientId()).get();
+        OAuthClientDetails oAuthClientDetails = oauthClientDetailsRepository.findById(clientDetails.getClientId())
+            .orElse(null);
 
         if (oAuthClientDetails != null) {
             throw new ClientAlreadyExistsException("client already exists: " + clientDetails.getClientId());
@@ -71,7 +104,8 @@ public class MongoDBClientDetailsDAO  implements ClientDetailsService, ClientReg
      */
     @Override
     public void updateClientDetails(@NonNull ClientDetails clientDetails) throws NoSuchClientException {
-        OAuthClientDetails oAuthClientDetails = oauthClientDetailsRepository.findById(clientDetails.getClientId()).get();
+        OAuthClientDetails oAuthClientDetails = oauthClientDetailsRepository.findById(clientDetails.getClientId())
+            .orElse(null);
 
         if (oAuthClientDetails == null) {
             throw new NoSuchClientException("client not exists: " + clientDetails.getClientId());
@@ -85,6 +119,7 @@ public class MongoDBClientDetailsDAO  implements ClientDetailsService, ClientReg
      *
      * @param clientDetails client details.
      */
+    @Override
     public void addOrUpdateClientDetails(@NonNull ClientDetails clientDetails) {
         List<String> autoApproveList = clientDetails.getScope().stream()
             .filter(scope -> clientDetails.isAutoApprove(scope))
@@ -102,6 +137,7 @@ public class MongoDBClientDetailsDAO  implements ClientDetailsService, ClientReg
             .accessTokenValidity(clientDetails.getAccessTokenValiditySeconds())
             .refreshTokenValidity(clientDetails.getRefreshTokenValiditySeconds())
             .autoapprove(StringUtils.collectionToCommaDelimitedString(autoApproveList))
+            .version(nextVersion())
             .build();
 
         oauthClientDetailsRepository.save(oAuthClientDetails);
@@ -116,30 +152,32 @@ public class MongoDBClientDetailsDAO  implements ClientDetailsService, ClientReg
      */
     @Override
     public void updateClientSecret(@NonNull String clientId, @NonNull String secret) throws NoSuchClientException {
-        OAuthClientDetails oAuthClientDetails = oauthClientDetailsRepository.findById(clientId).get();
+        OAuthClientDetails oAuthClientDetails = oauthClientDetailsRepository.findById(clientId).orElse(null);
 
         if (oAuthClientDetails == null) {
             throw new NoSuchClientException("client not exists: " + clientId);
         }
 
         OAuthClientDetails updatedItem = oAuthClientDetails.toBuilder().clientSecret(passwordEncoder.encode(secret))
+            .version(nextVersion())
             .build();
         oauthClientDetailsRepository.save(updatedItem);
     }
 
     /**
-     * Remove a specific client details by clientId.
+     * Remove a specific client details by clientId, then advance the version counter so caches see a change.
      *
      * @param clientId client id.
      */
     @Override
     public void removeClientDetails(@NonNull String clientId) {
-        OAuthClientDetails oAuthClientDetails = oauthClientDetailsRepository.findById(clientId).get();
+        OAuthClientDetails oAuthClientDetails = oauthClientDetailsRepository.findById(clientId).orElse(null);
 
         if (oAuthClientDetails == null) {
         	System.out.println("clientId already deleted: " + clientId);
         } else {
         	oauthClientDetailsRepository.deleteById(clientId);
+        	nextVersion();
         }
     }
 
@@ -155,6 +193,82 @@ public class MongoDBClientDetailsDAO  implements ClientDetailsService, ClientReg
             .map(OAuthClientDetails::toClientDetails)
             .collect(Collectors.toList());
     }
+
+    /**
+     * Current version of every client, reading only the client ids and versions.
+     *
+     * @return versions keyed by client id.
+     */
+    @Override
+    public Map<String, Long> loadClientVersions() {
+        Map<String, Long> versions = new HashMap<>();
+        oauthClientDetailsRepository.findAllVersions()
+            .forEach(client -> versions.put(client.getClientId(), client.getVersion()));
+        return versions;
+    }
+
+    /**
+     * Latest version handed out by the counter document.
+     *
+     * @return the latest version, or 0 if none was handed out yet.
+     */
+    @Override
+    public long loadLatestVersion() {
+        Document counter = mongoOperations.findById(COUNTER_ID, Document.class, COUNTER_COLLECTION);
+        return counter == null ? 0L : ((Number) counter.get("lastVersion")).longValue();
+    }
+
+    /**
+     * Current version of the clients written after a version, reading the version index.
+     *
+     * @param version version the clients were written after.
+     * @return versions keyed by client id.
+     */
+    @Override
+    public Map<String, Long> loadClientVersionsSince(long version) {
+        Map<String, Long> versions = new HashMap<>();
+        oauthClientDetailsRepository.findVersionsAfter(version)
+            .forEach(client -> versions.put(client.getClientId(), client.getVersion()));
+        return versions;
+    }
+
+    /**
+     * List one page of clients in client id order. The cursor is the last client id of the previous page.
+     *
+     * @param cursor cursor returned with the previous page, or null for the first page.
+     * @param pageSize maximum number of clients in the page.
+     * @return a page of client details.
+     */
+    @Override
+    public CursorPage<ClientDetails> listClientDetails(String cursor, int pageSize) {
+        List<OAuthClientDetails> clients = oauthClientDetailsRepository.findByClientIdGreaterThanOrderByClientIdAsc(
+            cursor == null ? "" : cursor, PageRequest.of(0, pageSize));
+
+        return new CursorPage<>(
+            clients.stream().map(OAuthClientDetails::toClientDetails).collect(Collectors.toList()),
+            clients.size() < pageSize ? null : clients.get(clients.size() - 1).getClientId());
+    }
+
+    /**
+     * Visit every client through a single database cursor.
+     *
+     * @param action action run for each client.
+     */
+    @Override
+    public void forEachClientDetails(Consumer<ClientDetails> action) {
+        try (Stream<OAuthClientDetails> clients = oauthClientDetailsRepository.streamAllBy()) {
+            clients.forEach(client -> action.accept(client.toClientDetails()));
+        }
+    }
+
+    private long nextVersion() {
+        Document counter = mongoOperations.findAndModify(
+            Query.query(Criteria.where("_id").is(COUNTER_ID)),
+            new Update().inc("lastVersion", 1L),
+            FindAndModifyOptions.options().returnNew(true).upsert(true),
+            Document.class, COUNTER_COLLECTION);
+        return ((Number) counter.get("lastVersion")).longValue();
+    }
 	
 	
 }
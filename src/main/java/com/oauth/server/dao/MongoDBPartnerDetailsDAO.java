@@ -6,11 +6,15 @@
 package com.oauth.server.dao;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
+import com.oauth.server.dto.CursorPage;
 import com.oauth.server.dto.OAuthPartner;
 import com.oauth.server.repository.OAuthPartnerRepository;
 
@@ -35,7 +39,7 @@ public class MongoDBPartnerDetailsDAO {
      * @return {@link OAuthPartner} or null if not found.
      */
     public OAuthPartner loadPartnerByPartnerId(@NonNull String partnerId) {
-        return oauthPartnerRepository.findById(partnerId).get();
+        return oauthPartnerRepository.findById(partnerId).orElse(null);
     }
 
     /**
@@ -47,6 +51,32 @@ public class MongoDBPartnerDetailsDAO {
         return oauthPartnerRepository.findAll();
     }
 
+    /**
+     * List one page of partners in partner id order. The cursor is the last partner id of the previous page.
+     *
+     * @param cursor cursor returned with the previous page, or null for the first page.
+     * @param pageSize maximum number of partners in the page.
+     * @return a page of {@link OAuthPartner}.
+     */
+    public CursorPage<OAuthPartner> listPartners(String cursor, int pageSize) {
+        List<OAuthPartner> partners = oauthPartnerRepository.findByPartnerIdGreaterThanOrderByPartnerIdAsc(
+            cursor == null ? "" : cursor, PageRequest.of(0, pageSize));
+
+        return new CursorPage<>(partners,
+            partners.size() < pageSize ? null : partners.get(partners.size() - 1).getPartnerId());
+    }
+
+    /**
+     * Visit every partner through a single database cursor.
+     *
+     * @param action action run for each partner.
+     */
+    public void forEachPartner(Consumer<OAuthPartner> action) {
+        try (Stream<OAuthPartner> partners = oauthPartnerRepository.streamAllBy()) {
+            partners.forEach(action);
+        }
+    }
+
     /**
      * Save the {@link OAuthPartner} provided.
      *
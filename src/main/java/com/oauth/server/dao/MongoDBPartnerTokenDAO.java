@@ -5,20 +5,27 @@
  */
 package com.oauth.server.dao;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
 import org.springframework.security.oauth2.client.token.ClientKeyGenerator;
-import org.springframework.security.oauth2.client.token.ClientTokenServices;
-import org.springframework.security.oauth2.client.token.DefaultClientKeyGenerator;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
 import org.springframework.stereotype.Service;
 
 import com.oauth.server.dto.OAuthPartnerToken;
 import com.oauth.server.repository.OAuthPartnerTokenRepository;
+import com.oauth.server.token.HashingClientKeyGenerator;
+import com.oauth.server.token.PartnerTokenStore;
+import com.oauth.server.token.TokenKeyHasher;
 
 /**
  * A DAO to access {@link OAuthPartnerToken} in DynamoDB.
@@ -27,15 +34,37 @@ import com.oauth.server.repository.OAuthPartnerTokenRepository;
  */
 @Service
 @Primary
-public class MongoDBPartnerTokenDAO implements ClientTokenServices {
+public class MongoDBPartnerTokenDAO implements PartnerTokenStore {
 	
 	@Autowired
 	private OAuthPartnerTokenRepository oauthPartnerTokenRepository;
 
-    private ClientKeyGenerator keyGenerator = new DefaultClientKeyGenerator();
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    private final ClientKeyGenerator keyGenerator;
+
+    /**
+     * Whether tokens saved under their token value, before tokens were keyed by authentication id, are still looked up
+     * by authentication id and migrated on read.
+     */
+    @Value("${oauth.partner-token.legacy-lookup.enabled:true}")
+    private boolean legacyLookupEnabled;
+
+    /**
+     * Whether tokens saved under their token value may remain. The lookup by authentication id of these tokens cannot
+     * use an index, as MongoDB partial indexes cannot select documents missing issuedAt, so it is only run until
+     * {@link #migrateLegacyTokens()} has moved them all.
+     */
+    private volatile boolean legacyTokensRemain = true;
+
+    public MongoDBPartnerTokenDAO(TokenKeyHasher tokenKeyHasher) {
+        this.keyGenerator = new HashingClientKeyGenerator(tokenKeyHasher);
+    }
 
     /**
-     * Get the {@link OAuth2AccessToken} of a protected resource for the {@link Authentication} provided.
+     * Get the {@link OAuth2AccessToken} of a protected resource for the {@link Authentication} provided, reading the
+     * document keyed by the authentication id.
      *
      * @param resource partner protected resource.
      * @param authentication user authentication.
@@ -44,9 +73,16 @@ public class MongoDBPartnerTokenDAO implements ClientTokenServices {
     @Override
     public OAuth2AccessToken getAccessToken(OAuth2ProtectedResourceDetails resource, Authentication authentication) {
         String authenticationId = keyGenerator.extractKey(resource, authentication);
-        List<OAuthPartnerToken> accessTokens = getOAuthPartnerTokensByAuthenticationId(authenticationId);
+        OAuthPartnerToken partnerToken = oauthPartnerTokenRepository.findById(authenticationId).orElse(null);
 
-        return accessTokens.stream().findAny().map(OAuthPartnerToken::getToken).orElse(null);
+        if (partnerToken == null && isLegacyLookupNeeded()) {
+            partnerToken = oauthPartnerTokenRepository.findByAuthenticationIdAndIssuedAtIsNull(authenticationId)
+                .stream()
+                .findAny()
+                .map(this::migrate)
+                .orElse(null);
+        }
+        return partnerToken != null ? partnerToken.getToken() : null;
     }
 
     /**
@@ -60,20 +96,55 @@ public class MongoDBPartnerTokenDAO implements ClientTokenServices {
     public void saveAccessToken(OAuth2ProtectedResourceDetails resource,
                                 Authentication authentication,
                                 OAuth2AccessToken accessToken) {
-
-        String userName = authentication != null ? authentication.getName() : null;
+        String authenticationId = keyGenerator.extractKey(resource, authentication);
 
         OAuthPartnerToken oauthPartnerToken = OAuthPartnerToken.builder()
-            .tokenId(accessToken.getValue())
+            .tokenId(authenticationId)
             .token(accessToken)
-            .authenticationId(keyGenerator.extractKey(resource, authentication))
-            .userName(userName)
+            .authenticationId(authenticationId)
+            .userName(authentication != null ? authentication.getName() : null)
             .clientId(resource.getClientId())
+            .issuedAt(System.currentTimeMillis())
             .build();
 
         oauthPartnerTokenRepository.save(oauthPartnerToken);
     }
 
+    /**
+     * Replace the {@link OAuth2AccessToken} of a partner protected resource for the {@link Authentication} provided,
+     * with one upsert of the document keyed by the authentication id. The upsert only matches a document holding an
+     * earlier token; if a newer one is stored, the insert it falls back to fails on the duplicate id.
+     *
+     * @param resource partner protected resource.
+     * @param authentication user authentication.
+     * @param accessToken oauth access token.
+     * @param issuedAt when the partner issued the token, in epoch milliseconds.
+     * @return true if the token was stored, false if a newer token was kept.
+     */
+    @Override
+    public boolean replaceAccessToken(OAuth2ProtectedResourceDetails resource,
+                                      Authentication authentication,
+                                      OAuth2AccessToken accessToken,
+                                      long issuedAt) {
+        String authenticationId = keyGenerator.extractKey(resource, authentication);
+
+        Query query = Query.query(Criteria.where("tokenId").is(authenticationId)
+            .orOperator(Criteria.where("issuedAt").lt(issuedAt), Criteria.where("issuedAt").exists(false)));
+        Update update = new Update()
+            .set("token", accessToken)
+            .set("authenticationId", authenticationId)
+            .set("userName", authentication != null ? authentication.getName() : null)
+            .set("clientId", resource.getClientId())
+            .set("issuedAt", issuedAt);
+
+        try {
+            mongoOperations.upsert(query, update, OAuthPartnerToken.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
     /**
      * Remove the all the access token of the partner protected resource for the {@link Authentication} provided.
      *
@@ -83,12 +154,57 @@ public class MongoDBPartnerTokenDAO implements ClientTokenServices {
     @Override
     public void removeAccessToken(OAuth2ProtectedResourceDetails resource, Authentication authentication) {
         String authenticationId = keyGenerator.extractKey(resource, authentication);
-        List<OAuthPartnerToken> partnerTokens = getOAuthPartnerTokensByAuthenticationId(authenticationId);
-        oauthPartnerTokenRepository.deleteAll(partnerTokens);
+        oauthPartnerTokenRepository.deleteById(authenticationId);
+
+        if (isLegacyLookupNeeded()) {
+            oauthPartnerTokenRepository.deleteAll(
+                oauthPartnerTokenRepository.findByAuthenticationIdAndIssuedAtIsNull(authenticationId));
+        }
     }
 
-    private List<OAuthPartnerToken> getOAuthPartnerTokensByAuthenticationId(String authenticationId) {
-        return oauthPartnerTokenRepository.findByAuthenticationId(authenticationId);
+    /**
+     * Move every token saved under its token value to the document keyed by its authentication id. Once done, tokens
+     * are no longer looked up under their token value, as none are saved that way anymore.
+     *
+     * @return number of tokens migrated.
+     */
+    @Override
+    public int migrateLegacyTokens() {
+        int migrated = 0;
+        try (Stream<OAuthPartnerToken> legacyTokens = oauthPartnerTokenRepository.streamByIssuedAtIsNull()) {
+            for (OAuthPartnerToken legacyToken : (Iterable<OAuthPartnerToken>) legacyTokens::iterator) {
+                migrate(legacyToken);
+                migrated++;
+            }
+        }
+        legacyTokensRemain = false;
+        return migrated;
+    }
+
+    private boolean isLegacyLookupNeeded() {
+        return legacyLookupEnabled && legacyTokensRemain;
+    }
+
+    /**
+     * Copy a token saved under its token value to the document keyed by its authentication id, unless that document
+     * exists, then delete the legacy document. Migrated tokens get an issue time of 0 so any replacement wins.
+     *
+     * @return the token now stored under the authentication id.
+     */
+    private OAuthPartnerToken migrate(OAuthPartnerToken legacyToken) {
+        OAuthPartnerToken partnerToken = legacyToken.toBuilder()
+            .tokenId(legacyToken.getAuthenticationId())
+            .issuedAt(0L)
+            .build();
+
+        try {
+            oauthPartnerTokenRepository.insert(partnerToken);
+        } catch (DuplicateKeyException e) {
+            partnerToken = oauthPartnerTokenRepository.findById(legacyToken.getAuthenticationId()).orElse(null);
+        }
+
+        oauthPartnerTokenRepository.delete(legacyToken);
+        return partnerToken;
     }
 
 }
@@ -0,0 +1,61 @@
+package com.oauth.server.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.oauth.server.dto.OAuthRevocationEvent;
+import com.oauth.server.repository.OAuthRevocationEventRepository;
+import com.oauth.server.token.RevocationLogStore;
+
+/**
+ * A DAO to access the revocation log in MongoDB. The last sequence handed out is kept in a counter document,
+ * incremented atomically for each append.
+ */
+@Service
+public class MongoDBRevocationLogDAO implements RevocationLogStore {
+
+    private static final String COUNTER_COLLECTION = "OAuthRevocationSequence";
+
+	@Autowired
+	private OAuthRevocationEventRepository oauthRevocationEventRepository;
+
+	@Autowired
+	private MongoOperations mongoOperations;
+
+    @Override
+    public OAuthRevocationEvent appendEvent(OAuthRevocationEvent event) {
+        Document counter = mongoOperations.findAndModify(
+            Query.query(Criteria.where("_id").is(OAuthRevocationEvent.LOG)),
+            new Update().inc("lastSequence", 1L),
+            FindAndModifyOptions.options().returnNew(true).upsert(true),
+            Document.class, COUNTER_COLLECTION);
+
+        OAuthRevocationEvent appended = event.toBuilder()
+            .sequence(((Number) counter.get("lastSequence")).longValue())
+            .createdAt(new Date())
+            .build();
+        return oauthRevocationEventRepository.save(appended);
+    }
+
+    @Override
+    public List<OAuthRevocationEvent> findEvents(long afterSequence, int limit) {
+        return oauthRevocationEventRepository.findBySequenceGreaterThanOrderBySequenceAsc(afterSequence,
+            PageRequest.of(0, limit));
+    }
+
+    @Override
+    public long findLastSequence() {
+        OAuthRevocationEvent last = oauthRevocationEventRepository.findTopByOrderBySequenceDesc();
+        return last == null ? 0L : last.getSequence();
+    }
+}
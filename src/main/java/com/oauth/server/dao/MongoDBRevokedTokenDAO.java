@@ -0,0 +1,30 @@
+package com.oauth.server.dao;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.oauth.server.dto.OAuthRevokedToken;
+import com.oauth.server.repository.OAuthRevokedTokenRepository;
+import com.oauth.server.token.RevokedTokenStore;
+
+/**
+ * A DAO to access {@link OAuthRevokedToken} in MongoDB.
+ */
+@Service
+public class MongoDBRevokedTokenDAO implements RevokedTokenStore {
+
+	@Autowired
+	private OAuthRevokedTokenRepository oauthRevokedTokenRepository;
+
+    @Override
+    public void saveRevokedToken(OAuthRevokedToken revokedToken) {
+        oauthRevokedTokenRepository.save(revokedToken);
+    }
+
+    @Override
+    public List<OAuthRevokedToken> findRevokedTokens() {
+        return oauthRevokedTokenRepository.findAll();
+    }
+}
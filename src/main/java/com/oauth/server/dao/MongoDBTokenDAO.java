@@ -1,73 +1,73 @@
 package com.oauth.server.dao;
 
-import java.io.UnsupportedEncodingException;
-import java.math.BigInteger;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
 import org.springframework.security.oauth2.common.OAuth2RefreshToken;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.token.AuthenticationKeyGenerator;
-import org.springframework.security.oauth2.provider.token.DefaultAuthenticationKeyGenerator;
-import org.springframework.security.oauth2.provider.token.TokenStore;
 import org.springframework.stereotype.Service;
 
 import com.oauth.server.dto.OAuthAccessToken;
 import com.oauth.server.dto.OAuthRefreshToken;
 import com.oauth.server.repository.OAuthAccessTokenRepository;
 import com.oauth.server.repository.OAuthoRefreshTokenRepository;
+import com.oauth.server.token.AuthenticatedTokenStore;
+import com.oauth.server.token.HashingAuthenticationKeyGenerator;
+import com.oauth.server.token.TokenKeyHasher;
 
 @Service
 @Primary
-public class MongoDBTokenDAO implements TokenStore {
+public class MongoDBTokenDAO implements AuthenticatedTokenStore {
 
-    private final AuthenticationKeyGenerator authenticationKeyGenerator = new DefaultAuthenticationKeyGenerator();
+    private final AuthenticationKeyGenerator authenticationKeyGenerator;
+
+    private final TokenKeyHasher tokenKeyHasher;
 
     @Autowired
     private OAuthAccessTokenRepository oauthAccessTokenRepository;
     @Autowired
     private OAuthoRefreshTokenRepository oauthoRefreshTokenRepository;
 
+    public MongoDBTokenDAO(TokenKeyHasher tokenKeyHasher) {
+        this.tokenKeyHasher = tokenKeyHasher;
+        this.authenticationKeyGenerator = new HashingAuthenticationKeyGenerator(tokenKeyHasher);
+    }
+
     public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
         String authenticationId = authenticationKeyGenerator.extractKey(authentication);
         List<OAuthAccessToken> accessTokens = oauthAccessTokenRepository.findByAuthenticationId(authenticationId);
-        return accessTokens.stream().findAny().map(OAuthAccessToken::getToken).orElse(null);
+        return accessTokens.stream()
+            .filter(accessToken -> !accessToken.hasExpired())
+            .findAny()
+            .map(OAuthAccessToken::getToken)
+            .orElse(null);
     }
 
     public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
-        String refreshToken = null;
-        if (token.getRefreshToken() != null) {
-            refreshToken = token.getRefreshToken().getValue();
-        }
-
-        OAuthAccessToken accessToken = OAuthAccessToken.builder()
-            .tokenId(extractTokenKey(token.getValue()))
-            .token(token)
-            .authenticationId(authenticationKeyGenerator.extractKey(authentication))
-            .authentication(authentication)
-            .clientId(authentication.getOAuth2Request().getClientId())
-            .refreshToken(extractTokenKey(refreshToken))
-            .userName(StringUtils.isNotBlank(authentication.getName()) ? authentication.getName() : "#")
-            .build();
-
-        oauthAccessTokenRepository.save(accessToken);
+        oauthAccessTokenRepository.save(toAccessToken(token, authentication));
     }
 
     public OAuth2AccessToken readAccessToken(String tokenValue) {
         String tokenId = extractTokenKey(tokenValue);
-        return Optional.ofNullable(oauthAccessTokenRepository.findById(tokenId).get())
+        return oauthAccessTokenRepository.findById(tokenId)
+            .filter(accessToken -> !accessToken.hasExpired())
             .map(OAuthAccessToken::getToken)
             .orElse(null);
     }
 
+    public OAuthAccessToken readAccessTokenAndAuthentication(String tokenValue) {
+        return oauthAccessTokenRepository.findById(extractTokenKey(tokenValue))
+            .filter(accessToken -> !accessToken.hasExpired())
+            .orElse(null);
+    }
+
     public void removeAccessToken(OAuth2AccessToken token) {
         removeAccessToken(token.getValue());
     }
@@ -83,30 +83,31 @@ public class MongoDBTokenDAO implements TokenStore {
 
     public OAuth2Authentication readAuthentication(String token) {
         String tokenId = extractTokenKey(token);
-        return Optional.ofNullable(oauthAccessTokenRepository.findById(tokenId).get())
+        return oauthAccessTokenRepository.findById(tokenId)
+            .filter(accessToken -> !accessToken.hasExpired())
             .map(OAuthAccessToken::getAuthentication)
             .orElse(null);
     }
 
     public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
-
-        OAuthRefreshToken itemToSave = OAuthRefreshToken.builder()
-            .tokenId(extractTokenKey(refreshToken.getValue()))
-            .token(refreshToken)
-            .authentication(authentication)
-            .build();
-
-        oauthoRefreshTokenRepository.save(itemToSave);
+        oauthoRefreshTokenRepository.save(toRefreshToken(refreshToken, authentication));
     }
 
     public OAuth2RefreshToken readRefreshToken(String token) {
         String tokenId = extractTokenKey(token);
 
-        return Optional.ofNullable(oauthoRefreshTokenRepository.findById(tokenId).get())
+        return oauthoRefreshTokenRepository.findById(tokenId)
+            .filter(refreshToken -> !refreshToken.hasExpired())
             .map(OAuthRefreshToken::getToken)
             .orElse(null);
     }
 
+    public OAuthRefreshToken readRefreshTokenAndAuthentication(String refreshTokenValue) {
+        return oauthoRefreshTokenRepository.findById(extractTokenKey(refreshTokenValue))
+            .filter(refreshToken -> !refreshToken.hasExpired())
+            .orElse(null);
+    }
+
     public void removeRefreshToken(OAuth2RefreshToken token) {
         removeRefreshToken(token.getValue());
     }
@@ -122,7 +123,8 @@ public class MongoDBTokenDAO implements TokenStore {
 
     public OAuth2Authentication readAuthenticationForRefreshToken(String value) {
         String tokenId = extractTokenKey(value);
-        return Optional.ofNullable(oauthoRefreshTokenRepository.findById(tokenId).get())
+        return oauthoRefreshTokenRepository.findById(tokenId)
+            .filter(refreshToken -> !refreshToken.hasExpired())
             .map(OAuthRefreshToken::getAuthentication)
             .orElse(null);
     }
@@ -132,17 +134,26 @@ public class MongoDBTokenDAO implements TokenStore {
     }
 
     public void removeAccessTokenUsingRefreshToken(String refreshToken) {
-		/*
-		 * String refreshTokenId = extractTokenKey(refreshToken);
-		 * DynamoDBQueryExpression query = new
-		 * DynamoDBQueryExpression<OAuthAccessToken>()
-		 * .withIndexName("refreshToken-index") .withConsistentRead(Boolean.FALSE)
-		 * .withHashKeyValues(OAuthAccessToken.builder() .refreshToken(refreshTokenId)
-		 * .build());
-		 * dynamoDBMapper.batchDelete(accessTokens);
-		 */
-		 oauthAccessTokenRepository.deleteByRefreshToken(refreshToken);
+        oauthAccessTokenRepository.deleteByRefreshToken(extractTokenKey(refreshToken));
+    }
+
+    /**
+     * Remove the access tokens of the refresh token server side, then store the new access token and replace the
+     * refresh token.
+     */
+    public void refreshAccessToken(OAuth2RefreshToken refreshToken, OAuth2AccessToken accessToken,
+                                   OAuth2Authentication authentication) {
+        oauthAccessTokenRepository.deleteByRefreshToken(extractTokenKey(refreshToken.getValue()));
+
+        OAuth2RefreshToken newRefreshToken = accessToken.getRefreshToken();
+        if (newRefreshToken == null || !newRefreshToken.getValue().equals(refreshToken.getValue())) {
+            oauthoRefreshTokenRepository.deleteById(extractTokenKey(refreshToken.getValue()));
+            if (newRefreshToken != null) {
+                oauthoRefreshTokenRepository.save(toRefreshToken(newRefreshToken, authentication));
+            }
+        }
 
+        oauthAccessTokenRepository.save(toAccessToken(accessToken, authentication));
     }
 
     public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
@@ -154,7 +165,10 @@ public class MongoDBTokenDAO implements TokenStore {
 //                .build());
 
         List<OAuthAccessToken> accessTokens = oauthAccessTokenRepository.findByClientId(clientId);
-        return accessTokens.stream().map(OAuthAccessToken::getToken).collect(Collectors.toList());
+        return accessTokens.stream()
+            .filter(accessToken -> !accessToken.hasExpired())
+            .map(OAuthAccessToken::getToken)
+            .collect(Collectors.toList());
     }
 
     public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
@@ -167,26 +181,44 @@ public class MongoDBTokenDAO implements TokenStore {
 //                .build());
 
     	List<OAuthAccessToken> accessTokens = oauthAccessTokenRepository.findByClientIdAndUserName(clientId, userName);
-        return accessTokens.stream().map(OAuthAccessToken::getToken).collect(Collectors.toList());
+        return accessTokens.stream()
+            .filter(accessToken -> !accessToken.hasExpired())
+            .map(OAuthAccessToken::getToken)
+            .collect(Collectors.toList());
     }
 
-    protected String extractTokenKey(String value) {
-        if (value == null) {
-            return null;
-        }
-        MessageDigest digest;
-        try {
-            digest = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("MD5 algorithm not available.  Fatal (should be in the JDK).");
+    private OAuthAccessToken toAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        String refreshToken = null;
+        if (token.getRefreshToken() != null) {
+            refreshToken = token.getRefreshToken().getValue();
         }
 
-        try {
-            byte[] bytes = digest.digest(value.getBytes("UTF-8"));
-            return String.format("%032x", new BigInteger(1, bytes));
-        } catch (UnsupportedEncodingException e) {
-            throw new IllegalStateException("UTF-8 encoding not available.  Fatal (should be in the JDK).");
-        }
+        return OAuthAccessToken.builder()
+            .tokenId(extractTokenKey(token.getValue()))
+            .token(token)
+            .authenticationId(authenticationKeyGenerator.extractKey(authentication))
+            .authentication(authentication)
+            .clientId(authentication.getOAuth2Request().getClientId())
+            .refreshToken(extractTokenKey(refreshToken))
+            .userName(StringUtils.isNotBlank(authentication.getName()) ? authentication.getName() : "#")
+            .expiration(token.getExpiration())
+            .build();
+    }
+
+    private OAuthRefreshToken toRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+        return OAuthRefreshToken.builder()
+            .tokenId(extractTokenKey(refreshToken.getValue()))
+            .token(refreshToken)
+            .authentication(authentication)
+            .clientId(authentication.getOAuth2Request().getClientId())
+            .userName(StringUtils.isNotBlank(authentication.getName()) ? authentication.getName() : "#")
+            .expiration(refreshToken instanceof ExpiringOAuth2RefreshToken
+                ? ((ExpiringOAuth2RefreshToken) refreshToken).getExpiration() : null)
+            .build();
+    }
+
+    protected String extractTokenKey(String value) {
+        return tokenKeyHasher.hash(value);
     }
 
 }
@@ -0,0 +1,94 @@
+package com.oauth.server.dao;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import com.oauth.server.dto.CursorPage;
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.token.TokenCursor;
+import com.oauth.server.token.TokenEnumerationStore;
+
+/**
+ * A DAO enumerating the access tokens of a client in MongoDB, in the order of the clientId, userName, _id index.
+ */
+@Service
+public class MongoDBTokenEnumerationDAO implements TokenEnumerationStore {
+
+	@Autowired
+	private MongoOperations mongoOperations;
+
+    /**
+     * Read one page with a single query, starting after the user name and token id the previous page ended at.
+     */
+    @Override
+    public CursorPage<OAuthAccessToken> findTokens(String clientId, String userName, String cursor, int pageSize,
+                                                   Set<Field> fields) {
+        Criteria criteria = Criteria.where("clientId").is(clientId);
+        if (userName != null) {
+            criteria.and("userName").is(userName);
+        }
+        if (cursor != null) {
+            TokenCursor position = TokenCursor.decode(cursor);
+            if (userName != null) {
+                criteria.and("tokenId").gt(position.getTokenId());
+            } else {
+                criteria.orOperator(
+                    Criteria.where("userName").gt(position.getUserName()),
+                    Criteria.where("userName").is(position.getUserName()).and("tokenId").gt(position.getTokenId()));
+            }
+        }
+
+        List<OAuthAccessToken> accessTokens = mongoOperations.find(query(criteria, fields).limit(pageSize),
+            OAuthAccessToken.class);
+
+        String nextCursor = null;
+        if (accessTokens.size() == pageSize) {
+            OAuthAccessToken last = accessTokens.get(accessTokens.size() - 1);
+            nextCursor = new TokenCursor(last.getUserName(), last.getTokenId()).encode();
+        }
+        return new CursorPage<>(
+            accessTokens.stream().filter(accessToken -> !accessToken.hasExpired()).collect(Collectors.toList()),
+            nextCursor);
+    }
+
+    /**
+     * Iterate over the tokens through a single database cursor.
+     */
+    @Override
+    public void forEachToken(String clientId, String userName, Set<Field> fields, Consumer<OAuthAccessToken> action) {
+        Criteria criteria = Criteria.where("clientId").is(clientId);
+        if (userName != null) {
+            criteria.and("userName").is(userName);
+        }
+
+        try (CloseableIterator<OAuthAccessToken> accessTokens = mongoOperations.stream(query(criteria, fields),
+            OAuthAccessToken.class)) {
+            while (accessTokens.hasNext()) {
+                OAuthAccessToken accessToken = accessTokens.next();
+                if (!accessToken.hasExpired()) {
+                    action.accept(accessToken);
+                }
+            }
+        }
+    }
+
+    /**
+     * Query projecting the requested fields, plus the user name the cursor is made of.
+     */
+    private static Query query(Criteria criteria, Set<Field> fields) {
+        Query query = new Query(criteria).with(Sort.by("userName", "tokenId"));
+        query.fields().include("userName").include("expiration");
+        fields.forEach(field -> query.fields().include(field.getAttributeName()));
+        return query;
+    }
+}
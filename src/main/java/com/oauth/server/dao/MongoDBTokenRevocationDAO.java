@@ -0,0 +1,134 @@
+package com.oauth.server.dao;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.dto.OAuthRefreshToken;
+import com.oauth.server.dto.OAuthRevocationJob;
+import com.oauth.server.repository.OAuthAccessTokenRepository;
+import com.oauth.server.repository.OAuthRevocationJobRepository;
+import com.oauth.server.repository.OAuthoRefreshTokenRepository;
+import com.oauth.server.token.TokenRevocationStore;
+
+/**
+ * A DAO for bulk revocation of tokens in MongoDB.
+ */
+@Service
+public class MongoDBTokenRevocationDAO implements TokenRevocationStore {
+
+	@Autowired
+	private OAuthAccessTokenRepository oauthAccessTokenRepository;
+
+	@Autowired
+	private OAuthoRefreshTokenRepository oauthoRefreshTokenRepository;
+
+	@Autowired
+	private OAuthRevocationJobRepository oauthRevocationJobRepository;
+
+	@Autowired
+	private MongoOperations mongoOperations;
+
+    @Override
+    public List<OAuthAccessToken> findTokenKeys(String clientId, String userName, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        if (clientId == null) {
+            return oauthAccessTokenRepository.findKeysByUserName(userName, page);
+        } else if (userName == null) {
+            return oauthAccessTokenRepository.findKeysByClientId(clientId, page);
+        }
+        return oauthAccessTokenRepository.findKeysByClientIdAndUserName(clientId, userName, page);
+    }
+
+    /**
+     * Delete the access tokens, then their refresh tokens, each with a single command.
+     */
+    @Override
+    public void deleteTokens(List<OAuthAccessToken> accessTokens) {
+        oauthAccessTokenRepository.deleteByTokenIdIn(accessTokens.stream()
+            .map(OAuthAccessToken::getTokenId)
+            .collect(Collectors.toList()));
+
+        List<String> refreshTokenIds = accessTokens.stream()
+            .map(OAuthAccessToken::getRefreshToken)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        if (!refreshTokenIds.isEmpty()) {
+            oauthoRefreshTokenRepository.deleteByTokenIdIn(refreshTokenIds);
+        }
+    }
+
+    @Override
+    public List<OAuthRefreshToken> findRefreshTokenKeys(String clientId, String userName, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        if (clientId == null) {
+            return oauthoRefreshTokenRepository.findKeysByUserName(userName, page);
+        } else if (userName == null) {
+            return oauthoRefreshTokenRepository.findKeysByClientId(clientId, page);
+        }
+        return oauthoRefreshTokenRepository.findKeysByClientIdAndUserName(clientId, userName, page);
+    }
+
+    /**
+     * Delete the refresh tokens with a single command.
+     */
+    @Override
+    public void deleteRefreshTokens(List<OAuthRefreshToken> refreshTokens) {
+        oauthoRefreshTokenRepository.deleteByTokenIdIn(refreshTokens.stream()
+            .map(OAuthRefreshToken::getTokenId)
+            .collect(Collectors.toList()));
+    }
+
+    @Override
+    public void saveJob(OAuthRevocationJob job) {
+        oauthRevocationJobRepository.save(job);
+    }
+
+    @Override
+    public boolean acquireJob(OAuthRevocationJob job, long now) {
+        Criteria unleased = Criteria.where("_id").is(job.getJobId())
+            .orOperator(Criteria.where("owner").is(null), Criteria.where("leaseExpiresAt").lt(now));
+        return updateJob(job, unleased);
+    }
+
+    @Override
+    public boolean renewJob(OAuthRevocationJob job) {
+        return updateJob(job, Criteria.where("_id").is(job.getJobId()).and("owner").is(job.getOwner()));
+    }
+
+    /**
+     * Write the mutable fields of a job with a single conditional update.
+     */
+    private boolean updateJob(OAuthRevocationJob job, Criteria condition) {
+        Update update = Update.update("status", job.getStatus())
+            .set("revokedTokens", job.getRevokedTokens())
+            .set("revokedRefreshTokens", job.getRevokedRefreshTokens())
+            .set("error", job.getError())
+            .set("updatedAt", job.getUpdatedAt())
+            .set("owner", job.getOwner())
+            .set("leaseExpiresAt", job.getLeaseExpiresAt());
+        return mongoOperations.updateFirst(Query.query(condition), update, OAuthRevocationJob.class)
+            .getMatchedCount() > 0;
+    }
+
+    @Override
+    public OAuthRevocationJob loadJob(String jobId) {
+        return oauthRevocationJobRepository.findById(jobId).orElse(null);
+    }
+
+    @Override
+    public List<OAuthRevocationJob> findUnfinishedJobs() {
+        return oauthRevocationJobRepository.findByStatusIn(
+            Arrays.asList(OAuthRevocationJob.Status.PENDING, OAuthRevocationJob.Status.RUNNING));
+    }
+}
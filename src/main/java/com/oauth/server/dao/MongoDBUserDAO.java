@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import com.oauth.server.authentication.ImmutableUserDetails;
+import com.oauth.server.authentication.UserDirectory;
+import com.oauth.server.dto.OAuthUser;
+import com.oauth.server.repository.OAuthUserRepository;
+
+/**
+ * A {@link UserDirectory} of the {@link OAuthUser} in MongoDB.
+ */
+@Service
+public class MongoDBUserDAO implements UserDirectory {
+
+    @Autowired
+    private OAuthUserRepository oauthUserRepository;
+
+    /**
+     * Find a user by username, reading the document with that id.
+     *
+     * @param username username.
+     * @return the user, or null if not found.
+     */
+    @Override
+    public UserDetails findByUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+
+        return oauthUserRepository.findById(username)
+            .map(user -> new ImmutableUserDetails(user.getUsername(), user.getPassword(),
+                AuthorityUtils.commaSeparatedStringToAuthorityList(
+                    user.getAuthorities() != null ? user.getAuthorities() : ""),
+                !Boolean.TRUE.equals(user.getDisabled())))
+            .orElse(null);
+    }
+
+    /**
+     * Save the {@link OAuthUser} provided.
+     *
+     * @param user {@link OAuthUser}
+     */
+    public void saveUser(OAuthUser user) {
+        oauthUserRepository.save(user);
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * One page of a listing, with the cursor to read the following page from.
+ *
+ * @param <T> item type.
+ */
+@Value
+public class CursorPage<T> {
+
+    List<T> items;
+
+    /**
+     * Opaque cursor of the next page, or null if this is the last page.
+     */
+    String nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverter;
+import java.util.Date;
+
+/**
+ * Convert a {@link Date} to epoch seconds, the number format DynamoDB time to live reads. Dates are rounded up so an
+ * item is never removed before its expiration.
+ */
+public class EpochSecondsConverter implements DynamoDBTypeConverter<Long, Date> {
+
+    @Override
+    public Long convert(Date date) {
+        return (date.getTime() + 999L) / 1000L;
+    }
+
+    @Override
+    public Date unconvert(Long epochSeconds) {
+        return new Date(epochSeconds * 1000L);
+    }
+}
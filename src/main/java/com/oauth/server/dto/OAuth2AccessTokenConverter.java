@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverter;
+import com.amazonaws.util.Base64;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+
+/**
+ * This is a DynamoDBTypeConverter that converts between OAuth2AccessToken to String.
+ *
+ * <p>
+ * Tokens are written in the {@link OAuthBinaryCodec} encoding. Items written before that hold the token as JSON
+ * and are still read.
+ * </p>
+ */
+public class OAuth2AccessTokenConverter implements DynamoDBTypeConverter<String, OAuth2AccessToken> {
+
+    private static final ObjectMapper LEGACY_MAPPER = new ObjectMapper();
+
+    @Override
+    public String convert(final OAuth2AccessToken accessToken) {
+        byte[] bytes = OAuthBinaryCodec.DEFAULT.encodeAccessToken(accessToken);
+        return new String(Base64.encode(bytes));
+    }
+
+    @Override
+    public OAuth2AccessToken unconvert(final String accessTokenString) {
+        if (accessTokenString.startsWith("{")) {
+            try {
+                return LEGACY_MAPPER.readValue(accessTokenString, OAuth2AccessToken.class);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Unable to read legacy access token.", e);
+            }
+        }
+        return OAuthBinaryCodec.DEFAULT.decodeAccessToken(Base64.decode(accessTokenString.getBytes()));
+    }
+}
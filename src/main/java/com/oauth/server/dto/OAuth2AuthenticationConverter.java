@@ -13,19 +13,37 @@ import org.springframework.security.oauth2.provider.OAuth2Authentication;
 /**
  * This is a DynamoDBTypeConverter that converts between OAuth2Authentication to String.
  *
+ * <p>
+ * Authentications are written in the {@link OAuthBinaryCodec} encoding. Items written before that, which hold Java
+ * serialized authentications, are still read so they can be migrated as they are rewritten.
+ * </p>
+ *
  * @author Lucun Cai
  */
 public class OAuth2AuthenticationConverter implements DynamoDBTypeConverter<String, OAuth2Authentication> {
 
     @Override
     public String convert(final OAuth2Authentication authentication) {
-        byte[] bytes = SerializationUtils.serialize(authentication);
+        byte[] bytes = OAuthBinaryCodec.DEFAULT.encodeAuthentication(authentication);
         return new String(Base64.encode(bytes));
     }
 
     @Override
     public OAuth2Authentication unconvert(final String authenticationString) {
         byte[] bytes = Base64.decode(authenticationString.getBytes());
+        return decode(bytes);
+    }
+
+    /**
+     * Decode an authentication in either the binary encoding or the legacy Java serialization.
+     *
+     * @param bytes encoded authentication.
+     * @return authentication.
+     */
+    static OAuth2Authentication decode(final byte[] bytes) {
+        if (OAuthBinaryCodec.isEncoded(bytes)) {
+            return OAuthBinaryCodec.DEFAULT.decodeAuthentication(bytes);
+        }
         return SerializationUtils.deserialize(bytes);
     }
 }
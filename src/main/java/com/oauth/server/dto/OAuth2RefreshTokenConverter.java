@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverter;
+import com.amazonaws.util.Base64;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+
+/**
+ * This is a DynamoDBTypeConverter that converts between OAuth2RefreshToken to String.
+ *
+ * <p>
+ * Tokens are written in the {@link OAuthBinaryCodec} encoding, which keeps the expiration of expiring refresh tokens.
+ * Items written before that hold the token as JSON and are still read.
+ * </p>
+ */
+public class OAuth2RefreshTokenConverter implements DynamoDBTypeConverter<String, OAuth2RefreshToken> {
+
+    private static final ObjectMapper LEGACY_MAPPER = new ObjectMapper();
+
+    @Override
+    public String convert(final OAuth2RefreshToken refreshToken) {
+        byte[] bytes = OAuthBinaryCodec.DEFAULT.encodeRefreshToken(refreshToken);
+        return new String(Base64.encode(bytes));
+    }
+
+    @Override
+    public OAuth2RefreshToken unconvert(final String refreshTokenString) {
+        if (refreshTokenString.startsWith("\"") || refreshTokenString.startsWith("{")) {
+            try {
+                JsonNode node = LEGACY_MAPPER.readTree(refreshTokenString);
+                return new DefaultOAuth2RefreshToken(node.isObject() ? node.path("value").asText() : node.asText());
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Unable to read legacy refresh token.", e);
+            }
+        }
+        return OAuthBinaryCodec.DEFAULT.decodeRefreshToken(Base64.decode(refreshTokenString.getBytes()));
+    }
+}
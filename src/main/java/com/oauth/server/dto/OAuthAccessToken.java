@@ -10,7 +10,7 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexHashKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexRangeKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverted;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConvertedJson;
+import java.util.Date;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,6 +19,8 @@ import lombok.NoArgsConstructor;
 import lombok.experimental.FieldDefaults;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
@@ -35,12 +37,13 @@ import org.springframework.security.oauth2.provider.OAuth2Authentication;
 @AllArgsConstructor
 @DynamoDBTable(tableName = "OAuthAccessToken")
 @Document(value = "OAuthAccessToken")
+@CompoundIndex(def = "{'clientId': 1, 'userName': 1, '_id': 1}")
 public class OAuthAccessToken {
     @DynamoDBHashKey
     @Id
     String tokenId;
 
-    @DynamoDBTypeConvertedJson
+    @DynamoDBTypeConverted(converter = OAuth2AccessTokenConverter.class)
     OAuth2AccessToken token;
 
     @DynamoDBIndexHashKey(globalSecondaryIndexName = "authenticationId-index")
@@ -50,6 +53,8 @@ public class OAuthAccessToken {
     String clientId;
 
     @DynamoDBIndexRangeKey(globalSecondaryIndexName = "clientId-userName-index")
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = "userName-index")
+    @Indexed
     String userName;
 
     @DynamoDBTypeConverted(converter = OAuth2AuthenticationConverter.class)
@@ -58,4 +63,21 @@ public class OAuthAccessToken {
     @DynamoDBIndexHashKey(globalSecondaryIndexName = "refreshToken-index")
     String refreshToken;
 
+    /**
+     * When the record expires. DynamoDB time to live and the MongoDB TTL index remove the record after this time.
+     */
+    @DynamoDBTypeConverted(converter = EpochSecondsConverter.class)
+    @Indexed(expireAfterSeconds = 0)
+    Date expiration;
+
+    /**
+     * Whether the record is past its expiration, which may not have been purged yet. Records written without an
+     * expiration fall back to the token's own.
+     *
+     * @return true if expired.
+     */
+    public boolean hasExpired() {
+        Date expiresAt = expiration != null ? expiration : token == null ? null : token.getExpiration();
+        return expiresAt != null && expiresAt.getTime() <= System.currentTimeMillis();
+    }
 }
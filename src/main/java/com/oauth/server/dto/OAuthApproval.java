@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverted;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.security.oauth2.provider.approval.Approval;
+
+/**
+ * An DTO object represents the approval of a scope by a user for a client. Approvals are keyed by user id, so all the
+ * approvals of a user are read with one indexed query.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDBTable(tableName = "OAuthApproval")
+@Document(value = "OAuthApproval")
+@CompoundIndex(def = "{'userId': 1, 'clientId': 1}")
+public class OAuthApproval {
+
+    @DynamoDBHashKey
+    String userId;
+
+    /**
+     * Digest of the user id, client id and scope; see {@link #approvalIdOf(String, String, String)}.
+     */
+    @DynamoDBRangeKey
+    @Id
+    String approvalId;
+
+    String clientId;
+
+    String scope;
+
+    /**
+     * {@link Approval.ApprovalStatus} name.
+     */
+    String status;
+
+    Date lastUpdatedAt;
+
+    /**
+     * When the approval expires. DynamoDB time to live and the MongoDB TTL index remove the record after this time.
+     */
+    @DynamoDBTypeConverted(converter = EpochSecondsConverter.class)
+    @Indexed(expireAfterSeconds = 0)
+    Date expiration;
+
+    /**
+     * Whether the approval is past its expiration, which may not have been purged yet.
+     *
+     * @return true if expired.
+     */
+    public boolean hasExpired() {
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+
+    /**
+     * Build the record of an {@link Approval}.
+     *
+     * @param approval approval.
+     * @return approval record.
+     */
+    public static OAuthApproval of(Approval approval) {
+        return OAuthApproval.builder()
+            .userId(approval.getUserId())
+            .approvalId(approvalIdOf(approval.getUserId(), approval.getClientId(), approval.getScope()))
+            .clientId(approval.getClientId())
+            .scope(approval.getScope())
+            .status(approval.getStatus() != null ? approval.getStatus().name() : null)
+            .lastUpdatedAt(approval.getLastUpdatedAt())
+            .expiration(approval.getExpiresAt())
+            .build();
+    }
+
+    /**
+     * Key of the approval of a scope by a user for a client.
+     *
+     * @param userId user id.
+     * @param clientId client id.
+     * @param scope scope.
+     * @return approval id.
+     */
+    public static String approvalIdOf(String userId, String clientId, String scope) {
+        return Hashing.sha256().newHasher()
+            .putString(String.valueOf(userId), StandardCharsets.UTF_8)
+            .putByte((byte) 0)
+            .putString(String.valueOf(clientId), StandardCharsets.UTF_8)
+            .putByte((byte) 0)
+            .putString(String.valueOf(scope), StandardCharsets.UTF_8)
+            .hash()
+            .toString();
+    }
+
+    /**
+     * The {@link Approval} this record holds.
+     *
+     * @return approval.
+     */
+    public Approval toApproval() {
+        return new Approval(userId, clientId, scope, expiration,
+            status != null ? Approval.ApprovalStatus.valueOf(status) : Approval.ApprovalStatus.APPROVED,
+            lastUpdatedAt);
+    }
+}
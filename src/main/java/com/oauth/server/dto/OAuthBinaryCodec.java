@@ -0,0 +1,461 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.common.DefaultExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+/**
+ * A compact, schema-versioned binary encoding for the OAuth objects persisted by the DAOs.
+ *
+ * <p>
+ * Only the fields the server relies on are kept. For an {@link OAuth2Authentication} these are the client id, scopes,
+ * client authorities, approval flag, resource ids, redirect uri, response types and request parameters of the
+ * {@link OAuth2Request}, and the name and authorities of the user. The user is restored as a
+ * {@link UsernamePasswordAuthenticationToken} whose principal is the user name. Request extensions and authentication
+ * details are not persisted.
+ * </p>
+ *
+ * <p>
+ * Every value starts with a four byte header: magic, schema version, kind and flags. Bodies at or above the deflate
+ * threshold are compressed when that makes them smaller. Values that do not start with the magic byte (Java serialized
+ * authentications, JSON tokens) are not handled here; the converters fall back to the legacy decoders for them.
+ * </p>
+ */
+public final class OAuthBinaryCodec {
+
+    /**
+     * Codec used by the DAO converters.
+     */
+    public static final OAuthBinaryCodec DEFAULT = new OAuthBinaryCodec(512);
+
+    private static final byte MAGIC = (byte) 0xB1;
+    private static final byte VERSION = 1;
+
+    private static final byte KIND_AUTHENTICATION = 'A';
+    private static final byte KIND_ACCESS_TOKEN = 'T';
+    private static final byte KIND_REFRESH_TOKEN = 'R';
+
+    private static final int FLAG_DEFLATED = 1;
+    private static final int HEADER_LENGTH = 4;
+
+    private static final int NO_REFRESH_TOKEN = 0;
+    private static final int REFRESH_TOKEN = 1;
+    private static final int EXPIRING_REFRESH_TOKEN = 2;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_STRING = 1;
+    private static final int TYPE_LONG = 2;
+    private static final int TYPE_INTEGER = 3;
+    private static final int TYPE_BOOLEAN = 4;
+    private static final int TYPE_DOUBLE = 5;
+
+    private final int deflateThreshold;
+
+    /**
+     * @param deflateThreshold bodies of at least this many bytes are deflated when it makes them smaller. Use
+     *                         {@link Integer#MAX_VALUE} to disable compression.
+     */
+    public OAuthBinaryCodec(int deflateThreshold) {
+        this.deflateThreshold = deflateThreshold;
+    }
+
+    /**
+     * Whether the bytes were produced by this codec.
+     *
+     * @param bytes encoded bytes.
+     * @return true if the bytes start with the codec header.
+     */
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC;
+    }
+
+    public byte[] encodeAuthentication(OAuth2Authentication authentication) {
+        return encode(KIND_AUTHENTICATION, out -> {
+            OAuth2Request request = authentication.getOAuth2Request();
+            writeString(out, request.getClientId());
+            writeStrings(out, request.getScope());
+            writeStrings(out, authorityNames(request.getAuthorities()));
+            out.writeBoolean(request.isApproved());
+            writeStrings(out, request.getResourceIds());
+            writeString(out, request.getRedirectUri());
+            writeStrings(out, request.getResponseTypes());
+            writeStringMap(out, request.getRequestParameters());
+
+            Authentication user = authentication.getUserAuthentication();
+            out.writeBoolean(user != null);
+            if (user != null) {
+                writeString(out, user.getName());
+                writeStrings(out, authorityNames(user.getAuthorities()));
+            }
+        });
+    }
+
+    public OAuth2Authentication decodeAuthentication(byte[] bytes) {
+        return decode(bytes, KIND_AUTHENTICATION, in -> {
+            String clientId = readString(in);
+            Set<String> scope = readStrings(in);
+            List<GrantedAuthority> authorities = authorities(readStrings(in));
+            boolean approved = in.readBoolean();
+            Set<String> resourceIds = readStrings(in);
+            String redirectUri = readString(in);
+            Set<String> responseTypes = readStrings(in);
+            Map<String, String> requestParameters = readStringMap(in);
+
+            OAuth2Request request = new OAuth2Request(requestParameters, clientId, authorities, approved, scope,
+                resourceIds, redirectUri, responseTypes, null);
+
+            Authentication user = null;
+            if (in.readBoolean()) {
+                String name = readString(in);
+                user = new UsernamePasswordAuthenticationToken(name, null, authorities(readStrings(in)));
+            }
+            return new OAuth2Authentication(request, user);
+        });
+    }
+
+    public byte[] encodeAccessToken(OAuth2AccessToken accessToken) {
+        return encode(KIND_ACCESS_TOKEN, out -> {
+            writeString(out, accessToken.getValue());
+            writeString(out, accessToken.getTokenType());
+            writeDate(out, accessToken.getExpiration());
+            writeStrings(out, accessToken.getScope());
+            writeRefreshToken(out, accessToken.getRefreshToken());
+            writeAdditionalInformation(out, accessToken.getAdditionalInformation());
+        });
+    }
+
+    public OAuth2AccessToken decodeAccessToken(byte[] bytes) {
+        return decode(bytes, KIND_ACCESS_TOKEN, in -> {
+            DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(readString(in));
+            accessToken.setTokenType(readString(in));
+            accessToken.setExpiration(readDate(in));
+            accessToken.setScope(readStrings(in));
+            accessToken.setRefreshToken(readRefreshToken(in));
+            accessToken.setAdditionalInformation(readAdditionalInformation(in));
+            return accessToken;
+        });
+    }
+
+    public byte[] encodeRefreshToken(OAuth2RefreshToken refreshToken) {
+        return encode(KIND_REFRESH_TOKEN, out -> writeRefreshToken(out, refreshToken));
+    }
+
+    public OAuth2RefreshToken decodeRefreshToken(byte[] bytes) {
+        return decode(bytes, KIND_REFRESH_TOKEN, OAuthBinaryCodec::readRefreshToken);
+    }
+
+    private byte[] encode(byte kind, BodyWriter writer) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+            writer.write(new DataOutputStream(body));
+
+            byte flags = 0;
+            byte[] payload = body.toByteArray();
+            if (payload.length >= deflateThreshold) {
+                byte[] deflated = deflate(payload);
+                if (deflated.length < payload.length) {
+                    payload = deflated;
+                    flags |= FLAG_DEFLATED;
+                }
+            }
+
+            byte[] encoded = new byte[HEADER_LENGTH + payload.length];
+            encoded[0] = MAGIC;
+            encoded[1] = VERSION;
+            encoded[2] = kind;
+            encoded[3] = flags;
+            System.arraycopy(payload, 0, encoded, HEADER_LENGTH, payload.length);
+            return encoded;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode OAuth value.", e);
+        }
+    }
+
+    private static <T> T decode(byte[] bytes, byte kind, BodyReader<T> reader) {
+        if (!isEncoded(bytes)) {
+            throw new IllegalArgumentException("Value is not in the binary OAuth encoding.");
+        }
+        if (bytes[1] != VERSION) {
+            throw new IllegalArgumentException("Unsupported OAuth encoding version: " + bytes[1]);
+        }
+        if (bytes[2] != kind) {
+            throw new IllegalArgumentException("Unexpected OAuth value kind: " + (char) bytes[2]);
+        }
+
+        InputStream body = new ByteArrayInputStream(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        if ((bytes[3] & FLAG_DEFLATED) != 0) {
+            body = new InflaterInputStream(body);
+        }
+
+        try (DataInputStream in = new DataInputStream(body)) {
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupted OAuth value.", e);
+        }
+    }
+
+    private static byte[] deflate(byte[] payload) throws IOException {
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(payload.length);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(deflated, deflater)) {
+            out.write(payload);
+        } finally {
+            deflater.end();
+        }
+        return deflated.toByteArray();
+    }
+
+    private static void writeRefreshToken(DataOutputStream out, OAuth2RefreshToken refreshToken) throws IOException {
+        if (refreshToken == null) {
+            writeVarInt(out, NO_REFRESH_TOKEN);
+        } else if (refreshToken instanceof ExpiringOAuth2RefreshToken) {
+            writeVarInt(out, EXPIRING_REFRESH_TOKEN);
+            writeString(out, refreshToken.getValue());
+            writeDate(out, ((ExpiringOAuth2RefreshToken) refreshToken).getExpiration());
+        } else {
+            writeVarInt(out, REFRESH_TOKEN);
+            writeString(out, refreshToken.getValue());
+        }
+    }
+
+    private static OAuth2RefreshToken readRefreshToken(DataInputStream in) throws IOException {
+        int type = readVarInt(in);
+        switch (type) {
+            case NO_REFRESH_TOKEN:
+                return null;
+            case REFRESH_TOKEN:
+                return new DefaultOAuth2RefreshToken(readString(in));
+            case EXPIRING_REFRESH_TOKEN:
+                return new DefaultExpiringOAuth2RefreshToken(readString(in), readDate(in));
+            default:
+                throw new IOException("Unknown refresh token type: " + type);
+        }
+    }
+
+    /**
+     * Additional information keeps strings, numbers and booleans with their type; other values are kept as strings.
+     */
+    private static void writeAdditionalInformation(DataOutputStream out, Map<String, Object> information)
+        throws IOException {
+        if (information == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+
+        writeVarInt(out, information.size() + 1);
+        for (Map.Entry<String, Object> entry : information.entrySet()) {
+            writeString(out, entry.getKey());
+            Object value = entry.getValue();
+            if (value == null) {
+                writeVarInt(out, TYPE_NULL);
+            } else if (value instanceof Long) {
+                writeVarInt(out, TYPE_LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Integer) {
+                writeVarInt(out, TYPE_INTEGER);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Boolean) {
+                writeVarInt(out, TYPE_BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Double) {
+                writeVarInt(out, TYPE_DOUBLE);
+                out.writeDouble((Double) value);
+            } else {
+                writeVarInt(out, TYPE_STRING);
+                writeString(out, value.toString());
+            }
+        }
+    }
+
+    private static Map<String, Object> readAdditionalInformation(DataInputStream in) throws IOException {
+        int size = readVarInt(in) - 1;
+        Map<String, Object> information = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            int type = readVarInt(in);
+            switch (type) {
+                case TYPE_NULL:
+                    information.put(key, null);
+                    break;
+                case TYPE_LONG:
+                    information.put(key, in.readLong());
+                    break;
+                case TYPE_INTEGER:
+                    information.put(key, in.readInt());
+                    break;
+                case TYPE_BOOLEAN:
+                    information.put(key, in.readBoolean());
+                    break;
+                case TYPE_DOUBLE:
+                    information.put(key, in.readDouble());
+                    break;
+                case TYPE_STRING:
+                    information.put(key, readString(in));
+                    break;
+                default:
+                    throw new IOException("Unknown additional information type: " + type);
+            }
+        }
+        return information;
+    }
+
+    private static Collection<String> authorityNames(Collection<? extends GrantedAuthority> authorities) {
+        if (authorities == null) {
+            return null;
+        }
+        List<String> names = new ArrayList<>(authorities.size());
+        authorities.forEach(authority -> names.add(authority.getAuthority()));
+        return names;
+    }
+
+    private static List<GrantedAuthority> authorities(Set<String> names) {
+        List<GrantedAuthority> authorities = new ArrayList<>(names == null ? 0 : names.size());
+        if (names != null) {
+            names.forEach(name -> authorities.add(new SimpleGrantedAuthority(name)));
+        }
+        return authorities;
+    }
+
+    private static void writeDate(DataOutputStream out, Date date) throws IOException {
+        out.writeBoolean(date != null);
+        if (date != null) {
+            out.writeLong(date.getTime());
+        }
+    }
+
+    private static Date readDate(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new Date(in.readLong()) : null;
+    }
+
+    /**
+     * Strings are written as the UTF-8 length plus one (zero means null) followed by the bytes.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        if (values == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, values.size() + 1);
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static Set<String> readStrings(DataInputStream in) throws IOException {
+        int size = readVarInt(in) - 1;
+        if (size < 0) {
+            return null;
+        }
+        Set<String> values = new LinkedHashSet<>();
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void writeStringMap(DataOutputStream out, Map<String, String> values) throws IOException {
+        if (values == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, values.size() + 1);
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readStringMap(DataInputStream in) throws IOException {
+        int size = readVarInt(in) - 1;
+        if (size < 0) {
+            return null;
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            values.put(readString(in), readString(in));
+        }
+        return values;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer.");
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+}
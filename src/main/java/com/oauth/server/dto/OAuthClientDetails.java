@@ -6,6 +6,8 @@
 package com.oauth.server.dto;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexRangeKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -15,6 +17,8 @@ import lombok.NoArgsConstructor;
 import lombok.experimental.FieldDefaults;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.oauth2.provider.ClientDetails;
 import org.springframework.security.oauth2.provider.client.BaseClientDetails;
@@ -35,6 +39,11 @@ import org.springframework.util.StringUtils;
 public class OAuthClientDetails {
     private static final String RESOURCE_ID = "oauth2-resource";
 
+    /**
+     * Partition holding every client in the DynamoDB index ordering clients by version.
+     */
+    public static final String VERSION_LOG = "clients";
+
     @DynamoDBHashKey
     @Id
     String clientId;
@@ -55,6 +64,21 @@ public class OAuthClientDetails {
 
     String autoapprove;
 
+    /**
+     * Taken on every write from a counter also advanced by removals, so versions are unique and increasing across
+     * nodes and caches can read the clients changed since the last version they saw.
+     */
+    @DynamoDBIndexRangeKey(globalSecondaryIndexName = "versionLog-version-index")
+    @Indexed
+    Long version;
+
+    /**
+     * Always {@link #VERSION_LOG}, partitioning the DynamoDB index ordering clients by version.
+     */
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = "versionLog-version-index")
+    @Transient
+    String versionLog;
+
     public ClientDetails toClientDetails() {
         BaseClientDetails clientDetails = new BaseClientDetails(clientId, RESOURCE_ID, scopes, authorizedGrantTypes, authorities, webServerRedirectUri);
         clientDetails.setClientSecret(clientSecret);
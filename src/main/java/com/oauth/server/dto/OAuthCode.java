@@ -5,7 +5,10 @@
  */
 package com.oauth.server.dto;
 
+import java.util.Date;
+
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 
@@ -41,4 +44,20 @@ public class OAuthCode {
 
     @DynamoDBTypeConverted(converter = OAuth2AuthenticationConverter.class)
     OAuth2Authentication authentication;
+
+    /**
+     * When the code expires. DynamoDB time to live and the MongoDB TTL index remove the record after this time.
+     */
+    @DynamoDBTypeConverted(converter = EpochSecondsConverter.class)
+    @Indexed(expireAfterSeconds = 0)
+    Date expiration;
+
+    /**
+     * Whether the code is past its expiration, which may not have been purged yet.
+     *
+     * @return true if expired.
+     */
+    public boolean hasExpired() {
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
 }
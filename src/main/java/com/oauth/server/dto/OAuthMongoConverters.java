@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.convert.converter.GenericConverter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.security.oauth2.common.DefaultExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+/**
+ * MongoDB converters that persist authentications and tokens in the {@link OAuthBinaryCodec} encoding.
+ *
+ * <p>
+ * Values are written as BSON binary. The writing converters make these types simple types for the mapping, so values
+ * written before that as embedded documents are not mapped reflectively anymore: {@link LegacyDocumentReader} reads
+ * them with a separate converter holding the default mapping they were written with. They are rewritten in the binary
+ * encoding the next time their document is saved.
+ * </p>
+ */
+public final class OAuthMongoConverters {
+
+    private OAuthMongoConverters() {
+    }
+
+    /**
+     * All the converters, to register with {@code MongoCustomConversions}.
+     *
+     * @return converters.
+     */
+    public static List<Object> converters() {
+        return ImmutableList.<Object>of(
+            new AuthenticationWriter(), new AuthenticationReader(), new AuthenticationBytesReader(),
+            new AccessTokenWriter(), new AccessTokenReader(), new AccessTokenBytesReader(),
+            new RefreshTokenWriter(), new RefreshTokenReader(), new RefreshTokenBytesReader(),
+            new LegacyDocumentReader());
+    }
+
+    @WritingConverter
+    static class AuthenticationWriter implements Converter<OAuth2Authentication, Binary> {
+        @Override
+        public Binary convert(OAuth2Authentication source) {
+            return new Binary(OAuthBinaryCodec.DEFAULT.encodeAuthentication(source));
+        }
+    }
+
+    @ReadingConverter
+    static class AuthenticationReader implements Converter<Binary, OAuth2Authentication> {
+        @Override
+        public OAuth2Authentication convert(Binary source) {
+            return OAuth2AuthenticationConverter.decode(source.getData());
+        }
+    }
+
+    @ReadingConverter
+    static class AuthenticationBytesReader implements Converter<byte[], OAuth2Authentication> {
+        @Override
+        public OAuth2Authentication convert(byte[] source) {
+            return OAuth2AuthenticationConverter.decode(source);
+        }
+    }
+
+    @WritingConverter
+    static class AccessTokenWriter implements Converter<OAuth2AccessToken, Binary> {
+        @Override
+        public Binary convert(OAuth2AccessToken source) {
+            return new Binary(OAuthBinaryCodec.DEFAULT.encodeAccessToken(source));
+        }
+    }
+
+    @ReadingConverter
+    static class AccessTokenReader implements Converter<Binary, OAuth2AccessToken> {
+        @Override
+        public OAuth2AccessToken convert(Binary source) {
+            return OAuthBinaryCodec.DEFAULT.decodeAccessToken(source.getData());
+        }
+    }
+
+    @ReadingConverter
+    static class AccessTokenBytesReader implements Converter<byte[], OAuth2AccessToken> {
+        @Override
+        public OAuth2AccessToken convert(byte[] source) {
+            return OAuthBinaryCodec.DEFAULT.decodeAccessToken(source);
+        }
+    }
+
+    @WritingConverter
+    static class RefreshTokenWriter implements Converter<OAuth2RefreshToken, Binary> {
+        @Override
+        public Binary convert(OAuth2RefreshToken source) {
+            return new Binary(OAuthBinaryCodec.DEFAULT.encodeRefreshToken(source));
+        }
+    }
+
+    @ReadingConverter
+    static class RefreshTokenReader implements Converter<Binary, OAuth2RefreshToken> {
+        @Override
+        public OAuth2RefreshToken convert(Binary source) {
+            return OAuthBinaryCodec.DEFAULT.decodeRefreshToken(source.getData());
+        }
+    }
+
+    @ReadingConverter
+    static class RefreshTokenBytesReader implements Converter<byte[], OAuth2RefreshToken> {
+        @Override
+        public OAuth2RefreshToken convert(byte[] source) {
+            return OAuthBinaryCodec.DEFAULT.decodeRefreshToken(source);
+        }
+    }
+
+    /**
+     * Reads authentications and tokens stored as embedded documents by the default mapping. Documents carry the class
+     * they were written from; those without one are read as the default implementation.
+     */
+    @ReadingConverter
+    static class LegacyDocumentReader implements GenericConverter {
+
+        private static final Set<Class<?>> TARGET_TYPES = ImmutableSet.of(
+            OAuth2Authentication.class,
+            OAuth2AccessToken.class, DefaultOAuth2AccessToken.class,
+            OAuth2RefreshToken.class, DefaultOAuth2RefreshToken.class, DefaultExpiringOAuth2RefreshToken.class);
+
+        /**
+         * A converter without the converters above, mapping these types as they were mapped before. Created on the
+         * first legacy document read.
+         */
+        private volatile MappingMongoConverter defaultMapping;
+
+        @Override
+        public Set<ConvertiblePair> getConvertibleTypes() {
+            return TARGET_TYPES.stream()
+                .map(targetType -> new ConvertiblePair(Document.class, targetType))
+                .collect(Collectors.toSet());
+        }
+
+        @Override
+        public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+            if (source == null) {
+                return null;
+            }
+
+            Document document = (Document) source;
+            Class<?> type = targetType.getType();
+            if (type == OAuth2AccessToken.class) {
+                type = DefaultOAuth2AccessToken.class;
+            } else if (type == OAuth2RefreshToken.class) {
+                type = document.containsKey("expiration")
+                    ? DefaultExpiringOAuth2RefreshToken.class
+                    : DefaultOAuth2RefreshToken.class;
+            }
+            return defaultMapping().read(type, document);
+        }
+
+        private MappingMongoConverter defaultMapping() {
+            MappingMongoConverter converter = defaultMapping;
+            if (converter == null) {
+                MongoMappingContext mappingContext = new MongoMappingContext();
+                mappingContext.afterPropertiesSet();
+                converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+                converter.afterPropertiesSet();
+                defaultMapping = converter;
+            }
+            return converter;
+        }
+    }
+}
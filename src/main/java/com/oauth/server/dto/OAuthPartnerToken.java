@@ -35,6 +35,10 @@ import org.springframework.security.oauth2.common.OAuth2AccessToken;
 @Document(value = "OAuthPartnerToken")
 public class OAuthPartnerToken {
 
+    /**
+     * The authentication id of the user and partner, or the token value on tokens saved before tokens were keyed by
+     * authentication id.
+     */
     @DynamoDBHashKey
     @Id
     String tokenId;
@@ -42,6 +46,9 @@ public class OAuthPartnerToken {
     @DynamoDBTypeConvertedJson
     OAuth2AccessToken token;
 
+    /**
+     * Only indexed to find the tokens saved under their token value.
+     */
     @DynamoDBIndexHashKey(globalSecondaryIndexName = "authenticationId-index")
     String authenticationId;
 
@@ -50,4 +57,9 @@ public class OAuthPartnerToken {
 
     @DynamoDBIndexRangeKey(globalSecondaryIndexName = "clientId-userName-index")
     String userName;
+
+    /**
+     * When the partner issued the token, in epoch milliseconds. Absent on tokens saved under their token value.
+     */
+    Long issuedAt;
 }
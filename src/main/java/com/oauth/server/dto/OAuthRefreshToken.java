@@ -6,9 +6,11 @@
 package com.oauth.server.dto;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexRangeKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverted;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConvertedJson;
+import java.util.Date;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,7 +19,10 @@ import lombok.NoArgsConstructor;
 import lombok.experimental.FieldDefaults;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
 import org.springframework.security.oauth2.common.OAuth2RefreshToken;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 
@@ -33,14 +38,51 @@ import org.springframework.security.oauth2.provider.OAuth2Authentication;
 @AllArgsConstructor
 @DynamoDBTable(tableName = "OAuthRefreshToken")
 @Document(value = "OAuthRefreshToken")
+@CompoundIndex(def = "{'clientId': 1, 'userName': 1, '_id': 1}")
 public class OAuthRefreshToken {
     @DynamoDBHashKey
     @Id
     String tokenId;
 
-    @DynamoDBTypeConvertedJson
+    @DynamoDBTypeConverted(converter = OAuth2RefreshTokenConverter.class)
     OAuth2RefreshToken token;
 
     @DynamoDBTypeConverted(converter = OAuth2AuthenticationConverter.class)
     OAuth2Authentication authentication;
+
+    /**
+     * Client the token was issued to, so revocations find refresh tokens without going through access tokens, which
+     * may have been purged or, with JWT access tokens, never stored. Null on records written before.
+     */
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = "clientId-userName-index")
+    String clientId;
+
+    /**
+     * User the token was issued to, or {@code #} for client-only tokens, as on access tokens.
+     */
+    @DynamoDBIndexRangeKey(globalSecondaryIndexName = "clientId-userName-index")
+    @DynamoDBIndexHashKey(globalSecondaryIndexName = "userName-index")
+    @Indexed
+    String userName;
+
+    /**
+     * When the record expires. DynamoDB time to live and the MongoDB TTL index remove the record after this time.
+     */
+    @DynamoDBTypeConverted(converter = EpochSecondsConverter.class)
+    @Indexed(expireAfterSeconds = 0)
+    Date expiration;
+
+    /**
+     * Whether the record is past its expiration, which may not have been purged yet. Records written without an
+     * expiration fall back to the token's own.
+     *
+     * @return true if expired.
+     */
+    public boolean hasExpired() {
+        Date expiresAt = expiration;
+        if (expiresAt == null && token instanceof ExpiringOAuth2RefreshToken) {
+            expiresAt = ((ExpiringOAuth2RefreshToken) token).getExpiration();
+        }
+        return expiresAt != null && expiresAt.getTime() <= System.currentTimeMillis();
+    }
 }
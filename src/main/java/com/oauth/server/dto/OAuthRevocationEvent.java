@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverted;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConvertedEnum;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.Date;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * An DTO object represents one entry of the append-only revocation log.
+ *
+ * <p>
+ * Tokens are identified by their token id, the hash of the token value under the configured token key algorithm, never
+ * by their value. Users are not named, as the log is read by every resource server.
+ * </p>
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDBTable(tableName = "OAuthRevocationEvent")
+@Document(value = "OAuthRevocationEvent")
+public class OAuthRevocationEvent {
+
+    /**
+     * Partition holding the whole log in DynamoDB, which orders events by sequence within a partition.
+     */
+    public static final String LOG = "revocations";
+
+    public enum Type {
+        /**
+         * Access tokens were revoked.
+         */
+        ACCESS_TOKEN,
+        /**
+         * A refresh token was revoked, together with the access tokens issued with it.
+         */
+        REFRESH_TOKEN,
+        /**
+         * All the tokens of a client are being revoked. The access tokens are listed by {@link #ACCESS_TOKEN} events
+         * as they are deleted, as are those of revocations for a user.
+         */
+        CLIENT
+    }
+
+    @DynamoDBHashKey
+    @JsonIgnore
+    @Builder.Default
+    String log = LOG;
+
+    /**
+     * Position in the log, assigned when the event is appended. Sequences increase by one, but a sequence whose
+     * append failed is never written, and an event written late is appended again under a new sequence.
+     */
+    @DynamoDBRangeKey
+    @Id
+    Long sequence;
+
+    @DynamoDBTypeConvertedEnum
+    Type type;
+
+    /**
+     * Ids of the revoked tokens.
+     */
+    List<String> tokenIds;
+
+    /**
+     * Client of the revoked tokens, if known.
+     */
+    String clientId;
+
+    /**
+     * When the sequence was assigned.
+     */
+    Date createdAt;
+
+    /**
+     * End of the event's retention, after which DynamoDB time to live and the MongoDB TTL index remove it.
+     */
+    @DynamoDBTypeConverted(converter = EpochSecondsConverter.class)
+    @Indexed(expireAfterSeconds = 0)
+    @JsonIgnore
+    Date expiration;
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConvertedEnum;
+import java.util.Date;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * An DTO object represents a background job revoking all the tokens of a client, a user, or a user for a client.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDBTable(tableName = "OAuthRevocationJob")
+@Document(value = "OAuthRevocationJob")
+public class OAuthRevocationJob {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    @DynamoDBHashKey
+    @Id
+    String jobId;
+
+    /**
+     * Client whose tokens are revoked, or null for all clients of the user.
+     */
+    String clientId;
+
+    /**
+     * User whose tokens are revoked, or null for all users of the client.
+     */
+    String userName;
+
+    @DynamoDBTypeConvertedEnum
+    Status status;
+
+    /**
+     * Access tokens revoked so far, each with its refresh token.
+     */
+    Long revokedTokens;
+
+    /**
+     * Refresh tokens revoked so far on their own, once no access token was left: those whose access tokens were
+     * purged or, with JWT access tokens, never stored. Null on jobs created before.
+     */
+    Long revokedRefreshTokens;
+
+    String error;
+
+    /**
+     * Node running the job, or null while no node took it.
+     */
+    String owner;
+
+    /**
+     * Epoch milliseconds until which the owner holds the job. The owner renews it with every progress save; once it
+     * passed, another node may take the job over.
+     */
+    Long leaseExpiresAt;
+
+    Date createdAt;
+
+    Date updatedAt;
+
+    /**
+     * Whether the job still has to run, including jobs interrupted by a restart while running.
+     *
+     * @return true if pending or running.
+     */
+    public boolean isUnfinished() {
+        return status == Status.PENDING || status == Status.RUNNING;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverted;
+import java.util.Date;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * An DTO object represents a signed access token revoked before its expiration.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDBTable(tableName = "OAuthRevokedToken")
+@Document(value = "OAuthRevokedToken")
+public class OAuthRevokedToken {
+
+    /**
+     * The token's {@code jti} claim.
+     */
+    @DynamoDBHashKey
+    @Id
+    String tokenId;
+
+    /**
+     * The token's expiration. The record is not needed past it, and DynamoDB time to live and the MongoDB TTL index
+     * remove it.
+     */
+    @DynamoDBTypeConverted(converter = EpochSecondsConverter.class)
+    @Indexed(expireAfterSeconds = 0)
+    Date expiration;
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * An DTO object represents a user signing in. The username is the document id, so lookups use the id index.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(value = "OAuthUser")
+public class OAuthUser {
+
+    @Id
+    String username;
+
+    /**
+     * Password hash.
+     */
+    String password;
+
+    /**
+     * Comma-separated authorities.
+     */
+    String authorities;
+
+    Boolean disabled;
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * Events read from the revocation log, with the cursor to read the following events from.
+ */
+@Value
+public class RevocationFeedPage {
+
+    List<OAuthRevocationEvent> events;
+
+    /**
+     * Sequence to pass as {@code after} on the next read. It can move past sequences that were never written.
+     */
+    long cursor;
+
+    /**
+     * Whether more events can be read at once.
+     */
+    boolean hasMore;
+}
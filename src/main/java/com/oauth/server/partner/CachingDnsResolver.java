@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.partner;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import lombok.NonNull;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+/**
+ * A {@link DnsResolver} keeping successful lookups of partner hosts for a fixed time. Failed lookups are not cached.
+ */
+public class CachingDnsResolver implements DnsResolver {
+
+    private final DnsResolver delegate;
+
+    private final Cache<String, InetAddress[]> addresses;
+
+    public CachingDnsResolver(@NonNull Duration timeToLive) {
+        this(SystemDefaultDnsResolver.INSTANCE, timeToLive);
+    }
+
+    public CachingDnsResolver(@NonNull DnsResolver delegate, @NonNull Duration timeToLive) {
+        this.delegate = delegate;
+        this.addresses = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .expireAfterWrite(timeToLive.toMillis(), TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        InetAddress[] cached = addresses.getIfPresent(host);
+        if (cached != null) {
+            return cached.clone();
+        }
+
+        InetAddress[] resolved = delegate.resolve(host);
+        addresses.put(host, resolved.clone());
+        return resolved;
+    }
+}
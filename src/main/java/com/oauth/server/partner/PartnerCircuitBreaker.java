@@ -0,0 +1,207 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.partner;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import lombok.Value;
+
+/**
+ * Circuit breaker and bulkhead guarding the calls to one partner.
+ *
+ * <p>
+ * The breaker opens once the failure rate over the last {@code windowSize} calls reaches the threshold, provided at
+ * least {@code minimumCalls} were made. While open, calls fail fast. After {@code openMillis} a single trial call is
+ * let through: success closes the breaker, failure opens it again. Independently, at most {@code maxConcurrentCalls}
+ * calls to the partner run at once; a call waits up to {@code maxWaitMillis} for a slot and then fails fast.
+ * </p>
+ */
+public class PartnerCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String partnerId;
+
+    private final int minimumCalls;
+
+    private final int failureRateThreshold;
+
+    private final long openMillis;
+
+    private final int maxConcurrentCalls;
+
+    private final long maxWaitMillis;
+
+    private final Semaphore bulkhead;
+
+    /**
+     * Outcomes of the last calls, true for a failure, used as a ring buffer.
+     */
+    private final boolean[] outcomes;
+
+    private int next;
+
+    private int calls;
+
+    private int failures;
+
+    private State state = State.CLOSED;
+
+    private long openedAt;
+
+    private boolean trialInProgress;
+
+    public PartnerCircuitBreaker(String partnerId, int windowSize, int minimumCalls, int failureRateThreshold,
+                                 long openMillis, int maxConcurrentCalls, long maxWaitMillis) {
+        this.partnerId = partnerId;
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMillis = maxWaitMillis;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+    }
+
+    /**
+     * Run a call to the partner.
+     *
+     * @param call the call.
+     * @param isFailure whether an exception thrown by the call counts as a partner failure.
+     * @param <T> result type.
+     * @return the call result.
+     * @throws PartnerUnavailableException if the breaker is open or the concurrency limit is reached.
+     */
+    public <T> T execute(Supplier<T> call, Predicate<RuntimeException> isFailure) {
+        boolean trial = acquirePermission();
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            releaseTrial(trial);
+            throw new PartnerUnavailableException("Too many concurrent calls to partner: " + partnerId);
+        }
+
+        boolean recorded = false;
+        try {
+            T result = call.get();
+            recorded = true;
+            onResult(trial, false);
+            return result;
+        } catch (RuntimeException e) {
+            recorded = true;
+            onResult(trial, isFailure.test(e));
+            throw e;
+        } finally {
+            // An Error thrown by the call is not recorded, but must not leave the trial slot taken.
+            if (!recorded) {
+                releaseTrial(trial);
+            }
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Current state of the breaker and bulkhead.
+     *
+     * @return a snapshot.
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(currentState(), calls, failures, calls == 0 ? 0 : failures * 100 / calls,
+            maxConcurrentCalls - bulkhead.availablePermits(), maxConcurrentCalls);
+    }
+
+    private synchronized boolean acquirePermission() {
+        switch (currentState()) {
+            case CLOSED:
+                return false;
+            case HALF_OPEN:
+                if (!trialInProgress) {
+                    trialInProgress = true;
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        throw new PartnerUnavailableException("Partner temporarily unavailable: " + partnerId);
+    }
+
+    private synchronized void releaseTrial(boolean trial) {
+        if (trial) {
+            trialInProgress = false;
+        }
+    }
+
+    private synchronized void onResult(boolean trial, boolean failure) {
+        if (state == State.HALF_OPEN) {
+            if (!trial) {
+                return;
+            }
+            trialInProgress = false;
+            if (failure) {
+                open();
+            } else {
+                state = State.CLOSED;
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+
+        if (calls == outcomes.length) {
+            failures -= outcomes[next] ? 1 : 0;
+        } else {
+            calls++;
+        }
+        outcomes[next] = failure;
+        failures += failure ? 1 : 0;
+        next = (next + 1) % outcomes.length;
+
+        if (calls >= minimumCalls && failures * 100 >= failureRateThreshold * calls) {
+            open();
+        }
+    }
+
+    private State currentState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            trialInProgress = false;
+        }
+        return state;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        next = 0;
+        calls = 0;
+        failures = 0;
+    }
+
+    /**
+     * State of a breaker and its bulkhead at one point in time.
+     */
+    @Value
+    public static class Snapshot {
+        State state;
+        int calls;
+        int failures;
+        int failureRate;
+        int activeCalls;
+        int maxConcurrentCalls;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.partner;
+
+import java.util.Map;
+import lombok.NonNull;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * Actuator endpoint exposing the circuit breaker and bulkhead state of each partner, to user administrators only.
+ */
+@Endpoint(id = "partnercircuitbreakers")
+public class PartnerCircuitBreakerEndpoint {
+
+    private final PartnerCircuitBreakers circuitBreakers;
+
+    public PartnerCircuitBreakerEndpoint(@NonNull PartnerCircuitBreakers circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @ReadOperation
+    public Map<String, PartnerCircuitBreaker.Snapshot> circuitBreakers() {
+        return circuitBreakers.snapshots();
+    }
+}
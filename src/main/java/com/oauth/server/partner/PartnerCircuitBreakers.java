@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.partner;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * The {@link PartnerCircuitBreaker}s of all partners, created on first use with the same settings.
+ *
+ * <p>
+ * Only I/O errors, timeouts and 5xx responses count as partner failures. OAuth errors returned by a partner, such as
+ * an invalid grant, mean the partner is up and count as successful calls.
+ * </p>
+ */
+public class PartnerCircuitBreakers {
+
+    private final ConcurrentMap<String, PartnerCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    private final int windowSize;
+
+    private final int minimumCalls;
+
+    private final int failureRateThreshold;
+
+    private final long openMillis;
+
+    private final int maxConcurrentCalls;
+
+    private final long maxWaitMillis;
+
+    public PartnerCircuitBreakers(int windowSize, int minimumCalls, int failureRateThreshold, long openMillis,
+                                  int maxConcurrentCalls, long maxWaitMillis) {
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Run a call to a partner through its circuit breaker and bulkhead.
+     *
+     * @param partnerId partner id.
+     * @param call the call.
+     * @param <T> result type.
+     * @return the call result.
+     * @throws PartnerUnavailableException if the partner's breaker is open or its concurrency limit is reached.
+     */
+    public <T> T execute(String partnerId, Supplier<T> call) {
+        return circuitBreakers
+            .computeIfAbsent(String.valueOf(partnerId), id -> new PartnerCircuitBreaker(id, windowSize, minimumCalls,
+                failureRateThreshold, openMillis, maxConcurrentCalls, maxWaitMillis))
+            .execute(call, PartnerCircuitBreakers::isPartnerFailure);
+    }
+
+    /**
+     * State of every partner's breaker, by partner id.
+     *
+     * @return snapshots.
+     */
+    public Map<String, PartnerCircuitBreaker.Snapshot> snapshots() {
+        Map<String, PartnerCircuitBreaker.Snapshot> snapshots = new TreeMap<>();
+        circuitBreakers.forEach((partnerId, circuitBreaker) -> snapshots.put(partnerId, circuitBreaker.snapshot()));
+        return snapshots;
+    }
+
+    private static boolean isPartnerFailure(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ResourceAccessException || cause instanceof HttpServerErrorException
+                || cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.partner;
+
+import com.google.common.collect.ImmutableMap;
+import com.oauth.server.dao.MongoDBPartnerDetailsDAO;
+import com.oauth.server.dto.OAuthPartner;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory registry of the partners, holding their resource details ready to use.
+ *
+ * <p>
+ * Partners saved or deleted through the registry are updated right away on this node. Changes made on other nodes are
+ * picked up by reloading all partners every {@code oauth.partner-registry.refresh-seconds}; a partner missing from the
+ * registry is also looked up in the database once, so partners added on another node are usable immediately.
+ * </p>
+ */
+@Log4j2
+@Service
+public class PartnerRegistry {
+
+    @Autowired
+    private MongoDBPartnerDetailsDAO partnerDetailsService;
+
+    private volatile Map<String, PartnerResourceDetails> partners = ImmutableMap.of();
+
+    /**
+     * Get the resource details of a partner.
+     *
+     * @param partnerId partner id.
+     * @return resource details, or null if the partner does not exist.
+     */
+    public OAuth2ProtectedResourceDetails getResourceDetails(final String partnerId) {
+        if (partnerId == null) {
+            return null;
+        }
+
+        PartnerResourceDetails resourceDetails = partners.get(partnerId);
+        if (resourceDetails == null) {
+            OAuthPartner partner = partnerDetailsService.loadPartnerByPartnerId(partnerId);
+            if (partner != null) {
+                resourceDetails = register(partner);
+            }
+        }
+        return resourceDetails;
+    }
+
+    /**
+     * Save a partner and register it.
+     *
+     * @param partner {@link OAuthPartner}
+     */
+    public void savePartner(@NonNull final OAuthPartner partner) {
+        partnerDetailsService.savePartner(partner);
+        register(partner);
+    }
+
+    /**
+     * Delete a partner and unregister it.
+     *
+     * @param partnerId partner id.
+     */
+    public void deletePartnerByPartnerId(@NonNull final String partnerId) {
+        partnerDetailsService.deletePartnerByPartnerId(partnerId);
+        unregister(partnerId);
+    }
+
+    /**
+     * Reload all partners, picking up changes made on other nodes. Failures only log and keep the current partners.
+     */
+    @Scheduled(fixedDelayString = "PT${oauth.partner-registry.refresh-seconds:30}S")
+    public void refresh() {
+        try {
+            Map<String, PartnerResourceDetails> loaded = new HashMap<>();
+            for (OAuthPartner partner : partnerDetailsService.listPartners()) {
+                loaded.put(partner.getPartnerId(), PartnerResourceDetails.of(partner));
+            }
+            synchronized (this) {
+                partners = ImmutableMap.copyOf(loaded);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to refresh the partner registry.", e);
+        }
+    }
+
+    private synchronized PartnerResourceDetails register(final OAuthPartner partner) {
+        PartnerResourceDetails resourceDetails = PartnerResourceDetails.of(partner);
+        Map<String, PartnerResourceDetails> updated = new HashMap<>(partners);
+        updated.put(partner.getPartnerId(), resourceDetails);
+        partners = ImmutableMap.copyOf(updated);
+        return resourceDetails;
+    }
+
+    private synchronized void unregister(final String partnerId) {
+        Map<String, PartnerResourceDetails> updated = new HashMap<>(partners);
+        updated.remove(partnerId);
+        partners = ImmutableMap.copyOf(updated);
+    }
+}
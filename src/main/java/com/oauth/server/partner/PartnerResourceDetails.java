@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.partner;
+
+import com.google.common.collect.ImmutableList;
+import com.oauth.server.dto.OAuthPartner;
+import java.util.List;
+import lombok.NonNull;
+import org.springframework.security.oauth2.client.token.grant.code.AuthorizationCodeResourceDetails;
+import org.springframework.security.oauth2.common.AuthenticationScheme;
+
+/**
+ * Resource details of a registered partner, built once and shared by all requests. Setters fail once built.
+ */
+public final class PartnerResourceDetails extends AuthorizationCodeResourceDetails {
+
+    private final boolean frozen;
+
+    private PartnerResourceDetails(AuthorizationCodeResourceDetails resourceDetails) {
+        super.setId(resourceDetails.getId());
+        super.setClientId(resourceDetails.getClientId());
+        super.setClientSecret(resourceDetails.getClientSecret());
+        super.setAccessTokenUri(resourceDetails.getAccessTokenUri());
+        super.setUserAuthorizationUri(resourceDetails.getUserAuthorizationUri());
+        super.setPreEstablishedRedirectUri(resourceDetails.getPreEstablishedRedirectUri());
+        super.setUseCurrentUri(resourceDetails.isUseCurrentUri());
+        super.setScope(resourceDetails.getScope() != null ? ImmutableList.copyOf(resourceDetails.getScope()) : null);
+        super.setClientAuthenticationScheme(resourceDetails.getClientAuthenticationScheme());
+        super.setAuthenticationScheme(resourceDetails.getAuthenticationScheme());
+        super.setTokenName(resourceDetails.getTokenName());
+        this.frozen = true;
+    }
+
+    /**
+     * Build the resource details of a partner.
+     *
+     * @param partner {@link OAuthPartner}.
+     * @return frozen resource details.
+     */
+    public static PartnerResourceDetails of(@NonNull OAuthPartner partner) {
+        return new PartnerResourceDetails((AuthorizationCodeResourceDetails) partner.toProtectedResourceDetails());
+    }
+
+    @Override
+    public void setId(String id) {
+        checkNotFrozen();
+        super.setId(id);
+    }
+
+    @Override
+    public void setClientId(String clientId) {
+        checkNotFrozen();
+        super.setClientId(clientId);
+    }
+
+    @Override
+    public void setClientSecret(String clientSecret) {
+        checkNotFrozen();
+        super.setClientSecret(clientSecret);
+    }
+
+    @Override
+    public void setAccessTokenUri(String accessTokenUri) {
+        checkNotFrozen();
+        super.setAccessTokenUri(accessTokenUri);
+    }
+
+    @Override
+    public void setUserAuthorizationUri(String userAuthorizationUri) {
+        checkNotFrozen();
+        super.setUserAuthorizationUri(userAuthorizationUri);
+    }
+
+    @Override
+    public void setPreEstablishedRedirectUri(String preEstablishedRedirectUri) {
+        checkNotFrozen();
+        super.setPreEstablishedRedirectUri(preEstablishedRedirectUri);
+    }
+
+    @Override
+    public void setUseCurrentUri(boolean useCurrentUri) {
+        checkNotFrozen();
+        super.setUseCurrentUri(useCurrentUri);
+    }
+
+    @Override
+    public void setScope(List<String> scope) {
+        checkNotFrozen();
+        super.setScope(scope);
+    }
+
+    @Override
+    public void setClientAuthenticationScheme(AuthenticationScheme clientAuthenticationScheme) {
+        checkNotFrozen();
+        super.setClientAuthenticationScheme(clientAuthenticationScheme);
+    }
+
+    @Override
+    public void setAuthenticationScheme(AuthenticationScheme authenticationScheme) {
+        checkNotFrozen();
+        super.setAuthenticationScheme(authenticationScheme);
+    }
+
+    @Override
+    public void setTokenName(String tokenName) {
+        checkNotFrozen();
+        super.setTokenName(tokenName);
+    }
+
+    @Override
+    public void setGrantType(String grantType) {
+        checkNotFrozen();
+        super.setGrantType(grantType);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Partner resource details are shared and cannot be modified.");
+        }
+    }
+}
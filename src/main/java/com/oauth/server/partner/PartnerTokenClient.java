@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.partner;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.NonNull;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+import org.springframework.security.oauth2.client.token.AccessTokenRequest;
+import org.springframework.security.oauth2.client.token.DefaultAccessTokenRequest;
+import org.springframework.security.oauth2.client.token.grant.code.AuthorizationCodeAccessTokenProvider;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+
+/**
+ * Client for the token endpoints of partner OAuth providers (e.g. LWA).
+ *
+ * <p>
+ * A single {@link AuthorizationCodeAccessTokenProvider} is shared by all requests, sending them through a pooled
+ * keep-alive {@link CloseableHttpClient}. Each partner call is timed as {@code partner.token.requests}, and the pool of
+ * each partner's token host is published as {@code partner.http.pool.*} gauges, both tagged with the partner id.
+ * </p>
+ *
+ * <p>
+ * Calls go through the partner's circuit breaker and bulkhead, so a failing or slow partner only uses up its own
+ * share of request threads. Calls rejected by them fail with {@link PartnerUnavailableException} and are timed with
+ * the {@code rejected} outcome.
+ * </p>
+ */
+public class PartnerTokenClient {
+
+    private static final String REQUEST_TIMER = "partner.token.requests";
+
+    private static final String POOL_GAUGE_PREFIX = "partner.http.pool.";
+
+    private final AuthorizationCodeAccessTokenProvider tokenProvider;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final PartnerCircuitBreakers circuitBreakers;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Partners whose pool gauges are registered, with the route of their token endpoint.
+     */
+    private final ConcurrentMap<String, HttpRoute> partnerRoutes = new ConcurrentHashMap<>();
+
+    public PartnerTokenClient(@NonNull CloseableHttpClient httpClient,
+                              @NonNull PoolingHttpClientConnectionManager connectionManager,
+                              @NonNull PartnerCircuitBreakers circuitBreakers,
+                              @NonNull MeterRegistry meterRegistry) {
+        this.connectionManager = connectionManager;
+        this.circuitBreakers = circuitBreakers;
+        this.meterRegistry = meterRegistry;
+        this.tokenProvider = new AuthorizationCodeAccessTokenProvider();
+        this.tokenProvider.setStateMandatory(false);
+        this.tokenProvider.setRequestFactory(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    /**
+     * Exchange an authorization code for an access token with a partner.
+     *
+     * @param partnerId partner id.
+     * @param resourceDetails partner protected resource.
+     * @param authorizationCode authorization code.
+     * @return partner access token.
+     */
+    public OAuth2AccessToken obtainAccessToken(final String partnerId,
+                                               final OAuth2ProtectedResourceDetails resourceDetails,
+                                               final String authorizationCode) {
+        AccessTokenRequest accessTokenRequest = new DefaultAccessTokenRequest();
+        accessTokenRequest.setAuthorizationCode(authorizationCode);
+
+        return record(partnerId, resourceDetails, "authorization_code",
+            () -> tokenProvider.obtainAccessToken(resourceDetails, accessTokenRequest));
+    }
+
+    /**
+     * Refresh an access token with a partner.
+     *
+     * @param partnerId partner id.
+     * @param resourceDetails partner protected resource.
+     * @param refreshToken partner refresh token.
+     * @return refreshed partner access token.
+     */
+    public OAuth2AccessToken refreshAccessToken(final String partnerId,
+                                                final OAuth2ProtectedResourceDetails resourceDetails,
+                                                final OAuth2RefreshToken refreshToken) {
+        return record(partnerId, resourceDetails, "refresh_token",
+            () -> tokenProvider.refreshAccessToken(resourceDetails, refreshToken, new DefaultAccessTokenRequest()));
+    }
+
+    private OAuth2AccessToken record(final String partnerId,
+                                     final OAuth2ProtectedResourceDetails resourceDetails,
+                                     final String grantType,
+                                     final Supplier<OAuth2AccessToken> request) {
+        registerPoolGauges(partnerId, resourceDetails);
+
+        String outcome = "error";
+        long start = System.nanoTime();
+        try {
+            OAuth2AccessToken accessToken = circuitBreakers.execute(partnerId, request);
+            outcome = "success";
+            return accessToken;
+        } catch (PartnerUnavailableException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            Timer.builder(REQUEST_TIMER)
+                .tag("partner", String.valueOf(partnerId))
+                .tag("grant_type", grantType)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void registerPoolGauges(final String partnerId, final OAuth2ProtectedResourceDetails resourceDetails) {
+        if (partnerId == null || partnerRoutes.containsKey(partnerId)) {
+            return;
+        }
+
+        HttpRoute route = routeOf(resourceDetails.getAccessTokenUri());
+        if (route == null || partnerRoutes.putIfAbsent(partnerId, route) != null) {
+            return;
+        }
+
+        Gauge.builder(POOL_GAUGE_PREFIX + "leased", connectionManager, manager -> manager.getStats(route).getLeased())
+            .tag("partner", partnerId)
+            .register(meterRegistry);
+        Gauge.builder(POOL_GAUGE_PREFIX + "available", connectionManager,
+            manager -> manager.getStats(route).getAvailable())
+            .tag("partner", partnerId)
+            .register(meterRegistry);
+        Gauge.builder(POOL_GAUGE_PREFIX + "pending", connectionManager, manager -> manager.getStats(route).getPending())
+            .tag("partner", partnerId)
+            .register(meterRegistry);
+    }
+
+    /**
+     * The route the HTTP client plans for a direct connection to the token endpoint, which keys its pool.
+     */
+    private static HttpRoute routeOf(final String accessTokenUri) {
+        if (accessTokenUri == null) {
+            return null;
+        }
+
+        URI uri;
+        try {
+            uri = URI.create(accessTokenUri);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (uri.getHost() == null) {
+            return null;
+        }
+
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : secure ? 443 : 80;
+        return new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, secure);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.partner;
+
+import com.oauth.server.token.PartnerTokenStore;
+import java.util.List;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves partner tokens saved under their token value to their authentication id in the background, once the
+ * application is ready. Tokens read in the meantime are migrated on read, so the migration can run while serving.
+ */
+@Log4j2
+@Component
+public class PartnerTokenMigration {
+
+    @Autowired
+    private List<PartnerTokenStore> partnerTokenStores;
+
+    @Value("${oauth.partner-token.migration.enabled:true}")
+    private boolean migrationEnabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!migrationEnabled) {
+            return;
+        }
+
+        Thread thread = new Thread(this::migrateAll, "partner-token-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void migrateAll() {
+        for (PartnerTokenStore partnerTokenStore : partnerTokenStores) {
+            try {
+                int migrated = partnerTokenStore.migrateLegacyTokens();
+                log.info("Migrated {} partner tokens to their authentication id.", migrated);
+            } catch (RuntimeException e) {
+                log.warn("Unable to migrate partner tokens.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.partner;
+
+import com.oauth.server.authentication.UserIDAuthenticationToken;
+import com.oauth.server.token.PartnerTokenStore;
+import java.util.AbstractMap;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service handing out partner access tokens (e.g. LWA) of a user.
+ *
+ * <p>
+ * The stored token is returned as long as it is valid beyond the refresh window. Inside the window, or when the
+ * partner did not tell when the token expires, the token is refreshed with the partner and the refreshed token is
+ * stored. Concurrent requests for the same partner and user share a single refresh.
+ * </p>
+ */
+@Service
+public class PartnerTokenService {
+
+    @Autowired
+    private PartnerTokenStore partnerTokenService;
+
+    @Autowired
+    private PartnerTokenClient partnerTokenClient;
+
+    @Value("${oauth.partner-token.refresh-window-seconds:300}")
+    private long refreshWindowSeconds;
+
+    /**
+     * Refreshes in progress, keyed by partner and user.
+     */
+    private final ConcurrentMap<Map.Entry<String, String>, CompletableFuture<OAuth2AccessToken>> refreshes =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Get a partner access token of a user, refreshing it first if it is close to expiry.
+     *
+     * @param partnerId partner id.
+     * @param resourceDetails partner protected resource.
+     * @param userID user id.
+     * @return partner access token.
+     * @throws OAuth2Exception if no token is stored for the user.
+     */
+    public OAuth2AccessToken getAccessToken(final String partnerId,
+                                            final OAuth2ProtectedResourceDetails resourceDetails,
+                                            final String userID) {
+        OAuth2AccessToken accessToken = readAccessToken(resourceDetails, userID);
+        if (isFresh(accessToken)) {
+            return accessToken;
+        }
+
+        Map.Entry<String, String> key = new AbstractMap.SimpleImmutableEntry<>(partnerId, userID);
+        CompletableFuture<OAuth2AccessToken> refresh = new CompletableFuture<>();
+        CompletableFuture<OAuth2AccessToken> inProgress = refreshes.putIfAbsent(key, refresh);
+        if (inProgress != null) {
+            return join(inProgress);
+        }
+
+        try {
+            OAuth2AccessToken refreshedToken = refreshAccessToken(partnerId, resourceDetails, userID);
+            refresh.complete(refreshedToken);
+            return refreshedToken;
+        } catch (RuntimeException e) {
+            refresh.completeExceptionally(e);
+            throw e;
+        } finally {
+            refreshes.remove(key, refresh);
+        }
+    }
+
+    /**
+     * Refresh the stored token with the partner and replace it in a single write. The token is read again first, as a
+     * refresh that completed just before this one started has already replaced it. A refresh finishing out of order on
+     * another node does not overwrite a token issued later.
+     */
+    private OAuth2AccessToken refreshAccessToken(final String partnerId,
+                                                 final OAuth2ProtectedResourceDetails resourceDetails,
+                                                 final String userID) {
+        OAuth2AccessToken accessToken = readAccessToken(resourceDetails, userID);
+        if (isFresh(accessToken)) {
+            return accessToken;
+        }
+
+        OAuth2AccessToken refreshedToken = partnerTokenClient.refreshAccessToken(partnerId, resourceDetails,
+            accessToken.getRefreshToken());
+        long issuedAt = System.currentTimeMillis();
+
+        partnerTokenService.replaceAccessToken(resourceDetails, new UserIDAuthenticationToken(userID), refreshedToken,
+            issuedAt);
+
+        return refreshedToken;
+    }
+
+    private OAuth2AccessToken readAccessToken(final OAuth2ProtectedResourceDetails resourceDetails,
+                                              final String userID) {
+        OAuth2AccessToken accessToken = partnerTokenService.getAccessToken(resourceDetails,
+            new UserIDAuthenticationToken(userID));
+
+        if (accessToken == null) {
+            throw new OAuth2Exception("No token found for user: " + userID);
+        }
+        return accessToken;
+    }
+
+    private boolean isFresh(final OAuth2AccessToken accessToken) {
+        Date expiration = accessToken.getExpiration();
+        return expiration != null
+            && expiration.getTime() > System.currentTimeMillis() + refreshWindowSeconds * 1000L;
+    }
+
+    private static OAuth2AccessToken join(final CompletableFuture<OAuth2AccessToken> refresh) {
+        try {
+            return refresh.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
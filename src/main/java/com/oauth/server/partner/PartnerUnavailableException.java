@@ -0,0 +1,31 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.partner;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown without calling a partner when its circuit breaker is open or its concurrency limit is reached.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PartnerUnavailableException extends OAuth2Exception {
+
+    public PartnerUnavailableException(String msg) {
+        super(msg);
+    }
+
+    @Override
+    public String getOAuth2ErrorCode() {
+        return "temporarily_unavailable";
+    }
+
+    @Override
+    public int getHttpErrorCode() {
+        return HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+}
@@ -1,8 +1,11 @@
 package com.oauth.server.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import com.oauth.server.dto.OAuthAccessToken;
 
@@ -12,4 +15,23 @@ public interface OAuthAccessTokenRepository extends MongoRepository<OAuthAccessT
 	void deleteByRefreshToken(String refreshToken);
 	List<OAuthAccessToken> findByClientId(String clientId);
 	List<OAuthAccessToken> findByClientIdAndUserName(String clientId, String userName);
+	Long deleteByTokenIdIn(Collection<String> tokenIds);
+
+	/**
+	 * Token ids and refresh token keys of a client's tokens.
+	 */
+	@Query(value = "{ 'clientId' : ?0 }", fields = "{ 'refreshToken' : 1 }")
+	List<OAuthAccessToken> findKeysByClientId(String clientId, Pageable pageable);
+
+	/**
+	 * Token ids and refresh token keys of a user's tokens.
+	 */
+	@Query(value = "{ 'userName' : ?0 }", fields = "{ 'refreshToken' : 1 }")
+	List<OAuthAccessToken> findKeysByUserName(String userName, Pageable pageable);
+
+	/**
+	 * Token ids and refresh token keys of a user's tokens for a client.
+	 */
+	@Query(value = "{ 'clientId' : ?0, 'userName' : ?1 }", fields = "{ 'refreshToken' : 1 }")
+	List<OAuthAccessToken> findKeysByClientIdAndUserName(String clientId, String userName, Pageable pageable);
 }
@@ -0,0 +1,16 @@
+package com.oauth.server.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.oauth.server.dto.OAuthApproval;
+
+public interface OAuthApprovalRepository extends MongoRepository<OAuthApproval, String> {
+	List<OAuthApproval> findByUserId(String userId);
+
+	List<OAuthApproval> findByUserIdAndClientId(String userId, String clientId);
+
+	Long deleteByApprovalIdIn(Collection<String> approvalIds);
+}
@@ -1,8 +1,35 @@
 package com.oauth.server.repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import com.oauth.server.dto.OAuthClientDetails;
 
 public interface OAuthClientDetailsRepository extends MongoRepository<OAuthClientDetails, String> {
+
+	/**
+	 * All clients with only their client id and version.
+	 */
+	@Query(value = "{}", fields = "{ 'version' : 1 }")
+	List<OAuthClientDetails> findAllVersions();
+
+	/**
+	 * Clients written after a version, with only their client id and version.
+	 */
+	@Query(value = "{ 'version' : { '$gt' : ?0 } }", fields = "{ 'version' : 1 }")
+	List<OAuthClientDetails> findVersionsAfter(long version);
+
+	/**
+	 * Clients with an id after the given one, in id order.
+	 */
+	List<OAuthClientDetails> findByClientIdGreaterThanOrderByClientIdAsc(String clientId, Pageable pageable);
+
+	/**
+	 * All clients, read through a cursor.
+	 */
+	Stream<OAuthClientDetails> streamAllBy();
 }
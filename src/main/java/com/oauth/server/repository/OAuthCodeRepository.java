@@ -5,4 +5,5 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import com.oauth.server.dto.OAuthCode;
 
 public interface OAuthCodeRepository extends MongoRepository<OAuthCode, String> {
+	OAuthCode deleteByCode(String code);
 }
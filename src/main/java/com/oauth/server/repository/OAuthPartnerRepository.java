@@ -1,8 +1,21 @@
 package com.oauth.server.repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import com.oauth.server.dto.OAuthPartner;
 
 public interface OAuthPartnerRepository extends MongoRepository<OAuthPartner, String> {
+	/**
+	 * Partners with an id after the given one, in id order.
+	 */
+	List<OAuthPartner> findByPartnerIdGreaterThanOrderByPartnerIdAsc(String partnerId, Pageable pageable);
+
+	/**
+	 * All partners, read through a cursor.
+	 */
+	Stream<OAuthPartner> streamAllBy();
 }
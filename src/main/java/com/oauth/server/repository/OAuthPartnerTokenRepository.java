@@ -1,11 +1,20 @@
 package com.oauth.server.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import com.oauth.server.dto.OAuthPartnerToken;
 
 public interface OAuthPartnerTokenRepository extends MongoRepository<OAuthPartnerToken, String> {
-	List<OAuthPartnerToken> findByAuthenticationId(String authenticationId);
+	/**
+	 * Tokens of an authentication id still saved under their token value.
+	 */
+	List<OAuthPartnerToken> findByAuthenticationIdAndIssuedAtIsNull(String authenticationId);
+
+	/**
+	 * All tokens still saved under their token value.
+	 */
+	Stream<OAuthPartnerToken> streamByIssuedAtIsNull();
 }
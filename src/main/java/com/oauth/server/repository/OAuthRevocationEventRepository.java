@@ -0,0 +1,15 @@
+package com.oauth.server.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.oauth.server.dto.OAuthRevocationEvent;
+
+public interface OAuthRevocationEventRepository extends MongoRepository<OAuthRevocationEvent, Long> {
+
+    List<OAuthRevocationEvent> findBySequenceGreaterThanOrderBySequenceAsc(Long sequence, Pageable pageable);
+
+    OAuthRevocationEvent findTopByOrderBySequenceDesc();
+}
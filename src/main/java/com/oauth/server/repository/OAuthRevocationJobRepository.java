@@ -0,0 +1,12 @@
+package com.oauth.server.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.oauth.server.dto.OAuthRevocationJob;
+
+public interface OAuthRevocationJobRepository extends MongoRepository<OAuthRevocationJob, String> {
+	List<OAuthRevocationJob> findByStatusIn(Collection<OAuthRevocationJob.Status> statuses);
+}
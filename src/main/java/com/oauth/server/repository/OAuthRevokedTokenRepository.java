@@ -0,0 +1,8 @@
+package com.oauth.server.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.oauth.server.dto.OAuthRevokedToken;
+
+public interface OAuthRevokedTokenRepository extends MongoRepository<OAuthRevokedToken, String> {
+}
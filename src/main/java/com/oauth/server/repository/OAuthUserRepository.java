@@ -0,0 +1,8 @@
+package com.oauth.server.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.oauth.server.dto.OAuthUser;
+
+public interface OAuthUserRepository extends MongoRepository<OAuthUser, String> {
+}
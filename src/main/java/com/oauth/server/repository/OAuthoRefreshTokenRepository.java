@@ -1,8 +1,32 @@
 package com.oauth.server.repository;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import com.oauth.server.dto.OAuthRefreshToken;
 
 public interface OAuthoRefreshTokenRepository extends MongoRepository<OAuthRefreshToken, String> {
+	Long deleteByTokenIdIn(Collection<String> tokenIds);
+
+	/**
+	 * Token ids of a client's refresh tokens.
+	 */
+	@Query(value = "{ 'clientId' : ?0 }", fields = "{ '_id' : 1 }")
+	List<OAuthRefreshToken> findKeysByClientId(String clientId, Pageable pageable);
+
+	/**
+	 * Token ids of a user's refresh tokens.
+	 */
+	@Query(value = "{ 'userName' : ?0 }", fields = "{ '_id' : 1 }")
+	List<OAuthRefreshToken> findKeysByUserName(String userName, Pageable pageable);
+
+	/**
+	 * Token ids of a user's refresh tokens for a client.
+	 */
+	@Query(value = "{ 'clientId' : ?0, 'userName' : ?1 }", fields = "{ '_id' : 1 }")
+	List<OAuthRefreshToken> findKeysByClientIdAndUserName(String clientId, String userName, Pageable pageable);
 }
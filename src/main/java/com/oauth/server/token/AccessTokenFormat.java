@@ -0,0 +1,20 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+/**
+ * Format of the access tokens issued by the authorization server.
+ */
+public enum AccessTokenFormat {
+    /**
+     * Random token values, stored with their authentication and read back on every validation.
+     */
+    OPAQUE,
+    /**
+     * Signed, self-contained JWTs validated locally; see {@link JwtAccessTokenStore}.
+     */
+    JWT
+}
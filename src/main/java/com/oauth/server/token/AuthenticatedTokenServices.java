@@ -0,0 +1,210 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.dto.OAuthRefreshToken;
+import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
+import lombok.NonNull;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.common.DefaultExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidGrantException;
+import org.springframework.security.oauth2.common.exceptions.InvalidScopeException;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.ClientDetailsService;
+import org.springframework.security.oauth2.provider.ClientRegistrationException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.TokenRequest;
+import org.springframework.security.oauth2.provider.token.DefaultTokenServices;
+import org.springframework.security.oauth2.provider.token.TokenEnhancer;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+
+/**
+ * {@link DefaultTokenServices} reading each stored token record once.
+ *
+ * <p>
+ * Bearer token validation reads the access token and its authentication together, and the refresh grant reads the
+ * refresh token and its authentication together, then hands all of its removals and writes to
+ * {@link AuthenticatedTokenStore#refreshAccessToken} at once. Validation and grant rules are the ones of
+ * {@link DefaultTokenServices}, except that expired tokens are only rejected: their records are left for the database
+ * time to live to purge, rather than deleted by the request that found them.
+ * </p>
+ */
+public class AuthenticatedTokenServices extends DefaultTokenServices {
+
+    private final AuthenticatedTokenStore tokenStore;
+
+    private ClientDetailsService clientDetailsService;
+
+    private AuthenticationManager authenticationManager;
+
+    private TokenEnhancer accessTokenEnhancer;
+
+    private boolean supportRefreshToken;
+
+    private boolean reuseRefreshToken = true;
+
+    public AuthenticatedTokenServices(@NonNull AuthenticatedTokenStore tokenStore) {
+        this.tokenStore = tokenStore;
+        super.setTokenStore(tokenStore);
+    }
+
+    @Override
+    public OAuth2AccessToken refreshAccessToken(String refreshTokenValue, TokenRequest tokenRequest) {
+        if (!supportRefreshToken) {
+            throw new InvalidGrantException("Invalid refresh token: " + refreshTokenValue);
+        }
+
+        OAuthRefreshToken storedRefreshToken = tokenStore.readRefreshTokenAndAuthentication(refreshTokenValue);
+        if (storedRefreshToken == null || storedRefreshToken.getToken() == null) {
+            throw new InvalidGrantException("Invalid refresh token: " + refreshTokenValue);
+        }
+
+        OAuth2RefreshToken refreshToken = storedRefreshToken.getToken();
+        OAuth2Authentication authentication = storedRefreshToken.getAuthentication();
+        if (authentication == null) {
+            throw new InvalidGrantException("Invalid refresh token: " + refreshTokenValue);
+        }
+        if (authenticationManager != null && !authentication.isClientOnly()) {
+            authentication = reauthenticate(authentication);
+        }
+
+        String clientId = authentication.getOAuth2Request().getClientId();
+        if (clientId == null || !clientId.equals(tokenRequest.getClientId())) {
+            throw new InvalidGrantException("Wrong client for this refresh token: " + refreshTokenValue);
+        }
+
+        if (isExpired(refreshToken)) {
+            throw new InvalidTokenException("Invalid refresh token (expired): " + refreshToken);
+        }
+
+        authentication = createRefreshedAuthentication(authentication, tokenRequest);
+        OAuth2RefreshToken issuedRefreshToken = reuseRefreshToken ? refreshToken : createRefreshToken(authentication);
+        OAuth2AccessToken accessToken = createAccessToken(authentication, issuedRefreshToken);
+
+        tokenStore.refreshAccessToken(refreshToken, accessToken, authentication);
+        return accessToken;
+    }
+
+    @Override
+    public OAuth2Authentication loadAuthentication(String accessTokenValue) {
+        OAuthAccessToken accessToken = tokenStore.readAccessTokenAndAuthentication(accessTokenValue);
+
+        if (accessToken == null || accessToken.getToken() == null) {
+            throw new InvalidTokenException("Invalid access token: " + accessTokenValue);
+        } else if (accessToken.getToken().isExpired()) {
+            throw new InvalidTokenException("Access token expired: " + accessTokenValue);
+        }
+
+        OAuth2Authentication authentication = accessToken.getAuthentication();
+        if (authentication == null) {
+            throw new InvalidTokenException("Invalid access token: " + accessTokenValue);
+        }
+
+        if (clientDetailsService != null) {
+            String clientId = authentication.getOAuth2Request().getClientId();
+            try {
+                clientDetailsService.loadClientByClientId(clientId);
+            } catch (ClientRegistrationException e) {
+                throw new InvalidTokenException("Client not valid: " + clientId, e);
+            }
+        }
+        return authentication;
+    }
+
+    @Override
+    public void setClientDetailsService(ClientDetailsService clientDetailsService) {
+        super.setClientDetailsService(clientDetailsService);
+        this.clientDetailsService = clientDetailsService;
+    }
+
+    @Override
+    public void setAuthenticationManager(AuthenticationManager authenticationManager) {
+        super.setAuthenticationManager(authenticationManager);
+        this.authenticationManager = authenticationManager;
+    }
+
+    @Override
+    public void setTokenEnhancer(TokenEnhancer accessTokenEnhancer) {
+        super.setTokenEnhancer(accessTokenEnhancer);
+        this.accessTokenEnhancer = accessTokenEnhancer;
+    }
+
+    @Override
+    public void setSupportRefreshToken(boolean supportRefreshToken) {
+        super.setSupportRefreshToken(supportRefreshToken);
+        this.supportRefreshToken = supportRefreshToken;
+    }
+
+    @Override
+    public void setReuseRefreshToken(boolean reuseRefreshToken) {
+        super.setReuseRefreshToken(reuseRefreshToken);
+        this.reuseRefreshToken = reuseRefreshToken;
+    }
+
+    private OAuth2Authentication reauthenticate(OAuth2Authentication authentication) {
+        Authentication userAuthentication = authentication.getUserAuthentication();
+        PreAuthenticatedAuthenticationToken preAuthentication =
+            new PreAuthenticatedAuthenticationToken(userAuthentication, "", authentication.getAuthorities());
+        if (userAuthentication.getDetails() != null) {
+            preAuthentication.setDetails(userAuthentication.getDetails());
+        }
+
+        Authentication user = authenticationManager.authenticate(preAuthentication);
+        OAuth2Authentication reauthenticated = new OAuth2Authentication(authentication.getOAuth2Request(), user);
+        reauthenticated.setDetails(authentication.getDetails());
+        return reauthenticated;
+    }
+
+    private OAuth2Authentication createRefreshedAuthentication(OAuth2Authentication authentication,
+                                                               TokenRequest request) {
+        Set<String> scope = request.getScope();
+        OAuth2Request clientAuthentication = authentication.getOAuth2Request().refresh(request);
+        if (scope != null && !scope.isEmpty()) {
+            Set<String> originalScope = clientAuthentication.getScope();
+            if (originalScope == null || !originalScope.containsAll(scope)) {
+                throw new InvalidScopeException("Unable to narrow the scope of the client authentication to " + scope
+                    + ".", originalScope);
+            }
+            clientAuthentication = clientAuthentication.narrowScope(scope);
+        }
+        return new OAuth2Authentication(clientAuthentication, authentication.getUserAuthentication());
+    }
+
+    private OAuth2RefreshToken createRefreshToken(OAuth2Authentication authentication) {
+        if (!isSupportRefreshToken(authentication.getOAuth2Request())) {
+            return null;
+        }
+
+        int validitySeconds = getRefreshTokenValiditySeconds(authentication.getOAuth2Request());
+        String value = UUID.randomUUID().toString();
+        if (validitySeconds > 0) {
+            return new DefaultExpiringOAuth2RefreshToken(value,
+                new Date(System.currentTimeMillis() + (validitySeconds * 1000L)));
+        }
+        return new DefaultOAuth2RefreshToken(value);
+    }
+
+    private OAuth2AccessToken createAccessToken(OAuth2Authentication authentication, OAuth2RefreshToken refreshToken) {
+        DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(UUID.randomUUID().toString());
+        int validitySeconds = getAccessTokenValiditySeconds(authentication.getOAuth2Request());
+        if (validitySeconds > 0) {
+            token.setExpiration(new Date(System.currentTimeMillis() + (validitySeconds * 1000L)));
+        }
+        token.setRefreshToken(refreshToken);
+        token.setScope(authentication.getOAuth2Request().getScope());
+
+        return accessTokenEnhancer != null ? accessTokenEnhancer.enhance(token, authentication) : token;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.dto.OAuthRefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+/**
+ * A {@link TokenStore} that can return a token together with its authentication from a single read, and apply the
+ * writes of a refresh grant together.
+ */
+public interface AuthenticatedTokenStore extends TokenStore {
+
+    /**
+     * Read the stored access token record, carrying both the token and its authentication.
+     *
+     * @param tokenValue the access token value.
+     * @return the stored record, or null if the token is not found.
+     */
+    OAuthAccessToken readAccessTokenAndAuthentication(String tokenValue);
+
+    /**
+     * Read the stored refresh token record, carrying both the token and its authentication.
+     *
+     * @param refreshTokenValue the refresh token value.
+     * @return the stored record, or null if the token is not found.
+     */
+    OAuthRefreshToken readRefreshTokenAndAuthentication(String refreshTokenValue);
+
+    /**
+     * Apply the writes of a refresh grant: remove the access tokens issued for {@code refreshToken}, store
+     * {@code accessToken}, and replace {@code refreshToken} when {@code accessToken} does not carry it anymore.
+     *
+     * @param refreshToken the refresh token presented in the grant.
+     * @param accessToken the access token issued by the grant.
+     * @param authentication the authentication of the issued access token.
+     */
+    void refreshAccessToken(OAuth2RefreshToken refreshToken, OAuth2AccessToken accessToken,
+                            OAuth2Authentication authentication);
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.dto.OAuthRefreshToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.NonNull;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+/**
+ * A {@link TokenStore} decorator that keeps recently read access tokens and their authentications in a bounded
+ * in-process cache.
+ *
+ * <p>
+ * Entries never outlive the access token's own expiration, and are evicted synchronously by
+ * {@link #removeAccessToken(OAuth2AccessToken)}, {@link #removeRefreshToken(OAuth2RefreshToken)},
+ * {@link #removeAccessTokenUsingRefreshToken(OAuth2RefreshToken)} and {@link #refreshAccessToken} on this node, and by
+ * {@link #evictAccessTokens(Collection)} for access tokens deleted by id without going through this store. A read
+ * racing with a removal, which may have fetched the record before it was deleted, drops what it cached once it sees
+ * that a removal completed in the meantime.
+ * Removals made on other nodes are only picked up once the entry reaches its time to live, so the time to live bounds
+ * how stale a revocation can be.
+ * </p>
+ *
+ * <p>
+ * Hit, miss and eviction counts are available through {@link #stats()} and are published as {@code cache.*} meters
+ * under the {@code tokenStore} cache name.
+ * </p>
+ */
+public class CachingTokenStore implements AuthenticatedTokenStore, MeterBinder {
+
+    private static final String CACHE_NAME = "tokenStore";
+
+    private final AuthenticatedTokenStore delegate;
+
+    private final Cache<String, OAuthAccessToken> accessTokens;
+
+    /**
+     * Access token values cached for each refresh token value, used to evict by refresh token.
+     */
+    private final ConcurrentMap<String, Set<String>> accessTokensByRefreshToken = new ConcurrentHashMap<>();
+
+    /**
+     * Cached access token values by token id, used to evict by token id.
+     */
+    private final ConcurrentMap<String, String> accessTokensById = new ConcurrentHashMap<>();
+
+    private final TokenKeyHasher tokenKeyHasher;
+
+    /**
+     * Number of removals completed against the delegate. A read caching a record checks it did not change while the
+     * record was read; removals bump it before their last eviction, so either the read or the eviction drops the
+     * entry.
+     */
+    private final AtomicLong removals = new AtomicLong();
+
+    public CachingTokenStore(@NonNull AuthenticatedTokenStore delegate, @NonNull TokenKeyHasher tokenKeyHasher,
+                             long maximumSize, @NonNull Duration timeToLive) {
+        this.delegate = delegate;
+        this.tokenKeyHasher = tokenKeyHasher;
+        this.accessTokens = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive.toMillis(), TimeUnit.MILLISECONDS)
+            .removalListener(this::onRemoval)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Cache statistics: hits, misses and evictions.
+     *
+     * @return a snapshot of the cache statistics.
+     */
+    public CacheStats stats() {
+        return accessTokens.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        GuavaCacheMetrics.monitor(registry, accessTokens, CACHE_NAME);
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+        return readAuthentication(token.getValue());
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(String token) {
+        OAuthAccessToken accessToken = readAccessTokenAndAuthentication(token);
+        return accessToken == null ? null : accessToken.getAuthentication();
+    }
+
+    @Override
+    public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        evict(token.getValue());
+        delegate.storeAccessToken(token, authentication);
+        cache(token, authentication);
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String tokenValue) {
+        OAuthAccessToken accessToken = readAccessTokenAndAuthentication(tokenValue);
+        return accessToken == null ? null : accessToken.getToken();
+    }
+
+    /**
+     * Read through the cache. Expired records are returned as read from the delegate, without being cached, so that
+     * callers can reject and remove them.
+     */
+    @Override
+    public OAuthAccessToken readAccessTokenAndAuthentication(String tokenValue) {
+        OAuthAccessToken cached = accessTokens.getIfPresent(tokenValue);
+
+        if (cached != null) {
+            if (!isExpired(cached.getToken())) {
+                return cached;
+            }
+            accessTokens.invalidate(tokenValue);
+        }
+
+        long removalsBefore = removals.get();
+        OAuthAccessToken accessToken = delegate.readAccessTokenAndAuthentication(tokenValue);
+        if (accessToken == null || accessToken.getToken() == null || accessToken.getAuthentication() == null) {
+            return accessToken;
+        }
+
+        OAuthAccessToken read = cache(accessToken.getToken(), accessToken.getAuthentication());
+        if (removals.get() != removalsBefore) {
+            evict(tokenValue);
+        }
+        return read;
+    }
+
+    @Override
+    public void removeAccessToken(OAuth2AccessToken token) {
+        evict(token.getValue());
+        delegate.removeAccessToken(token);
+        removals.incrementAndGet();
+        evict(token.getValue());
+    }
+
+    /**
+     * Evict access tokens deleted from the store by token id, without going through this store, as revocation jobs
+     * do. Call once they are deleted.
+     *
+     * @param tokenIds token ids of the deleted access tokens.
+     */
+    public void evictAccessTokens(@NonNull Collection<String> tokenIds) {
+        removals.incrementAndGet();
+        for (String tokenId : tokenIds) {
+            String tokenValue = accessTokensById.get(tokenId);
+            if (tokenValue != null) {
+                evict(tokenValue);
+            }
+        }
+    }
+
+    @Override
+    public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+        delegate.storeRefreshToken(refreshToken, authentication);
+    }
+
+    @Override
+    public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+        return delegate.readRefreshToken(tokenValue);
+    }
+
+    @Override
+    public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+        return delegate.readAuthenticationForRefreshToken(token);
+    }
+
+    @Override
+    public OAuthRefreshToken readRefreshTokenAndAuthentication(String refreshTokenValue) {
+        return delegate.readRefreshTokenAndAuthentication(refreshTokenValue);
+    }
+
+    @Override
+    public void removeRefreshToken(OAuth2RefreshToken token) {
+        evictByRefreshToken(token.getValue());
+        delegate.removeRefreshToken(token);
+        removals.incrementAndGet();
+        evictByRefreshToken(token.getValue());
+    }
+
+    @Override
+    public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+        evictByRefreshToken(refreshToken.getValue());
+        delegate.removeAccessTokenUsingRefreshToken(refreshToken);
+        removals.incrementAndGet();
+        evictByRefreshToken(refreshToken.getValue());
+    }
+
+    @Override
+    public void refreshAccessToken(OAuth2RefreshToken refreshToken, OAuth2AccessToken accessToken,
+                                   OAuth2Authentication authentication) {
+        evictByRefreshToken(refreshToken.getValue());
+        delegate.refreshAccessToken(refreshToken, accessToken, authentication);
+        removals.incrementAndGet();
+        evictByRefreshToken(refreshToken.getValue());
+        cache(accessToken, authentication);
+    }
+
+    @Override
+    public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+        return delegate.getAccessToken(authentication);
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
+        return delegate.findTokensByClientIdAndUserName(clientId, userName);
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+        return delegate.findTokensByClientId(clientId);
+    }
+
+    private OAuthAccessToken cache(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        OAuthAccessToken cached = OAuthAccessToken.builder()
+            .token(token)
+            .authentication(authentication)
+            .build();
+        if (isExpired(token)) {
+            return cached;
+        }
+
+        String tokenId = tokenKeyHasher.hash(token.getValue());
+        cached.setTokenId(tokenId);
+        accessTokensById.put(tokenId, token.getValue());
+
+        if (token.getRefreshToken() != null) {
+            accessTokensByRefreshToken
+                .computeIfAbsent(token.getRefreshToken().getValue(), key -> ConcurrentHashMap.newKeySet())
+                .add(token.getValue());
+        }
+        accessTokens.put(token.getValue(), cached);
+        return cached;
+    }
+
+    private void evict(String tokenValue) {
+        accessTokens.invalidate(tokenValue);
+    }
+
+    private void evictByRefreshToken(String refreshTokenValue) {
+        Set<String> tokenValues = accessTokensByRefreshToken.remove(refreshTokenValue);
+        if (tokenValues != null) {
+            accessTokens.invalidateAll(tokenValues);
+        }
+    }
+
+    private void onRemoval(RemovalNotification<String, OAuthAccessToken> notification) {
+        if (notification.getCause() == RemovalCause.REPLACED || notification.getValue() == null) {
+            return;
+        }
+
+        if (notification.getValue().getTokenId() != null) {
+            accessTokensById.remove(notification.getValue().getTokenId(), notification.getKey());
+        }
+
+        OAuth2RefreshToken refreshToken = notification.getValue().getToken().getRefreshToken();
+        if (refreshToken == null) {
+            return;
+        }
+
+        accessTokensByRefreshToken.computeIfPresent(refreshToken.getValue(), (key, tokenValues) -> {
+            tokenValues.remove(notification.getKey());
+            return tokenValues.isEmpty() ? null : tokenValues;
+        });
+    }
+
+    private static boolean isExpired(OAuth2AccessToken token) {
+        Date expiration = token.getExpiration();
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import java.util.Arrays;
+import java.util.Collection;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.AuthenticationKeyGenerator;
+import org.springframework.security.oauth2.provider.token.DefaultAuthenticationKeyGenerator;
+
+/**
+ * An {@link AuthenticationKeyGenerator} that produces the same keys as {@link DefaultAuthenticationKeyGenerator} when
+ * the hasher uses MD5, without building an intermediate map or digest per call.
+ */
+@RequiredArgsConstructor
+public class HashingAuthenticationKeyGenerator implements AuthenticationKeyGenerator {
+
+    @NonNull
+    private final TokenKeyHasher tokenKeyHasher;
+
+    @Override
+    public String extractKey(OAuth2Authentication authentication) {
+        OAuth2Request request = authentication.getOAuth2Request();
+
+        // Same layout as LinkedHashMap.toString() of the values used by DefaultAuthenticationKeyGenerator.
+        StringBuilder values = tokenKeyHasher.builder().append('{');
+        if (!authentication.isClientOnly()) {
+            values.append("username=").append(authentication.getName()).append(", ");
+        }
+        values.append("client_id=").append(request.getClientId());
+        if (request.getScope() != null) {
+            values.append(", scope=");
+            appendSortedScopes(values, request.getScope());
+        }
+        values.append('}');
+
+        return tokenKeyHasher.hash(values);
+    }
+
+    /**
+     * Append the distinct scopes in natural order separated by spaces, as OAuth2Utils.formatParameterList does for a
+     * TreeSet.
+     */
+    static void appendSortedScopes(StringBuilder builder, Collection<String> scopes) {
+        if (scopes.size() == 1) {
+            builder.append(scopes.iterator().next());
+            return;
+        }
+
+        String[] sorted = scopes.toArray(new String[0]);
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (i > 0 && sorted[i].equals(sorted[i - 1])) {
+                continue;
+            }
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(sorted[i]);
+        }
+    }
+}
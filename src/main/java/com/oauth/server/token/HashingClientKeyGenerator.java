@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+import org.springframework.security.oauth2.client.token.ClientKeyGenerator;
+import org.springframework.security.oauth2.client.token.DefaultClientKeyGenerator;
+
+/**
+ * A {@link ClientKeyGenerator} that produces the same keys as {@link DefaultClientKeyGenerator} when the hasher uses
+ * MD5, without building an intermediate map or digest per call.
+ */
+@RequiredArgsConstructor
+public class HashingClientKeyGenerator implements ClientKeyGenerator {
+
+    @NonNull
+    private final TokenKeyHasher tokenKeyHasher;
+
+    @Override
+    public String extractKey(OAuth2ProtectedResourceDetails resource, Authentication authentication) {
+        // Same layout as LinkedHashMap.toString() of the values used by DefaultClientKeyGenerator.
+        StringBuilder values = tokenKeyHasher.builder().append('{');
+        if (authentication != null) {
+            values.append("username=").append(authentication.getName()).append(", ");
+        }
+        values.append("client_id=").append(resource.getClientId());
+        if (resource.getScope() != null) {
+            values.append(", scope=");
+            HashingAuthenticationKeyGenerator.appendSortedScopes(values, resource.getScope());
+        }
+        values.append('}');
+
+        return tokenKeyHasher.hash(values);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.dto.OAuthRefreshToken;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import lombok.NonNull;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+
+/**
+ * An {@link AuthenticatedTokenStore} for signed, self-contained access tokens.
+ *
+ * <p>
+ * Access tokens are JWTs signed by the {@link SignedTokenConverter}, carrying the client id, the user and its
+ * authorities, the scopes and the expiry. They are not stored: reading one checks its signature, decodes it and looks
+ * its id up in the {@link RevokedTokenDenylist}, without any database read. Refresh tokens are stored by the delegate
+ * as before.
+ * </p>
+ *
+ * <p>
+ * As access tokens are not stored, they cannot be found by client, user or refresh token: a refresh grant or a bulk
+ * revocation leaves the access tokens already issued valid until they expire, and only
+ * {@link #removeAccessToken(OAuth2AccessToken)} revokes one before its expiry. Keep the access token validity short.
+ * </p>
+ */
+public class JwtAccessTokenStore implements AuthenticatedTokenStore {
+
+    private final AuthenticatedTokenStore delegate;
+
+    private final SignedTokenConverter tokenConverter;
+
+    private final RevokedTokenDenylist denylist;
+
+    public JwtAccessTokenStore(@NonNull AuthenticatedTokenStore delegate,
+                               @NonNull SignedTokenConverter tokenConverter,
+                               @NonNull RevokedTokenDenylist denylist) {
+        this.delegate = delegate;
+        this.tokenConverter = tokenConverter;
+        this.denylist = denylist;
+    }
+
+    /**
+     * Decode a signed access token and its authentication, checking the signature and the denylist. The expiry is not
+     * checked: expired tokens are returned, and callers must reject them.
+     *
+     * @param tokenValue the encoded access token.
+     * @return the token and its authentication, or null if the token is invalid or revoked.
+     */
+    @Override
+    public OAuthAccessToken readAccessTokenAndAuthentication(String tokenValue) {
+        Map<String, Object> claims;
+        try {
+            claims = tokenConverter.decode(tokenValue);
+        } catch (InvalidTokenException e) {
+            return null;
+        }
+        // Refresh tokens are signed too, and carry the id of their access token; they are not access tokens.
+        if (claims.containsKey(AccessTokenConverter.ATI)
+            || denylist.isRevoked((String) claims.get(AccessTokenConverter.JTI))) {
+            return null;
+        }
+
+        return OAuthAccessToken.builder()
+            .token(tokenConverter.extractAccessToken(tokenValue, claims))
+            .authentication(tokenConverter.extractAuthentication(claims))
+            .expiration(expiration(claims))
+            .build();
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String tokenValue) {
+        OAuthAccessToken accessToken = readAccessTokenAndAuthentication(tokenValue);
+        return accessToken == null ? null : accessToken.getToken();
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+        return readAuthentication(token.getValue());
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(String token) {
+        OAuthAccessToken accessToken = readAccessTokenAndAuthentication(token);
+        return accessToken == null ? null : accessToken.getAuthentication();
+    }
+
+    /**
+     * Signed access tokens carry everything they need; nothing is stored.
+     */
+    @Override
+    public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+    }
+
+    /**
+     * Deny the token on every node until it expires. Tokens already expired need no entry, as the token services and
+     * introspection reject them by their expiration.
+     */
+    @Override
+    public void removeAccessToken(OAuth2AccessToken token) {
+        Object tokenId = token.getAdditionalInformation().get(AccessTokenConverter.JTI);
+        if (tokenId != null && token.getExpiration() != null && !token.isExpired()) {
+            denylist.revoke(tokenId.toString(), token.getExpiration());
+        }
+    }
+
+    /**
+     * Access tokens issued earlier are not stored, so a new one is issued for every grant.
+     */
+    @Override
+    public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+        return null;
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+        delegate.storeRefreshToken(refreshToken, authentication);
+    }
+
+    @Override
+    public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+        return delegate.readRefreshToken(tokenValue);
+    }
+
+    @Override
+    public OAuthRefreshToken readRefreshTokenAndAuthentication(String refreshTokenValue) {
+        return delegate.readRefreshTokenAndAuthentication(refreshTokenValue);
+    }
+
+    @Override
+    public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+        return delegate.readAuthenticationForRefreshToken(token);
+    }
+
+    @Override
+    public void removeRefreshToken(OAuth2RefreshToken token) {
+        delegate.removeRefreshToken(token);
+    }
+
+    /**
+     * The access tokens of a refresh token are not stored; they remain valid until they expire.
+     */
+    @Override
+    public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+    }
+
+    /**
+     * Only the refresh token is written: replaced when the refresh grant issued a new one.
+     */
+    @Override
+    public void refreshAccessToken(OAuth2RefreshToken refreshToken, OAuth2AccessToken accessToken,
+                                   OAuth2Authentication authentication) {
+        OAuth2RefreshToken newRefreshToken = accessToken.getRefreshToken();
+        if (newRefreshToken == null || !newRefreshToken.getValue().equals(refreshToken.getValue())) {
+            delegate.removeRefreshToken(refreshToken);
+            if (newRefreshToken != null) {
+                delegate.storeRefreshToken(newRefreshToken, authentication);
+            }
+        }
+    }
+
+    private static Date expiration(Map<String, Object> claims) {
+        Object exp = claims.get(AccessTokenConverter.EXP);
+        return exp instanceof Number ? new Date(((Number) exp).longValue() * 1000L) : null;
+    }
+}
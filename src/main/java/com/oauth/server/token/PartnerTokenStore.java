@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+import org.springframework.security.oauth2.client.token.ClientTokenServices;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+
+/**
+ * {@link ClientTokenServices} for partner tokens that can replace the stored token of a user in a single write.
+ *
+ * <p>
+ * Tokens are stored under the authentication id of the user and partner. Tokens saved before that, under their token
+ * value, are moved to the authentication id when read, or all at once by {@link #migrateLegacyTokens()}.
+ * </p>
+ */
+public interface PartnerTokenStore extends ClientTokenServices {
+
+    /**
+     * Replace the partner access token stored for the {@link Authentication} provided, unless a token issued at the
+     * same time or later is already stored. The user keeps a token throughout.
+     *
+     * @param resource partner protected resource.
+     * @param authentication user authentication.
+     * @param accessToken oauth access token.
+     * @param issuedAt when the partner issued the token, in epoch milliseconds.
+     * @return true if the token was stored, false if a newer token was kept.
+     */
+    boolean replaceAccessToken(OAuth2ProtectedResourceDetails resource, Authentication authentication,
+                               OAuth2AccessToken accessToken, long issuedAt);
+
+    /**
+     * Move every token still stored under its token value to its authentication id.
+     *
+     * @return number of tokens migrated.
+     */
+    int migrateLegacyTokens();
+}
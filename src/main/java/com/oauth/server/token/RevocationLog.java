@@ -0,0 +1,235 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.oauth.server.dto.OAuthRevocationEvent;
+import com.oauth.server.dto.RevocationFeedPage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Append-only log of revocations, read by caches outside this server from a resumable sequence cursor.
+ *
+ * <p>
+ * Every node reloads new events from the {@link RevocationLogStore} every
+ * {@code oauth.revocation-log.refresh-seconds} and keeps the most recent ones in memory, so consumers that keep up are
+ * served without a store read. Sequences are handed out before events are written, so an event can become visible
+ * after a later one; the log waits up to {@code gapTimeout} for a missing sequence before moving past it, and an event
+ * whose write failed or took too long is appended again. Events are kept for {@code retention}: a consumer whose
+ * cursor is older must drop what it cached.
+ * </p>
+ *
+ * <p>
+ * Failing to append an event after retries only logs: the revocation itself is done, and consumers miss it until
+ * their own cache entries expire.
+ * </p>
+ */
+@Log4j2
+public class RevocationLog {
+
+    private static final int REFRESH_PAGE_SIZE = 100;
+
+    private static final int MAX_APPEND_ATTEMPTS = 3;
+
+    private final RevocationLogStore revocationLogStore;
+
+    private final long retentionMillis;
+
+    private final long gapTimeoutMillis;
+
+    private final int bufferSize;
+
+    /**
+     * Most recent events, by sequence.
+     */
+    private final ConcurrentNavigableMap<Long, OAuthRevocationEvent> recentEvents = new ConcurrentSkipListMap<>();
+
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Sequence up to which events are served, -1 until the log was first read.
+     */
+    private volatile long head = -1L;
+
+    public RevocationLog(@NonNull RevocationLogStore revocationLogStore, @NonNull Duration retention,
+                         @NonNull Duration gapTimeout, int bufferSize) {
+        this.revocationLogStore = revocationLogStore;
+        this.retentionMillis = retention.toMillis();
+        this.gapTimeoutMillis = gapTimeout.toMillis();
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Log access tokens revoked before their expiration.
+     *
+     * @param tokenIds token ids.
+     * @param clientId client of the tokens, or null if unknown.
+     */
+    public void accessTokensRevoked(@NonNull Collection<String> tokenIds, String clientId) {
+        if (!tokenIds.isEmpty()) {
+            append(OAuthRevocationEvent.Type.ACCESS_TOKEN, new ArrayList<>(tokenIds), clientId);
+        }
+    }
+
+    /**
+     * Log a refresh token revoked before its expiration.
+     *
+     * @param tokenId token id.
+     */
+    public void refreshTokenRevoked(@NonNull String tokenId) {
+        append(OAuthRevocationEvent.Type.REFRESH_TOKEN, Collections.singletonList(tokenId), null);
+    }
+
+    /**
+     * Log the start of the revocation of all the tokens of a client.
+     *
+     * @param clientId client id.
+     */
+    public void clientTokensRevoked(@NonNull String clientId) {
+        append(OAuthRevocationEvent.Type.CLIENT, Collections.emptyList(), clientId);
+    }
+
+    /**
+     * Read the events after a sequence.
+     *
+     * @param afterSequence the cursor of the previous read, or 0 to read from the oldest event kept.
+     * @param limit maximum number of events.
+     * @return events, and the cursor to read the following events from.
+     */
+    public RevocationFeedPage read(long afterSequence, int limit) {
+        long current = head;
+        if (afterSequence >= current) {
+            return new RevocationFeedPage(Collections.emptyList(), afterSequence, false);
+        }
+
+        List<OAuthRevocationEvent> events;
+        if (!recentEvents.isEmpty() && afterSequence + 1 >= recentEvents.firstKey()) {
+            events = recentEvents.subMap(afterSequence, false, current, true).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+        } else {
+            events = revocationLogStore.findEvents(afterSequence, limit).stream()
+                .filter(event -> event.getSequence() <= current)
+                .collect(Collectors.toList());
+        }
+
+        if (events.size() < limit) {
+            return new RevocationFeedPage(events, current, false);
+        }
+        long cursor = events.get(events.size() - 1).getSequence();
+        return new RevocationFeedPage(events, cursor, cursor < current);
+    }
+
+    /**
+     * Sequence up to which events are served.
+     *
+     * @return the sequence, or -1 until the log was first read.
+     */
+    public long head() {
+        return head;
+    }
+
+    /**
+     * Register a listener called with the new head each time new events can be read.
+     *
+     * @param listener the listener.
+     */
+    public void addListener(@NonNull LongConsumer listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Load the events appended since the last refresh. Failures only log; events are picked up on the next refresh.
+     */
+    @Scheduled(fixedDelayString = "PT${oauth.revocation-log.refresh-seconds:1}S")
+    public synchronized void refresh() {
+        if (head < 0) {
+            try {
+                advance(revocationLogStore.findLastSequence());
+            } catch (RuntimeException e) {
+                log.warn("Unable to read the revocation log.", e);
+            }
+            return;
+        }
+
+        long current = head;
+        try {
+            List<OAuthRevocationEvent> events;
+            do {
+                events = revocationLogStore.findEvents(current, REFRESH_PAGE_SIZE);
+                long gapDeadline = System.currentTimeMillis() - gapTimeoutMillis;
+                for (OAuthRevocationEvent event : events) {
+                    if (event.getSequence() != current + 1 && event.getCreatedAt().getTime() > gapDeadline) {
+                        break;
+                    }
+                    recentEvents.put(event.getSequence(), event);
+                    current = event.getSequence();
+                }
+            } while (events.size() == REFRESH_PAGE_SIZE && current == events.get(events.size() - 1).getSequence());
+        } catch (RuntimeException e) {
+            log.warn("Unable to reload the revocation log.", e);
+        }
+
+        while (recentEvents.size() > bufferSize) {
+            recentEvents.pollFirstEntry();
+        }
+        if (current != head) {
+            advance(current);
+        }
+    }
+
+    private void advance(long sequence) {
+        head = sequence;
+        for (LongConsumer listener : listeners) {
+            listener.accept(sequence);
+        }
+    }
+
+    /**
+     * Append an event, again under a new sequence if the append failed or was written so late that readers may have
+     * moved past its sequence. Readers only skip a sequence once a later event is {@code gapTimeout} old, and later
+     * sequences are created after this one, so a write completing within half the timeout is always seen; the other
+     * half covers clock skew between nodes. An event may thus be logged twice, which consumers can ignore.
+     */
+    private void append(OAuthRevocationEvent.Type type, List<String> tokenIds, String clientId) {
+        OAuthRevocationEvent event = OAuthRevocationEvent.builder()
+            .type(type)
+            .tokenIds(tokenIds)
+            .clientId(clientId)
+            .expiration(new Date(System.currentTimeMillis() + retentionMillis))
+            .build();
+
+        for (int attempt = 1; attempt <= MAX_APPEND_ATTEMPTS; attempt++) {
+            try {
+                OAuthRevocationEvent appended = revocationLogStore.appendEvent(event);
+                long writeMillis = System.currentTimeMillis() - appended.getCreatedAt().getTime();
+                if (writeMillis <= gapTimeoutMillis / 2) {
+                    return;
+                }
+                log.info("Revocation event {} took {} ms to write, appending it again.", appended.getSequence(),
+                    writeMillis);
+            } catch (RuntimeException e) {
+                if (attempt == MAX_APPEND_ATTEMPTS) {
+                    log.warn("Unable to log the revocation of {} {}.", type, clientId, e);
+                    return;
+                }
+            }
+        }
+        log.warn("Revocation of {} {} may be missed, as every append was written late.", type, clientId);
+    }
+}
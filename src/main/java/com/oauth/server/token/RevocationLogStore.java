@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.oauth.server.dto.OAuthRevocationEvent;
+import java.util.List;
+
+/**
+ * Storage of the append-only revocation log.
+ */
+public interface RevocationLogStore {
+
+    /**
+     * Append an event, assigning it the next sequence of the log and, once assigned, its creation time.
+     *
+     * @param event the event, without a sequence.
+     * @return the event with its sequence and creation time.
+     */
+    OAuthRevocationEvent appendEvent(OAuthRevocationEvent event);
+
+    /**
+     * Read events in sequence order.
+     *
+     * @param afterSequence read events after this sequence.
+     * @param limit maximum number of events.
+     * @return events.
+     */
+    List<OAuthRevocationEvent> findEvents(long afterSequence, int limit);
+
+    /**
+     * Highest sequence written to the log.
+     *
+     * @return the sequence, or 0 if the log is empty.
+     */
+    long findLastSequence();
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.dto.OAuthRefreshToken;
+import java.util.Collection;
+import java.util.Collections;
+import lombok.NonNull;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+/**
+ * A {@link TokenStore} decorator writing the tokens it removes before their expiration to the {@link RevocationLog}.
+ *
+ * <p>
+ * Tokens are logged by their id under the {@link TokenKeyHasher}, once the delegate removed them. Removing expired
+ * tokens is not logged, nor is replacing the access tokens of a refresh token in a refresh grant.
+ * </p>
+ */
+public class RevocationLoggingTokenStore implements AuthenticatedTokenStore {
+
+    private final AuthenticatedTokenStore delegate;
+
+    private final RevocationLog revocationLog;
+
+    private final TokenKeyHasher tokenKeyHasher;
+
+    public RevocationLoggingTokenStore(@NonNull AuthenticatedTokenStore delegate,
+                                       @NonNull RevocationLog revocationLog,
+                                       @NonNull TokenKeyHasher tokenKeyHasher) {
+        this.delegate = delegate;
+        this.revocationLog = revocationLog;
+        this.tokenKeyHasher = tokenKeyHasher;
+    }
+
+    @Override
+    public void removeAccessToken(OAuth2AccessToken token) {
+        delegate.removeAccessToken(token);
+        if (!token.isExpired()) {
+            revocationLog.accessTokensRevoked(Collections.singletonList(tokenKeyHasher.hash(token.getValue())), null);
+        }
+    }
+
+    @Override
+    public void removeRefreshToken(OAuth2RefreshToken token) {
+        delegate.removeRefreshToken(token);
+        if (!isExpired(token)) {
+            revocationLog.refreshTokenRevoked(tokenKeyHasher.hash(token.getValue()));
+        }
+    }
+
+    @Override
+    public OAuthAccessToken readAccessTokenAndAuthentication(String tokenValue) {
+        return delegate.readAccessTokenAndAuthentication(tokenValue);
+    }
+
+    @Override
+    public OAuthRefreshToken readRefreshTokenAndAuthentication(String refreshTokenValue) {
+        return delegate.readRefreshTokenAndAuthentication(refreshTokenValue);
+    }
+
+    @Override
+    public void refreshAccessToken(OAuth2RefreshToken refreshToken, OAuth2AccessToken accessToken,
+                                   OAuth2Authentication authentication) {
+        delegate.refreshAccessToken(refreshToken, accessToken, authentication);
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+        return delegate.readAuthentication(token);
+    }
+
+    @Override
+    public OAuth2Authentication readAuthentication(String token) {
+        return delegate.readAuthentication(token);
+    }
+
+    @Override
+    public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        delegate.storeAccessToken(token, authentication);
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String tokenValue) {
+        return delegate.readAccessToken(tokenValue);
+    }
+
+    @Override
+    public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+        delegate.storeRefreshToken(refreshToken, authentication);
+    }
+
+    @Override
+    public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+        return delegate.readRefreshToken(tokenValue);
+    }
+
+    @Override
+    public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+        return delegate.readAuthenticationForRefreshToken(token);
+    }
+
+    @Override
+    public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+        delegate.removeAccessTokenUsingRefreshToken(refreshToken);
+    }
+
+    @Override
+    public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+        return delegate.getAccessToken(authentication);
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
+        return delegate.findTokensByClientIdAndUserName(clientId, userName);
+    }
+
+    @Override
+    public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+        return delegate.findTokensByClientId(clientId);
+    }
+
+    private static boolean isExpired(OAuth2RefreshToken token) {
+        return token instanceof ExpiringOAuth2RefreshToken
+            && ((ExpiringOAuth2RefreshToken) token).getExpiration() != null
+            && ((ExpiringOAuth2RefreshToken) token).getExpiration().getTime() <= System.currentTimeMillis();
+    }
+}
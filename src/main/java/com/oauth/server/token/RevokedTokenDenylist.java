@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.google.common.collect.ImmutableMap;
+import com.oauth.server.dto.OAuthRevokedToken;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * In-memory set of the ids of signed access tokens revoked before their expiration.
+ *
+ * <p>
+ * Tokens revoked on this node are denied at once. Tokens revoked on other nodes are denied once the set is reloaded
+ * from the {@link RevokedTokenStore}, every {@code oauth.access-token.jwt.denylist.refresh-seconds}. Ids are dropped
+ * once their token expires. Decoding a token does not check its expiry: expired tokens are rejected by
+ * {@link AuthenticatedTokenServices#loadAuthentication(String)} and {@link TokenIntrospectionService}, which check the
+ * expiration of the decoded token.
+ * </p>
+ */
+@Log4j2
+public class RevokedTokenDenylist {
+
+    private final RevokedTokenStore revokedTokenStore;
+
+    /**
+     * Expiration in epoch milliseconds of each revoked token id.
+     */
+    private volatile Map<String, Long> revokedTokens = ImmutableMap.of();
+
+    public RevokedTokenDenylist(@NonNull RevokedTokenStore revokedTokenStore) {
+        this.revokedTokenStore = revokedTokenStore;
+        refresh();
+    }
+
+    /**
+     * Whether a token was revoked.
+     *
+     * @param tokenId the token's {@code jti} claim.
+     * @return true if revoked.
+     */
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && revokedTokens.containsKey(tokenId);
+    }
+
+    /**
+     * Revoke a token on every node.
+     *
+     * @param tokenId the token's {@code jti} claim.
+     * @param expiration the token's expiration.
+     */
+    public synchronized void revoke(@NonNull String tokenId, @NonNull Date expiration) {
+        revokedTokenStore.saveRevokedToken(new OAuthRevokedToken(tokenId, expiration));
+
+        Map<String, Long> updated = new HashMap<>(revokedTokens);
+        updated.put(tokenId, expiration.getTime());
+        revokedTokens = ImmutableMap.copyOf(updated);
+    }
+
+    /**
+     * Reload the revoked token ids from the store. Failures only log; the current set is kept until the next refresh.
+     */
+    @Scheduled(fixedDelayString = "PT${oauth.access-token.jwt.denylist.refresh-seconds:5}S")
+    public void refresh() {
+        Map<String, Long> reloaded = new HashMap<>();
+        long now = System.currentTimeMillis();
+        try {
+            for (OAuthRevokedToken revokedToken : revokedTokenStore.findRevokedTokens()) {
+                if (revokedToken.getExpiration() != null && revokedToken.getExpiration().getTime() > now) {
+                    reloaded.put(revokedToken.getTokenId(), revokedToken.getExpiration().getTime());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to reload revoked tokens.", e);
+            return;
+        }
+
+        synchronized (this) {
+            revokedTokens.forEach((tokenId, expiration) -> {
+                if (expiration > now) {
+                    reloaded.putIfAbsent(tokenId, expiration);
+                }
+            });
+            revokedTokens = ImmutableMap.copyOf(reloaded);
+        }
+    }
+
+    /**
+     * Number of revoked token ids currently denied.
+     *
+     * @return size of the denylist.
+     */
+    public int size() {
+        return revokedTokens.size();
+    }
+}
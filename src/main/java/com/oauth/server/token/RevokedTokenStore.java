@@ -0,0 +1,29 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.oauth.server.dto.OAuthRevokedToken;
+import java.util.List;
+
+/**
+ * Storage of the signed access tokens revoked before their expiration.
+ */
+public interface RevokedTokenStore {
+
+    /**
+     * Record a revoked token.
+     *
+     * @param revokedToken revoked token.
+     */
+    void saveRevokedToken(OAuthRevokedToken revokedToken);
+
+    /**
+     * All the revoked tokens not purged yet. Records are purged once the token expires, so this stays small.
+     *
+     * @return revoked tokens.
+     */
+    List<OAuthRevokedToken> findRevokedTokens();
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import java.util.Map;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+
+/**
+ * {@link JwtAccessTokenConverter} whose signature check and decoding can be called once per token, so that both the
+ * access token and its authentication are extracted from a single decode.
+ */
+public class SignedTokenConverter extends JwtAccessTokenConverter {
+
+    /**
+     * Verify the signature of a token and decode its claims.
+     *
+     * @param token the encoded token.
+     * @return the claims.
+     * @throws org.springframework.security.oauth2.common.exceptions.InvalidTokenException if the token cannot be
+     *     decoded or its signature does not match.
+     */
+    @Override
+    public Map<String, Object> decode(String token) {
+        return super.decode(token);
+    }
+}
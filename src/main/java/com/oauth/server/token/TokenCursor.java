@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.Value;
+
+/**
+ * Position in an enumeration of the tokens of a client: the user name and token id of the last token read. Encoded
+ * as an opaque URL-safe string.
+ */
+@Value
+public class TokenCursor {
+
+    private static final char SEPARATOR = '\0';
+
+    String userName;
+
+    String tokenId;
+
+    /**
+     * Encode the cursor.
+     *
+     * @return opaque cursor.
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((userName + SEPARATOR + tokenId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor.
+     *
+     * @param cursor opaque cursor, as returned by {@link #encode()}.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public static TokenCursor decode(String cursor) {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = decoded.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return new TokenCursor(decoded.substring(0, separator), decoded.substring(separator + 1));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.oauth.server.dto.CursorPage;
+import com.oauth.server.dto.OAuthAccessToken;
+import java.util.Set;
+import java.util.function.Consumer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Enumeration of the stored access tokens of a client, or of a user for a client, a page or a record at a time rather
+ * than as one collection.
+ *
+ * <p>
+ * Only the requested fields of each record are read; the token id and the record expiration are always read, and
+ * expired records are skipped. Tokens are listed in user name, then token id order.
+ * </p>
+ */
+public interface TokenEnumerationStore {
+
+    /**
+     * Fields of an {@link OAuthAccessToken} record that can be read.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    enum Field {
+        TOKEN("token"),
+        AUTHENTICATION("authentication"),
+        AUTHENTICATION_ID("authenticationId"),
+        CLIENT_ID("clientId"),
+        USER_NAME("userName"),
+        REFRESH_TOKEN("refreshToken"),
+        EXPIRATION("expiration");
+
+        private final String attributeName;
+    }
+
+    /**
+     * List one page of the tokens of a client.
+     *
+     * @param clientId client id.
+     * @param userName user name, or null for the tokens of all users.
+     * @param cursor cursor returned with the previous page, or null for the first page.
+     * @param pageSize maximum number of records read for the page.
+     * @param fields fields to read.
+     * @return a page of token records holding only the requested fields.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    CursorPage<OAuthAccessToken> findTokens(String clientId, String userName, String cursor, int pageSize,
+                                            Set<Field> fields);
+
+    /**
+     * Visit every token of a client, reading them a page at a time.
+     *
+     * @param clientId client id.
+     * @param userName user name, or null for the tokens of all users.
+     * @param fields fields to read.
+     * @param action action run for each token record.
+     */
+    void forEachToken(String clientId, String userName, Set<Field> fields, Consumer<OAuthAccessToken> action);
+}
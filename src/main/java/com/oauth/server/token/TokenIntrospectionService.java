@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.google.common.collect.ImmutableMap;
+import com.oauth.server.dto.OAuthAccessToken;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.NonNull;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.ClientDetailsService;
+import org.springframework.security.oauth2.provider.ClientRegistrationException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+/**
+ * Answers RFC 7662 introspection requests for access tokens.
+ *
+ * <p>
+ * Tokens are read from the same store as bearer validation, so answers are served from the {@link CachingTokenStore}
+ * cache, or decoded locally for signed access tokens. A token is active while it is found, not expired and its client
+ * is still registered; the expiry is checked on every answer, not only when the token is cached. Refresh tokens and
+ * unknown tokens are reported inactive, without telling why.
+ * </p>
+ */
+public class TokenIntrospectionService {
+
+    private static final Map<String, Object> INACTIVE = ImmutableMap.of("active", false);
+
+    private final AuthenticatedTokenStore tokenStore;
+
+    private final ClientDetailsService clientDetailsService;
+
+    public TokenIntrospectionService(@NonNull AuthenticatedTokenStore tokenStore,
+                                     @NonNull ClientDetailsService clientDetailsService) {
+        this.tokenStore = tokenStore;
+        this.clientDetailsService = clientDetailsService;
+    }
+
+    /**
+     * Introspect an access token.
+     *
+     * @param tokenValue the access token.
+     * @return the introspection response, {@code {"active": false}} if the token is not active.
+     */
+    public Map<String, Object> introspect(String tokenValue) {
+        if (tokenValue == null || tokenValue.isEmpty()) {
+            return INACTIVE;
+        }
+
+        OAuthAccessToken accessToken = tokenStore.readAccessTokenAndAuthentication(tokenValue);
+        if (accessToken == null || accessToken.getToken() == null || accessToken.getAuthentication() == null
+            || accessToken.getToken().isExpired()) {
+            return INACTIVE;
+        }
+
+        OAuth2Request request = accessToken.getAuthentication().getOAuth2Request();
+        try {
+            clientDetailsService.loadClientByClientId(request.getClientId());
+        } catch (ClientRegistrationException e) {
+            return INACTIVE;
+        }
+        return activeResponse(accessToken.getToken(), accessToken.getAuthentication());
+    }
+
+    /**
+     * Introspect several access tokens.
+     *
+     * @param tokenValues the access tokens.
+     * @return the introspection responses, in the order of the tokens.
+     */
+    public List<Map<String, Object>> introspect(@NonNull List<String> tokenValues) {
+        List<Map<String, Object>> responses = new ArrayList<>(tokenValues.size());
+        for (String tokenValue : tokenValues) {
+            responses.add(introspect(tokenValue));
+        }
+        return responses;
+    }
+
+    private static Map<String, Object> activeResponse(OAuth2AccessToken token, OAuth2Authentication authentication) {
+        OAuth2Request request = authentication.getOAuth2Request();
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("active", true);
+        if (token.getScope() != null && !token.getScope().isEmpty()) {
+            response.put("scope", String.join(" ", token.getScope()));
+        }
+        response.put("client_id", request.getClientId());
+        if (!authentication.isClientOnly()) {
+            response.put("username", authentication.getName());
+        }
+        response.put("token_type", OAuth2AccessToken.BEARER_TYPE);
+        if (token.getExpiration() != null) {
+            response.put("exp", token.getExpiration().getTime() / 1000L);
+        }
+        if (request.getResourceIds() != null && !request.getResourceIds().isEmpty()) {
+            response.put("aud", request.getResourceIds());
+        }
+        return response;
+    }
+}
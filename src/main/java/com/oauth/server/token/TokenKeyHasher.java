@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import lombok.NonNull;
+
+/**
+ * Hashes token values and authentication keys into the hex keys used by the token DAOs.
+ *
+ * <p>
+ * Digests and working buffers are held per thread, and values are UTF-8 encoded and hex formatted in place, so a key
+ * costs a single String allocation. With {@link Algorithm#MD5} the keys are identical to the ones produced by
+ * {@code JdbcTokenStore.extractTokenKey} and the Spring key generators, so existing records stay addressable.
+ * </p>
+ */
+public final class TokenKeyHasher {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Supported digest algorithms.
+     */
+    public enum Algorithm {
+        /**
+         * Compatible with the keys of existing deployments.
+         */
+        MD5("MD5", 16),
+        /**
+         * For new deployments. Changing the algorithm makes every existing key unreachable.
+         */
+        SHA_256("SHA-256", 32);
+
+        private final String jcaName;
+        private final int digestLength;
+
+        Algorithm(String jcaName, int digestLength) {
+            this.jcaName = jcaName;
+            this.digestLength = digestLength;
+        }
+    }
+
+    private final Algorithm algorithm;
+
+    private final ThreadLocal<Workspace> workspaces;
+
+    public TokenKeyHasher(@NonNull Algorithm algorithm) {
+        this.algorithm = algorithm;
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(algorithm));
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Hash a value into its hex key.
+     *
+     * @param value value to hash, e.g. a token value.
+     * @return lower case hex digest, or null if value is null.
+     */
+    public String hash(CharSequence value) {
+        if (value == null) {
+            return null;
+        }
+        return workspaces.get().hash(value);
+    }
+
+    /**
+     * A reusable builder for composite values, owned by the calling thread. The builder is shared by all the users of
+     * this hasher on the thread, so it must be hashed before it is requested again.
+     *
+     * @return an empty string builder.
+     */
+    StringBuilder builder() {
+        StringBuilder builder = workspaces.get().builder;
+        builder.setLength(0);
+        return builder;
+    }
+
+    /**
+     * Per-thread digest and buffers.
+     */
+    private static final class Workspace {
+        private final MessageDigest digest;
+        private final byte[] output;
+        private final char[] hex;
+        private final StringBuilder builder = new StringBuilder(128);
+        private byte[] input = new byte[256];
+
+        private Workspace(Algorithm algorithm) {
+            try {
+                digest = MessageDigest.getInstance(algorithm.jcaName);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(
+                    algorithm.jcaName + " algorithm not available.  Fatal (should be in the JDK).");
+            }
+            output = new byte[algorithm.digestLength];
+            hex = new char[algorithm.digestLength * 2];
+        }
+
+        private String hash(CharSequence value) {
+            int length = encodeUtf8(value);
+            digest.update(input, 0, length);
+            try {
+                digest.digest(output, 0, output.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException("Digest buffer too small.", e);
+            }
+
+            for (int i = 0; i < output.length; i++) {
+                hex[2 * i] = HEX[(output[i] >> 4) & 0xf];
+                hex[2 * i + 1] = HEX[output[i] & 0xf];
+            }
+            return new String(hex);
+        }
+
+        /**
+         * UTF-8 encode into the input buffer, replacing unpaired surrogates with '?' like {@link String#getBytes}.
+         */
+        private int encodeUtf8(CharSequence value) {
+            int length = value.length();
+            if (input.length < length * 3) {
+                input = new byte[length * 3];
+            }
+
+            int position = 0;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    input[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    input[position++] = (byte) (0xc0 | (c >> 6));
+                    input[position++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                        input[position++] = (byte) (0xf0 | (codePoint >> 18));
+                        input[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                        input[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                        input[position++] = (byte) (0x80 | (codePoint & 0x3f));
+                    } else {
+                        input[position++] = (byte) '?';
+                    }
+                } else {
+                    input[position++] = (byte) (0xe0 | (c >> 12));
+                    input[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    input[position++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.dto.OAuthRefreshToken;
+import com.oauth.server.dto.OAuthRevocationJob;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Revokes all the tokens of a client, a user, or a user for a client as background jobs.
+ *
+ * <p>
+ * Jobs run one at a time on a single thread. Each step reads a batch of access token keys, deletes the access tokens
+ * and their refresh tokens in batched requests, and saves the job's progress. Once no access token is left, the
+ * remaining refresh tokens are read from their own indexes and deleted the same way, which covers refresh tokens whose
+ * access tokens were purged or, with JWT access tokens, never stored. Deletes are throttled to the configured rate,
+ * shared by all jobs, so a large revocation does not take the capacity of the token tables from token grants.
+ * </p>
+ *
+ * <p>
+ * Tokens are deleted as they are found, so a job interrupted by a restart resumes by starting over on what is left;
+ * unfinished jobs are resumed once the application is ready. Each deleted batch of access tokens is evicted from the
+ * {@link CachingTokenStore} of this node; other nodes serve them until their cache entry expires.
+ * </p>
+ *
+ * <p>
+ * A node takes a job with a conditional write before running it, and holds it for
+ * {@code oauth.token-revocation.lease-seconds}, renewed with every progress save. Jobs another live node holds are
+ * left to it; a job whose node stopped is taken over once its lease expired.
+ * </p>
+ *
+ * <p>
+ * The tokens of a user for a client, few enough to wait for, can also be revoked on the calling thread with
+ * {@link #revoke(String, String)}, so that they are gone once the call returns.
+ * </p>
+ *
+ * <p>
+ * The start of each job revoking a whole client and each deleted batch are written to the {@link RevocationLog}.
+ * </p>
+ */
+@Log4j2
+@Service
+public class TokenRevocationService {
+
+    /**
+     * Pause before reading again when a batch only returns tokens just deleted, which the token indexes may still
+     * list for a short time.
+     */
+    private static final long INDEX_LAG_MILLIS = 1000L;
+
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+
+    @Autowired
+    private RevocationLog revocationLog;
+
+    @Autowired
+    private CachingTokenStore cachingTokenStore;
+
+    @Value("${oauth.token-revocation.batch-size:25}")
+    private int batchSize;
+
+    @Value("${oauth.token-revocation.deletes-per-second:100}")
+    private double deletesPerSecond;
+
+    @Value("${oauth.token-revocation.resume.enabled:true}")
+    private boolean resumeEnabled;
+
+    @Value("${oauth.token-revocation.lease-seconds:60}")
+    private long leaseSeconds;
+
+    /**
+     * Owner of the jobs this node runs.
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private RateLimiter rateLimiter;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        rateLimiter = RateLimiter.create(deletesPerSecond);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start revoking the tokens of a client, a user, or a user for a client.
+     *
+     * @param clientId client id, or null for all clients of the user.
+     * @param userName user name, or null for all users of the client.
+     * @return the job, pending.
+     * @throws IllegalArgumentException if neither a client nor a user is given.
+     */
+    public OAuthRevocationJob submit(String clientId, String userName) {
+        if (StringUtils.isBlank(clientId) && StringUtils.isBlank(userName)) {
+            throw new IllegalArgumentException("A client id or a user name is required.");
+        }
+
+        OAuthRevocationJob job = newJob(clientId, userName);
+        tokenRevocationStore.saveJob(job);
+        if (job.getUserName() == null) {
+            revocationLog.clientTokensRevoked(job.getClientId());
+        }
+
+        OAuthRevocationJob submitted = job.toBuilder().build();
+        executor.execute(() -> run(job));
+        return submitted;
+    }
+
+    /**
+     * Revoke the tokens of a user for a client on the calling thread. The job is recorded as any other, and is resumed
+     * after a restart should this node stop before it completes.
+     *
+     * @param clientId client id.
+     * @param userName user name.
+     * @return the job, completed.
+     * @throws IllegalArgumentException if the client or the user is missing.
+     * @throws IllegalStateException if the tokens could not all be revoked.
+     */
+    public OAuthRevocationJob revoke(String clientId, String userName) {
+        if (StringUtils.isBlank(clientId) || StringUtils.isBlank(userName)) {
+            throw new IllegalArgumentException("A client id and a user name are required.");
+        }
+
+        OAuthRevocationJob job = newJob(clientId, userName);
+        tokenRevocationStore.saveJob(job);
+
+        run(job);
+        if (job.getStatus() != OAuthRevocationJob.Status.COMPLETED) {
+            throw new IllegalStateException("Token revocation job " + job.getJobId() + " did not complete.");
+        }
+        return job;
+    }
+
+    /**
+     * Get a job with its progress.
+     *
+     * @param jobId job id.
+     * @return the job, or null if not found.
+     */
+    public OAuthRevocationJob getJob(String jobId) {
+        return tokenRevocationStore.loadJob(jobId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        if (!resumeEnabled) {
+            return;
+        }
+
+        try {
+            for (OAuthRevocationJob job : tokenRevocationStore.findUnfinishedJobs()) {
+                if (job.getOwner() != null && job.getLeaseExpiresAt() != null
+                    && job.getLeaseExpiresAt() > System.currentTimeMillis()) {
+                    continue;
+                }
+                log.info("Resuming token revocation job {}.", job.getJobId());
+                executor.execute(() -> run(job));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to resume token revocation jobs.", e);
+        }
+    }
+
+    private void run(OAuthRevocationJob job) {
+        job.setOwner(nodeId);
+        job.setStatus(OAuthRevocationJob.Status.RUNNING);
+        job.setUpdatedAt(new Date());
+        job.setLeaseExpiresAt(System.currentTimeMillis() + leaseSeconds * 1000L);
+        if (!tokenRevocationStore.acquireJob(job, System.currentTimeMillis())) {
+            log.info("Token revocation job {} is run by another node.", job.getJobId());
+            return;
+        }
+
+        try {
+            revokeAccessTokens(job);
+            revokeRefreshTokens(job);
+
+            if (!Thread.currentThread().isInterrupted()) {
+                update(job, OAuthRevocationJob.Status.COMPLETED);
+                log.info("Token revocation job {} revoked {} tokens and {} refresh tokens.", job.getJobId(),
+                    job.getRevokedTokens(), job.getRevokedRefreshTokens());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (JobTakenOverException e) {
+            log.warn("Token revocation job {} was taken over by another node.", job.getJobId());
+        } catch (RuntimeException e) {
+            log.warn("Token revocation job {} failed.", job.getJobId(), e);
+            job.setError(e.getMessage());
+            try {
+                update(job, OAuthRevocationJob.Status.FAILED);
+            } catch (RuntimeException saveFailure) {
+                log.warn("Unable to save token revocation job {}.", job.getJobId(), saveFailure);
+            }
+        }
+    }
+
+    private void revokeAccessTokens(OAuthRevocationJob job) throws InterruptedException {
+        Set<String> lastBatch = Collections.emptySet();
+        while (!Thread.currentThread().isInterrupted()) {
+            List<OAuthAccessToken> found = tokenRevocationStore.findTokenKeys(job.getClientId(), job.getUserName(),
+                batchSize);
+            if (found.isEmpty()) {
+                return;
+            }
+
+            Set<String> deletedBefore = lastBatch;
+            List<OAuthAccessToken> accessTokens = found.stream()
+                .filter(accessToken -> !deletedBefore.contains(accessToken.getTokenId()))
+                .collect(Collectors.toList());
+            if (accessTokens.isEmpty()) {
+                Thread.sleep(INDEX_LAG_MILLIS);
+                continue;
+            }
+
+            rateLimiter.acquire(deletes(accessTokens));
+            tokenRevocationStore.deleteTokens(accessTokens);
+            lastBatch = accessTokens.stream().map(OAuthAccessToken::getTokenId).collect(Collectors.toSet());
+            cachingTokenStore.evictAccessTokens(lastBatch);
+            revocationLog.accessTokensRevoked(lastBatch, job.getClientId());
+
+            job.setRevokedTokens(job.getRevokedTokens() + accessTokens.size());
+            update(job, OAuthRevocationJob.Status.RUNNING);
+        }
+    }
+
+    private void revokeRefreshTokens(OAuthRevocationJob job) throws InterruptedException {
+        Set<String> lastBatch = Collections.emptySet();
+        while (!Thread.currentThread().isInterrupted()) {
+            List<OAuthRefreshToken> found = tokenRevocationStore.findRefreshTokenKeys(job.getClientId(),
+                job.getUserName(), batchSize);
+            if (found.isEmpty()) {
+                return;
+            }
+
+            Set<String> deletedBefore = lastBatch;
+            List<OAuthRefreshToken> refreshTokens = found.stream()
+                .filter(refreshToken -> !deletedBefore.contains(refreshToken.getTokenId()))
+                .collect(Collectors.toList());
+            if (refreshTokens.isEmpty()) {
+                Thread.sleep(INDEX_LAG_MILLIS);
+                continue;
+            }
+
+            rateLimiter.acquire(refreshTokens.size());
+            tokenRevocationStore.deleteRefreshTokens(refreshTokens);
+            lastBatch = refreshTokens.stream().map(OAuthRefreshToken::getTokenId).collect(Collectors.toSet());
+
+            long revokedBefore = job.getRevokedRefreshTokens() == null ? 0L : job.getRevokedRefreshTokens();
+            job.setRevokedRefreshTokens(revokedBefore + refreshTokens.size());
+            update(job, OAuthRevocationJob.Status.RUNNING);
+        }
+    }
+
+    private static OAuthRevocationJob newJob(String clientId, String userName) {
+        Date now = new Date();
+        return OAuthRevocationJob.builder()
+            .jobId(UUID.randomUUID().toString())
+            .clientId(StringUtils.trimToNull(clientId))
+            .userName(StringUtils.trimToNull(userName))
+            .status(OAuthRevocationJob.Status.PENDING)
+            .revokedTokens(0L)
+            .revokedRefreshTokens(0L)
+            .createdAt(now)
+            .updatedAt(now)
+            .build();
+    }
+
+    private void update(OAuthRevocationJob job, OAuthRevocationJob.Status status) {
+        job.setStatus(status);
+        job.setUpdatedAt(new Date());
+        job.setLeaseExpiresAt(System.currentTimeMillis() + leaseSeconds * 1000L);
+        if (!tokenRevocationStore.renewJob(job)) {
+            throw new JobTakenOverException();
+        }
+    }
+
+    private static int deletes(List<OAuthAccessToken> accessTokens) {
+        return accessTokens.size() + (int) accessTokens.stream()
+            .filter(accessToken -> accessToken.getRefreshToken() != null)
+            .count();
+    }
+
+    /**
+     * Thrown when a job's lease was lost to another node, which now runs the job.
+     */
+    private static final class JobTakenOverException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+}
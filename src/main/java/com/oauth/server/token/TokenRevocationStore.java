@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import com.oauth.server.dto.OAuthAccessToken;
+import com.oauth.server.dto.OAuthRefreshToken;
+import com.oauth.server.dto.OAuthRevocationJob;
+import java.util.List;
+
+/**
+ * Token storage operations of bulk revocation, and the storage of the revocation jobs.
+ */
+public interface TokenRevocationStore {
+
+    /**
+     * Find the keys of stored access tokens of a client, a user, or a user for a client. Only the token id and the
+     * refresh token key are read.
+     *
+     * @param clientId client id, or null for any client.
+     * @param userName user name, or null for any user.
+     * @param limit maximum number of tokens returned.
+     * @return access token keys; empty once no matching token is left.
+     */
+    List<OAuthAccessToken> findTokenKeys(String clientId, String userName, int limit);
+
+    /**
+     * Delete access tokens and the refresh tokens they were issued with, in batched requests.
+     *
+     * @param accessTokens access token keys, as returned by {@link #findTokenKeys(String, String, int)}.
+     */
+    void deleteTokens(List<OAuthAccessToken> accessTokens);
+
+    /**
+     * Find the keys of stored refresh tokens of a client, a user, or a user for a client. Only the token id is read.
+     * Refresh tokens written before they recorded their client and user are only found through their access tokens.
+     *
+     * @param clientId client id, or null for any client.
+     * @param userName user name, or null for any user.
+     * @param limit maximum number of tokens returned.
+     * @return refresh token keys; empty once no matching token is left.
+     */
+    List<OAuthRefreshToken> findRefreshTokenKeys(String clientId, String userName, int limit);
+
+    /**
+     * Delete refresh tokens, in batched requests.
+     *
+     * @param refreshTokens refresh token keys, as returned by {@link #findRefreshTokenKeys(String, String, int)}.
+     */
+    void deleteRefreshTokens(List<OAuthRefreshToken> refreshTokens);
+
+    /**
+     * Save a revocation job.
+     *
+     * @param job revocation job.
+     */
+    void saveJob(OAuthRevocationJob job);
+
+    /**
+     * Take a job for its new owner and save it, with a conditional write succeeding only if no node holds the job:
+     * the stored job has no owner, or the lease of its owner expired.
+     *
+     * @param job revocation job, with its new owner and lease.
+     * @param now current time, in epoch milliseconds.
+     * @return true if taken; false if another node holds the job.
+     */
+    boolean acquireJob(OAuthRevocationJob job, long now);
+
+    /**
+     * Save the progress of a job and renew its lease, with a conditional write succeeding only if its owner still
+     * holds the job.
+     *
+     * @param job revocation job, with its renewed lease.
+     * @return true if saved; false if another node took the job over.
+     */
+    boolean renewJob(OAuthRevocationJob job);
+
+    /**
+     * Load a revocation job.
+     *
+     * @param jobId job id.
+     * @return the job, or null if not found.
+     */
+    OAuthRevocationJob loadJob(String jobId);
+
+    /**
+     * Jobs pending or interrupted while running.
+     *
+     * @return unfinished jobs.
+     */
+    List<OAuthRevocationJob> findUnfinishedJobs();
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.token;
+
+import java.util.Collection;
+import org.springframework.security.oauth2.provider.approval.Approval;
+import org.springframework.security.oauth2.provider.approval.ApprovalStore;
+
+/**
+ * {@link ApprovalStore} persisting approvals keyed by user id.
+ */
+public interface UserApprovalStore extends ApprovalStore {
+
+    /**
+     * Get the approvals of a user for all clients, with one indexed query.
+     *
+     * @param userId user id.
+     * @return unexpired approvals.
+     */
+    Collection<Approval> getApprovalsForUser(String userId);
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.util.Base64;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+public class OAuth2AuthenticationConverterTest {
+
+    private final OAuth2AuthenticationConverter converter = new OAuth2AuthenticationConverter();
+
+    @Test
+    public void convertsToBinaryEncoding() {
+        String converted = converter.convert(authentication());
+
+        assertTrue(OAuthBinaryCodec.isEncoded(Base64.decode(converted.getBytes())));
+        OAuth2Authentication unconverted = converter.unconvert(converted);
+        assertEquals("user", unconverted.getName());
+        assertEquals("client", unconverted.getOAuth2Request().getClientId());
+    }
+
+    @Test
+    public void decodesJavaSerializedAuthentication() {
+        OAuth2Authentication authentication = authentication();
+
+        byte[] serialized = SerializationUtils.serialize(authentication);
+
+        OAuth2Authentication decoded = OAuth2AuthenticationConverter.decode(serialized);
+
+        assertEquals(authentication, decoded);
+        assertTrue(decoded.getPrincipal() instanceof User);
+    }
+
+    @Test
+    public void unconvertsJavaSerializedAuthentication() {
+        OAuth2Authentication authentication = authentication();
+        String legacy = new String(Base64.encode(SerializationUtils.serialize(authentication)));
+
+        assertEquals(authentication, converter.unconvert(legacy));
+    }
+
+    private static OAuth2Authentication authentication() {
+        OAuth2Request request = new OAuth2Request(
+            ImmutableMap.of("response_type", "code", "client_id", "client"),
+            "client",
+            ImmutableList.of(),
+            true,
+            ImmutableSet.of("profile"),
+            ImmutableSet.of("oauth2-resource"),
+            "https://example.com/callback",
+            ImmutableSet.of("code"),
+            ImmutableMap.of());
+        User user = new User("user", "", AuthorityUtils.createAuthorityList("ROLE_USER"));
+        return new OAuth2Authentication(request,
+            new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Date;
+import java.util.Map;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.common.DefaultExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+
+public class OAuthBinaryCodecTest {
+
+    /**
+     * Deflates every body that shrinks, which the repeated state parameter and token values make sure of.
+     */
+    private static final OAuthBinaryCodec DEFLATING = new OAuthBinaryCodec(0);
+
+    private static final OAuthBinaryCodec PLAIN = new OAuthBinaryCodec(Integer.MAX_VALUE);
+
+    private static final String LONG_VALUE = StringUtils.repeat("token", 200);
+
+    private static final Date EXPIRATION = new Date(1_900_000_000_000L);
+
+    @Test
+    public void authenticationRoundTrip() {
+        assertAuthenticationRoundTrip(PLAIN, false);
+    }
+
+    @Test
+    public void deflatedAuthenticationRoundTrip() {
+        assertAuthenticationRoundTrip(DEFLATING, true);
+    }
+
+    @Test
+    public void clientAuthenticationRoundTrip() {
+        OAuth2Request request = new OAuth2Request(ImmutableMap.of(), "client", ImmutableList.of(), true,
+            ImmutableSet.of("profile"), ImmutableSet.of(), null, ImmutableSet.of(), ImmutableMap.of());
+
+        OAuth2Authentication decoded = PLAIN.decodeAuthentication(
+            PLAIN.encodeAuthentication(new OAuth2Authentication(request, null)));
+
+        assertTrue(decoded.isClientOnly());
+        assertEquals("client", decoded.getOAuth2Request().getClientId());
+        assertNull(decoded.getOAuth2Request().getRedirectUri());
+    }
+
+    @Test
+    public void accessTokenRoundTrip() {
+        assertAccessTokenRoundTrip(PLAIN, false);
+    }
+
+    @Test
+    public void deflatedAccessTokenRoundTrip() {
+        assertAccessTokenRoundTrip(DEFLATING, true);
+    }
+
+    @Test
+    public void refreshTokenRoundTrip() {
+        assertRefreshTokenRoundTrip(PLAIN, false);
+    }
+
+    @Test
+    public void deflatedRefreshTokenRoundTrip() {
+        assertRefreshTokenRoundTrip(DEFLATING, true);
+    }
+
+    @Test
+    public void smallBodiesAreNotDeflatedByDefault() {
+        byte[] encoded = OAuthBinaryCodec.DEFAULT.encodeRefreshToken(new DefaultOAuth2RefreshToken("refresh"));
+
+        assertFalse(isDeflated(encoded));
+        assertEquals("refresh", OAuthBinaryCodec.DEFAULT.decodeRefreshToken(encoded).getValue());
+    }
+
+    @Test
+    public void encodedBytesAreRecognized() {
+        assertTrue(OAuthBinaryCodec.isEncoded(PLAIN.encodeRefreshToken(new DefaultOAuth2RefreshToken("refresh"))));
+        assertFalse(OAuthBinaryCodec.isEncoded("{\"access_token\":\"token\"}".getBytes()));
+        assertFalse(OAuthBinaryCodec.isEncoded(new byte[0]));
+        assertFalse(OAuthBinaryCodec.isEncoded(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodingAnotherKindFails() {
+        PLAIN.decodeAccessToken(PLAIN.encodeRefreshToken(new DefaultOAuth2RefreshToken("refresh")));
+    }
+
+    private static void assertAuthenticationRoundTrip(OAuthBinaryCodec codec, boolean deflated) {
+        OAuth2Request request = new OAuth2Request(
+            ImmutableMap.of("response_type", "code", "client_id", "client", "state", LONG_VALUE),
+            "client",
+            AuthorityUtils.createAuthorityList("ROLE_CLIENT"),
+            true,
+            ImmutableSet.of("profile", "email"),
+            ImmutableSet.of("oauth2-resource"),
+            "https://example.com/callback",
+            ImmutableSet.of("code"),
+            ImmutableMap.of());
+        UsernamePasswordAuthenticationToken user = new UsernamePasswordAuthenticationToken("user", null,
+            AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_USER_ADMIN"));
+
+        byte[] encoded = codec.encodeAuthentication(new OAuth2Authentication(request, user));
+        OAuth2Authentication decoded = codec.decodeAuthentication(encoded);
+
+        assertEquals(deflated, isDeflated(encoded));
+        OAuth2Request decodedRequest = decoded.getOAuth2Request();
+        assertEquals(request.getClientId(), decodedRequest.getClientId());
+        assertEquals(request.getScope(), decodedRequest.getScope());
+        assertEquals(ImmutableSet.of(new SimpleGrantedAuthority("ROLE_CLIENT")),
+            ImmutableSet.copyOf(decodedRequest.getAuthorities()));
+        assertTrue(decodedRequest.isApproved());
+        assertEquals(request.getResourceIds(), decodedRequest.getResourceIds());
+        assertEquals(request.getRedirectUri(), decodedRequest.getRedirectUri());
+        assertEquals(request.getResponseTypes(), decodedRequest.getResponseTypes());
+        assertEquals(request.getRequestParameters(), decodedRequest.getRequestParameters());
+
+        assertFalse(decoded.isClientOnly());
+        assertEquals("user", decoded.getName());
+        assertEquals("user", decoded.getUserAuthentication().getPrincipal());
+        assertEquals(ImmutableSet.copyOf(user.getAuthorities()),
+            ImmutableSet.copyOf(decoded.getUserAuthentication().getAuthorities()));
+    }
+
+    private static void assertAccessTokenRoundTrip(OAuthBinaryCodec codec, boolean deflated) {
+        DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(LONG_VALUE);
+        accessToken.setExpiration(EXPIRATION);
+        accessToken.setScope(ImmutableSet.of("profile", "email"));
+        accessToken.setRefreshToken(new DefaultExpiringOAuth2RefreshToken("refresh", EXPIRATION));
+        Map<String, Object> information = ImmutableMap.of(
+            "string", "value", "long", 1L, "integer", 2, "boolean", true, "double", 3.5);
+        accessToken.setAdditionalInformation(information);
+
+        byte[] encoded = codec.encodeAccessToken(accessToken);
+        OAuth2AccessToken decoded = codec.decodeAccessToken(encoded);
+
+        assertEquals(deflated, isDeflated(encoded));
+        assertEquals(accessToken.getValue(), decoded.getValue());
+        assertEquals(accessToken.getTokenType(), decoded.getTokenType());
+        assertEquals(EXPIRATION, decoded.getExpiration());
+        assertEquals(accessToken.getScope(), decoded.getScope());
+        assertEquals(information, decoded.getAdditionalInformation());
+        assertTrue(decoded.getRefreshToken() instanceof ExpiringOAuth2RefreshToken);
+        assertEquals("refresh", decoded.getRefreshToken().getValue());
+        assertEquals(EXPIRATION, ((ExpiringOAuth2RefreshToken) decoded.getRefreshToken()).getExpiration());
+    }
+
+    private static void assertRefreshTokenRoundTrip(OAuthBinaryCodec codec, boolean deflated) {
+        byte[] encoded = codec.encodeRefreshToken(new DefaultOAuth2RefreshToken(LONG_VALUE));
+        OAuth2RefreshToken decoded = codec.decodeRefreshToken(encoded);
+
+        assertEquals(deflated, isDeflated(encoded));
+        assertFalse(decoded instanceof ExpiringOAuth2RefreshToken);
+        assertEquals(LONG_VALUE, decoded.getValue());
+
+        byte[] expiringEncoded =
+            codec.encodeRefreshToken(new DefaultExpiringOAuth2RefreshToken(LONG_VALUE, EXPIRATION));
+        OAuth2RefreshToken expiringDecoded = codec.decodeRefreshToken(expiringEncoded);
+
+        assertEquals(deflated, isDeflated(expiringEncoded));
+        assertTrue(expiringDecoded instanceof ExpiringOAuth2RefreshToken);
+        assertEquals(LONG_VALUE, expiringDecoded.getValue());
+        assertEquals(EXPIRATION, ((ExpiringOAuth2RefreshToken) expiringDecoded).getExpiration());
+    }
+
+    /**
+     * The fourth header byte holds the flags, the lowest bit marking a deflated body.
+     */
+    private static boolean isDeflated(byte[] encoded) {
+        return (encoded[3] & 1) != 0;
+    }
+}
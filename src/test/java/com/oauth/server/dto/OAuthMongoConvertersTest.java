@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * Licensed under the Amazon Software License
+ * http://aws.amazon.com/asl/
+ */
+package com.oauth.server.dto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Date;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.security.oauth2.common.DefaultExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.DefaultOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.ExpiringOAuth2RefreshToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+
+public class OAuthMongoConvertersTest {
+
+    private static final Date EXPIRATION = new Date(1_900_000_000_000L);
+
+    private MappingMongoConverter converter;
+
+    /**
+     * Maps the tokens as embedded documents, the way they were written before the binary encoding.
+     */
+    private MappingMongoConverter legacyConverter;
+
+    @Before
+    public void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(OAuthMongoConverters.converters());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        MongoMappingContext legacyMappingContext = new MongoMappingContext();
+        legacyMappingContext.afterPropertiesSet();
+        legacyConverter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, legacyMappingContext);
+        legacyConverter.afterPropertiesSet();
+    }
+
+    @Test
+    public void writesTokensInBinaryEncoding() {
+        Document document = new Document();
+        converter.write(OAuthAccessToken.builder().tokenId("id").token(accessToken()).build(), document);
+
+        assertTrue(document.get("token") instanceof Binary);
+        assertTrue(OAuthBinaryCodec.isEncoded(((Binary) document.get("token")).getData()));
+        assertAccessToken(converter.read(OAuthAccessToken.class, document).getToken());
+    }
+
+    @Test
+    public void readsLegacyAccessTokenDocument() {
+        Document document = new Document();
+        legacyConverter.write(OAuthAccessToken.builder().tokenId("id").token(accessToken()).build(), document);
+        assertTrue(document.get("token") instanceof Document);
+
+        OAuthAccessToken record = converter.read(OAuthAccessToken.class, document);
+
+        assertEquals("id", record.getTokenId());
+        assertAccessToken(record.getToken());
+    }
+
+    @Test
+    public void readsLegacyRefreshTokenDocuments() {
+        Document expiring = new Document();
+        legacyConverter.write(OAuthRefreshToken.builder().tokenId("expiring")
+            .token(new DefaultExpiringOAuth2RefreshToken("expiring", EXPIRATION)).build(), expiring);
+        Document plain = new Document();
+        legacyConverter.write(OAuthRefreshToken.builder().tokenId("plain")
+            .token(new DefaultOAuth2RefreshToken("plain")).build(), plain);
+
+        OAuth2RefreshToken expiringToken = converter.read(OAuthRefreshToken.class, expiring).getToken();
+        OAuth2RefreshToken plainToken = converter.read(OAuthRefreshToken.class, plain).getToken();
+
+        assertTrue(expiringToken instanceof ExpiringOAuth2RefreshToken);
+        assertEquals("expiring", expiringToken.getValue());
+        assertEquals(EXPIRATION, ((ExpiringOAuth2RefreshToken) expiringToken).getExpiration());
+        assertFalse(plainToken instanceof ExpiringOAuth2RefreshToken);
+        assertEquals("plain", plainToken.getValue());
+    }
+
+    private static OAuth2AccessToken accessToken() {
+        DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken("access");
+        accessToken.setExpiration(EXPIRATION);
+        accessToken.setScope(ImmutableSet.of("profile"));
+        accessToken.setRefreshToken(new DefaultExpiringOAuth2RefreshToken("refresh", EXPIRATION));
+        accessToken.setAdditionalInformation(ImmutableMap.of("partner", "alexa"));
+        return accessToken;
+    }
+
+    private static void assertAccessToken(OAuth2AccessToken token) {
+        assertEquals("access", token.getValue());
+        assertEquals(EXPIRATION, token.getExpiration());
+        assertEquals(ImmutableSet.of("profile"), token.getScope());
+        assertEquals(ImmutableMap.of("partner", "alexa"), token.getAdditionalInformation());
+        assertEquals("refresh", token.getRefreshToken().getValue());
+        assertEquals(EXPIRATION, ((ExpiringOAuth2RefreshToken) token.getRefreshToken()).getExpiration());
+    }
+}